@@ -0,0 +1,17 @@
+package com.fitpro.archive;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One workout as stored in an archive segment. Archived workouts keep their values but not
+ * their ids or the link to a workout template.
+ */
+public record ArchivedWorkout(
+    LocalDateTime workoutDate,
+    Integer durationMinutes,
+    Integer caloriesBurned,
+    String muscleGroup,
+    Map<String, Integer> exercises
+) {
+}
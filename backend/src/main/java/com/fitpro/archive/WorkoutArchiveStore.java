@@ -0,0 +1,224 @@
+package com.fitpro.archive;
+
+import com.fitpro.models.WorkoutArchiveSegment;
+import com.fitpro.repositories.WorkoutArchiveSegmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Segment files of archived workout history, one directory per user, read through memory
+ * mappings. archive.directory must be an absolute path to storage every instance mounts at
+ * the same place (a shared or replicated volume such as NFS or EFS); without it nothing is
+ * archived. The workout_archive_segments table is the index of committed segments; files
+ * without a row there are leftovers of rolled-back archive runs and are never read.
+ *
+ * A segment that cannot be read is skipped with an error in the log rather than failing
+ * the streak, rollup or sync work that asked for it; its workouts are missing from the
+ * result until the file is restored.
+ */
+@Component
+public class WorkoutArchiveStore {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutArchiveStore.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final WorkoutArchiveSegmentRepository segmentRepository;
+    // Null when archive.directory is not configured
+    private final Path directory;
+
+    public WorkoutArchiveStore(WorkoutArchiveSegmentRepository segmentRepository,
+                               @Value("${archive.directory:}") String directory) {
+        this.segmentRepository = segmentRepository;
+        if (directory.isBlank()) {
+            this.directory = null;
+        } else if (Paths.get(directory).isAbsolute()) {
+            this.directory = Paths.get(directory);
+        } else {
+            // A relative path resolves inside each instance's working directory, which other
+            // instances cannot see and redeploys throw away
+            throw new IllegalStateException("archive.directory must be an absolute path to shared storage: " + directory);
+        }
+    }
+
+    public boolean isConfigured() {
+        return directory != null;
+    }
+
+    /**
+     * Write rows sorted by date to a new segment and register it in the current
+     * transaction. The file is removed again if the transaction rolls back.
+     */
+    public WorkoutArchiveSegment write(UUID userId, List<ArchivedWorkout> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Cannot archive an empty segment");
+        }
+        if (directory == null) {
+            throw new IllegalStateException("archive.directory is not configured");
+        }
+        WorkoutArchiveSegment segment = new WorkoutArchiveSegment();
+        segment.setUserId(userId);
+        segment.setFileName(UUID.randomUUID() + SEGMENT_SUFFIX);
+        segment.setRowCount(rows.size());
+        segment.setFirstWorkoutAt(rows.get(0).workoutDate());
+        segment.setLastWorkoutAt(rows.get(rows.size() - 1).workoutDate());
+
+        byte[] encoded = WorkoutSegmentWriter.encode(rows);
+        Path path = segmentPath(userId, segment.getFileName());
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(segment.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(encoded);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // The rows are deleted once the transaction commits, so the file must be durable first
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive segment for user " + userId, e);
+        }
+        segment.setSizeBytes(encoded.length);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteQuietly(path);
+                    }
+                }
+            });
+        }
+        return segmentRepository.save(segment);
+    }
+
+    /**
+     * Read every archived workout of a user, oldest first
+     */
+    public List<ArchivedWorkout> readWorkouts(UUID userId) {
+        List<ArchivedWorkout> rows = new ArrayList<>();
+        for (WorkoutArchiveSegment segment : segmentRepository.findByUserIdOrderByFirstWorkoutAtAsc(userId)) {
+            WorkoutSegmentReader reader = open(segment);
+            if (reader != null) {
+                rows.addAll(reader.readAll());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Distinct days with an archived workout; only the dates column of each segment is read
+     */
+    public Set<LocalDate> findActiveDays(UUID userId) {
+        Set<LocalDate> days = new HashSet<>();
+        for (WorkoutArchiveSegment segment : segmentRepository.findByUserIdOrderByFirstWorkoutAtAsc(userId)) {
+            WorkoutSegmentReader reader = open(segment);
+            if (reader == null) {
+                continue;
+            }
+            for (long epochSecond : reader.epochSeconds()) {
+                days.add(LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400L)));
+            }
+        }
+        return days;
+    }
+
+    public long countWorkouts(UUID userId) {
+        return segmentRepository.countArchivedWorkouts(userId);
+    }
+
+    public List<UUID> findUserIds() {
+        return segmentRepository.findArchivedUserIds();
+    }
+
+    /**
+     * Delete segment files that no committed segment refers to and that are older than
+     * minAge, so files of archive runs still in progress are left alone
+     */
+    public int removeOrphanedFiles(Duration minAge) {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(minAge);
+        int removed = 0;
+        try (DirectoryStream<Path> userDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path userDirectory : userDirectories) {
+                UUID userId;
+                try {
+                    userId = UUID.fromString(userDirectory.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                Set<String> registered = new HashSet<>(segmentRepository.findFileNamesByUserId(userId));
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(userDirectory)) {
+                    for (Path file : files) {
+                        if (!registered.contains(file.getFileName().toString())
+                                && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                            deleteQuietly(file);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to scan archive directory " + directory, e);
+        }
+        return removed;
+    }
+
+    // Null when the segment is missing or damaged, which has already been logged
+    private WorkoutSegmentReader open(WorkoutArchiveSegment segment) {
+        if (directory == null) {
+            logger.error("Cannot read archive segment {} of user {}: archive.directory is not configured",
+                segment.getId(), segment.getUserId());
+            return null;
+        }
+        Path path = segmentPath(segment.getUserId(), segment.getFileName());
+        try {
+            return WorkoutSegmentReader.open(path);
+        } catch (NoSuchFileException e) {
+            logger.error("Archive segment file {} of user {} is missing", path, segment.getUserId());
+            return null;
+        } catch (IOException e) {
+            logger.error("Skipping unreadable archive segment file {} of user {}", path, segment.getUserId(), e);
+            return null;
+        }
+    }
+
+    private Path segmentPath(UUID userId, String fileName) {
+        return directory.resolve(userId.toString()).resolve(fileName);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete archive file {}", path, e);
+        }
+    }
+}
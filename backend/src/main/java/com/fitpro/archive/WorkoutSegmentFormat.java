@@ -0,0 +1,45 @@
+package com.fitpro.archive;
+
+/**
+ * Layout of a workout archive segment. All columns are encoded as LEB128 varints:
+ * <pre>
+ *   int magic, byte version, int rowCount
+ *   int[7] section offsets: dictionary, dates, durations, calories, muscle groups, exercises, end
+ *   dictionary    count, then per string its UTF-8 length and bytes
+ *   dates         first epoch second (zigzag), then the delta to the previous row (rows are sorted);
+ *                 workout times keep whole-second precision
+ *   durations     zigzag value + 1 per row, 0 for null
+ *   calories      zigzag value + 1 per row, 0 for null
+ *   muscle groups dictionary index + 1 per row, 0 for null
+ *   exercises     per row the entry count, then per entry dictionary index and zigzag sets + 1
+ *   int CRC32 of everything before it
+ * </pre>
+ * Each column is a contiguous run, so readers that only need dates never touch the rest.
+ */
+final class WorkoutSegmentFormat {
+    static final int MAGIC = 0x46505753; // "FPWS"
+    static final byte VERSION = 1;
+
+    static final int DICTIONARY = 0;
+    static final int DATES = 1;
+    static final int DURATIONS = 2;
+    static final int CALORIES = 3;
+    static final int MUSCLE_GROUPS = 4;
+    static final int EXERCISES = 5;
+    static final int END = 6;
+    static final int SECTION_COUNT = 7;
+
+    static final int HEADER_SIZE = 4 + 1 + 4 + SECTION_COUNT * 4;
+    static final int TRAILER_SIZE = 4;
+
+    private WorkoutSegmentFormat() {
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,146 @@
+package com.fitpro.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.fitpro.archive.WorkoutSegmentFormat.*;
+
+/**
+ * Reads an archive segment through a read-only memory mapping. Columns are decoded on
+ * demand straight from the mapped pages, so reading the dates of a segment only touches
+ * the dates column.
+ */
+public final class WorkoutSegmentReader {
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int[] offsets = new int[SECTION_COUNT];
+
+    WorkoutSegmentReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int size = buffer.limit();
+        if (size < HEADER_SIZE + TRAILER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a workout archive segment");
+        }
+        if (buffer.get(4) != VERSION) {
+            throw new IOException("Unsupported workout archive segment version " + buffer.get(4));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, size - TRAILER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(size - TRAILER_SIZE)) {
+            throw new IOException("Workout archive segment checksum mismatch");
+        }
+        this.rowCount = buffer.getInt(5);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            offsets[i] = buffer.getInt(9 + i * 4);
+        }
+        if (offsets[END] != size - TRAILER_SIZE) {
+            throw new IOException("Workout archive segment is truncated");
+        }
+    }
+
+    /**
+     * Map a segment file. The mapping stays valid after the channel is closed.
+     */
+    public static WorkoutSegmentReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new WorkoutSegmentReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Workout times as UTC epoch seconds of the stored local date-time, oldest first
+     */
+    public long[] epochSeconds() {
+        long[] values = new long[rowCount];
+        Cursor dates = new Cursor(offsets[DATES]);
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previous = i == 0 ? unzigzag(dates.next()) : previous + dates.next();
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    /**
+     * Decode every column into rows, oldest first
+     */
+    public List<ArchivedWorkout> readAll() {
+        String[] dictionary = readDictionary();
+        long[] dates = epochSeconds();
+        Cursor durations = new Cursor(offsets[DURATIONS]);
+        Cursor calories = new Cursor(offsets[CALORIES]);
+        Cursor muscleGroups = new Cursor(offsets[MUSCLE_GROUPS]);
+        Cursor exercises = new Cursor(offsets[EXERCISES]);
+
+        List<ArchivedWorkout> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            int muscleGroup = (int) muscleGroups.next();
+            int exerciseCount = (int) exercises.next();
+            Map<String, Integer> sets = exerciseCount == 0 ? Map.of() : new HashMap<>(exerciseCount * 2);
+            for (int e = 0; e < exerciseCount; e++) {
+                String name = dictionary[(int) exercises.next()];
+                sets.put(name, exercises.nextNullable());
+            }
+            rows.add(new ArchivedWorkout(
+                LocalDateTime.ofEpochSecond(dates[i], 0, ZoneOffset.UTC),
+                durations.nextNullable(),
+                calories.nextNullable(),
+                muscleGroup == 0 ? null : dictionary[muscleGroup - 1],
+                sets));
+        }
+        return rows;
+    }
+
+    private String[] readDictionary() {
+        Cursor cursor = new Cursor(offsets[DICTIONARY]);
+        String[] values = new String[(int) cursor.next()];
+        for (int i = 0; i < values.length; i++) {
+            int length = (int) cursor.next();
+            byte[] bytes = new byte[length];
+            buffer.get(cursor.position, bytes);
+            cursor.position += length;
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private final class Cursor {
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        long next() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        Integer nextNullable() {
+            long value = next();
+            return value == 0 ? null : (int) unzigzag(value - 1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.fitpro.archive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.fitpro.archive.WorkoutSegmentFormat.*;
+
+/**
+ * Encodes a user's archived workouts into the columnar segment layout described in
+ * {@link WorkoutSegmentFormat}.
+ */
+final class WorkoutSegmentWriter {
+
+    private WorkoutSegmentWriter() {
+    }
+
+    /**
+     * Encode rows that are already sorted by workout date, oldest first
+     */
+    static byte[] encode(List<ArchivedWorkout> rows) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        VarIntBuffer dates = new VarIntBuffer(rows.size() * 3);
+        VarIntBuffer durations = new VarIntBuffer(rows.size());
+        VarIntBuffer calories = new VarIntBuffer(rows.size() * 2);
+        VarIntBuffer muscleGroups = new VarIntBuffer(rows.size());
+        VarIntBuffer exercises = new VarIntBuffer(rows.size() * 4);
+
+        long previous = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            ArchivedWorkout row = rows.get(i);
+            long epochSecond = row.workoutDate().toEpochSecond(ZoneOffset.UTC);
+            if (i == 0) {
+                dates.write(zigzag(epochSecond));
+            } else if (epochSecond < previous) {
+                throw new IllegalArgumentException("Archived workouts must be sorted by date");
+            } else {
+                dates.write(epochSecond - previous);
+            }
+            previous = epochSecond;
+
+            durations.writeNullable(row.durationMinutes());
+            calories.writeNullable(row.caloriesBurned());
+            muscleGroups.write(code(dictionary, row.muscleGroup()));
+
+            Map<String, Integer> sets = row.exercises() != null ? row.exercises() : Map.of();
+            exercises.write(sets.size());
+            for (Map.Entry<String, Integer> entry : sets.entrySet()) {
+                exercises.write(code(dictionary, entry.getKey()) - 1);
+                exercises.writeNullable(entry.getValue());
+            }
+        }
+
+        VarIntBuffer strings = new VarIntBuffer(dictionary.size() * 12 + 1);
+        strings.write(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            strings.write(bytes.length);
+            strings.writeBytes(bytes);
+        }
+
+        VarIntBuffer[] sections = {strings, dates, durations, calories, muscleGroups, exercises};
+        int size = HEADER_SIZE + TRAILER_SIZE;
+        for (VarIntBuffer section : sections) {
+            size += section.length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).put(VERSION).putInt(rows.size());
+        int offset = HEADER_SIZE;
+        for (VarIntBuffer section : sections) {
+            out.putInt(offset);
+            offset += section.length;
+        }
+        out.putInt(offset);
+        for (VarIntBuffer section : sections) {
+            out.put(section.bytes, 0, section.length);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        return out.array();
+    }
+
+    // Dictionary index + 1, with 0 reserved for null
+    private static long code(Map<String, Integer> dictionary, String value) {
+        return value == null ? 0 : dictionary.computeIfAbsent(value, v -> dictionary.size()) + 1;
+    }
+
+    private static final class VarIntBuffer {
+        private byte[] bytes;
+        private int length;
+
+        VarIntBuffer(int initialCapacity) {
+            this.bytes = new byte[Math.max(16, initialCapacity)];
+        }
+
+        void write(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeNullable(Integer value) {
+            write(value == null ? 0 : zigzag(value) + 1);
+        }
+
+        void writeBytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.fitpro.catalog;
+
+import com.fitpro.models.Exercise;
+
+import java.util.UUID;
+
+/**
+ * Immutable copy of an exercise row held by the in-memory catalog.
+ */
+public record CatalogExercise(
+    UUID id,
+    String name,
+    String description,
+    String muscleGroup,
+    String equipmentNeeded,
+    String difficultyLevel
+) {
+    public static CatalogExercise from(Exercise exercise) {
+        return new CatalogExercise(exercise.getId(), exercise.getName(), exercise.getDescription(),
+            exercise.getMuscleGroup(), exercise.getEquipmentNeeded(), exercise.getDifficultyLevel());
+    }
+}
@@ -0,0 +1,67 @@
+package com.fitpro.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The exercise list response, serialized and gzipped once per catalog version. The ETag is
+ * derived from the JSON bytes, so it is strong and identical on every instance serving the
+ * same catalog; the gzip representation gets its own tag as its bytes differ.
+ */
+public record CatalogPayload(byte[] json, byte[] gzip, String contentHash) {
+    private static final String GZIP_TAG_SUFFIX = "-gzip";
+
+    public static CatalogPayload of(ObjectMapper objectMapper, List<CatalogExercise> exercises) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(exercises);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return new CatalogPayload(json, compressed.toByteArray(), HexFormat.of().formatHex(digest, 0, 16));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the exercise catalog", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String etag(boolean gzipped) {
+        return "\"" + contentHash + (gzipped ? GZIP_TAG_SUFFIX : "") + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header names either representation of this payload. Uses
+     * the weak comparison RFC 9110 prescribes for If-None-Match.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag(false)) || tag.equals(etag(true))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package com.fitpro.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitpro.repositories.ExerciseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Holds the current exercise index and its serialized API payload. The catalog is loaded
+ * once and then reloaded only when the exercises version counter in catalog_versions moves,
+ * which a trigger bumps on every change; readers always see a complete snapshot and never
+ * wait for a reload.
+ */
+@Component
+public class ExerciseCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ExerciseCatalog.class);
+
+    private final ExerciseRepository exerciseRepository;
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot snapshot;
+
+    public record Snapshot(long version, ExerciseIndex index, CatalogPayload payload) {
+    }
+
+    public ExerciseCatalog(ExerciseRepository exerciseRepository, ObjectMapper objectMapper) {
+        this.exerciseRepository = exerciseRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public ExerciseIndex getIndex() {
+        return getSnapshot().index();
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        getSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${exercises.catalog.poll-interval-ms:30000}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        try {
+            Long version = exerciseRepository.findCatalogVersion();
+            if (version != null && version != current.version()) {
+                synchronized (this) {
+                    load();
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to check the exercise catalog version, keeping version {}", current.version(), e);
+        }
+    }
+
+    // The version is read before the rows, so a concurrent change leaves at worst newer rows
+    // under an older version, which the next poll simply reloads
+    private Snapshot load() {
+        Long version = exerciseRepository.findCatalogVersion();
+        List<CatalogExercise> exercises = exerciseRepository.findAllByOrderByNameAscIdAsc().stream()
+            .map(CatalogExercise::from)
+            .toList();
+        Snapshot loaded = new Snapshot(version != null ? version : 0L, ExerciseIndex.build(exercises),
+            CatalogPayload.of(objectMapper, exercises));
+        snapshot = loaded;
+        logger.info("Loaded exercise catalog version {} with {} exercises ({} bytes, {} gzipped)", loaded.version(),
+            exercises.size(), loaded.payload().json().length, loaded.payload().gzip().length);
+        return loaded;
+    }
+}
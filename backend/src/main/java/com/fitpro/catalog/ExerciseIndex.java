@@ -0,0 +1,208 @@
+package com.fitpro.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index over the exercise catalog. Each exercise is a bit position, and muscle
+ * groups, equipment and difficulty each map to a bitset of the exercises they cover, so
+ * filtering the catalog is a handful of word-wise ANDs over a few longs.
+ */
+public final class ExerciseIndex {
+    private static final Set<String> NO_EQUIPMENT = Set.of("", "none", "bodyweight", "body weight");
+
+    private final List<CatalogExercise> exercises;
+    private final int words;
+    // Keys are lower-cased; muscleGroupNames keeps the catalog's own spelling
+    private final Map<String, long[]> byMuscleGroup;
+    private final Map<String, String> muscleGroupNames;
+    private final Map<String, long[]> byEquipment;
+    // Exercises at or below each fitness level, indexed by ordinal
+    private final long[][] atOrBelowLevel;
+    private final Map<String, Integer> positionByName;
+
+    private ExerciseIndex(List<CatalogExercise> exercises) {
+        this.exercises = List.copyOf(exercises);
+        this.words = (exercises.size() + 63) >>> 6;
+
+        Map<String, long[]> muscleGroups = new LinkedHashMap<>();
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, long[]> equipment = new HashMap<>();
+        long[][] byLevel = new long[FitnessLevel.values().length][words];
+        Map<String, Integer> positions = new HashMap<>();
+
+        for (int i = 0; i < exercises.size(); i++) {
+            CatalogExercise exercise = exercises.get(i);
+            positions.putIfAbsent(normalize(exercise.name()), i);
+
+            String muscleGroup = normalize(exercise.muscleGroup());
+            if (!muscleGroup.isEmpty()) {
+                set(muscleGroups.computeIfAbsent(muscleGroup, k -> new long[words]), i);
+                names.putIfAbsent(muscleGroup, exercise.muscleGroup().trim());
+            }
+            for (String item : equipmentItems(exercise.equipmentNeeded())) {
+                set(equipment.computeIfAbsent(item, k -> new long[words]), i);
+            }
+            // Exercises without a difficulty are treated as suitable for everyone
+            FitnessLevel difficulty = exercise.difficultyLevel() == null
+                ? FitnessLevel.BEGINNER : FitnessLevel.from(exercise.difficultyLevel());
+            for (int level = difficulty.ordinal(); level < byLevel.length; level++) {
+                set(byLevel[level], i);
+            }
+        }
+
+        this.byMuscleGroup = Collections.unmodifiableMap(muscleGroups);
+        this.muscleGroupNames = Collections.unmodifiableMap(names);
+        this.byEquipment = Map.copyOf(equipment);
+        this.atOrBelowLevel = byLevel;
+        this.positionByName = Map.copyOf(positions);
+    }
+
+    public static ExerciseIndex build(List<CatalogExercise> exercises) {
+        return new ExerciseIndex(exercises);
+    }
+
+    public static ExerciseIndex empty() {
+        return new ExerciseIndex(List.of());
+    }
+
+    public int size() {
+        return exercises.size();
+    }
+
+    public List<CatalogExercise> exercises() {
+        return exercises;
+    }
+
+    public CatalogExercise get(int position) {
+        return exercises.get(position);
+    }
+
+    /**
+     * Lower-cased keys of the muscle groups present in the catalog
+     */
+    public Set<String> muscleGroupKeys() {
+        return byMuscleGroup.keySet();
+    }
+
+    public String muscleGroupName(String key) {
+        return muscleGroupNames.get(key);
+    }
+
+    /**
+     * Position of the exercise with this name, ignoring case, or -1
+     */
+    public int positionOf(String name) {
+        return positionByName.getOrDefault(normalize(name), -1);
+    }
+
+    // Bitset operations over fresh arrays; the index's own bitsets are never handed out
+
+    long[] newBitset() {
+        return new long[words];
+    }
+
+    long[] atOrBelow(FitnessLevel level) {
+        return atOrBelowLevel[level.ordinal()].clone();
+    }
+
+    /**
+     * Clear exercises in the target that need any equipment outside the available set
+     */
+    void retainAvailableEquipment(long[] target, Collection<String> available) {
+        Set<String> availableItems = new HashSet<>();
+        for (String item : available) {
+            availableItems.addAll(equipmentItems(item));
+        }
+        for (Map.Entry<String, long[]> entry : byEquipment.entrySet()) {
+            if (!availableItems.contains(entry.getKey())) {
+                andNot(target, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * AND the target with the exercises of a muscle group; unknown groups clear it
+     */
+    void retainMuscleGroup(long[] target, String key) {
+        long[] group = byMuscleGroup.get(key);
+        for (int w = 0; w < target.length; w++) {
+            target[w] &= group != null ? group[w] : 0L;
+        }
+    }
+
+    boolean intersects(long[] bits, String muscleGroupKey) {
+        long[] group = byMuscleGroup.get(muscleGroupKey);
+        if (group == null) {
+            return false;
+        }
+        for (int w = 0; w < bits.length; w++) {
+            if ((bits[w] & group[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void set(long[] bits, int position) {
+        bits[position >>> 6] |= 1L << position;
+    }
+
+    static void andNot(long[] target, long[] mask) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] &= ~mask[w];
+        }
+    }
+
+    static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Position of the n-th set bit (0-based), or -1 when there are fewer set bits
+     */
+    static int nthSetBit(long[] bits, int n) {
+        for (int w = 0; w < bits.length; w++) {
+            int count = Long.bitCount(bits[w]);
+            if (n < count) {
+                long word = bits[w];
+                for (int k = 0; k < n; k++) {
+                    word &= word - 1;
+                }
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            n -= count;
+        }
+        return -1;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // "Barbell, Bench" -> [barbell, bench]; bodyweight exercises need nothing
+    static List<String> equipmentItems(String equipment) {
+        List<String> items = new ArrayList<>(2);
+        if (equipment != null) {
+            for (String part : equipment.split("[,;/]")) {
+                String item = normalize(part);
+                if (!NO_EQUIPMENT.contains(item)) {
+                    items.add(item);
+                }
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,63 @@
+package com.fitpro.catalog;
+
+import java.util.Locale;
+
+/**
+ * Fitness levels as stored on the user profile and on exercises, with the set, rep and rest
+ * scheme used when generating workouts for each level.
+ */
+public enum FitnessLevel {
+    BEGINNER(3, 12, 90),
+    INTERMEDIATE(3, 10, 75),
+    ADVANCED(4, 8, 60);
+
+    // Rough time under tension per set, used to estimate workout length
+    private static final int WORK_SECONDS_PER_SET = 40;
+    // Setup and moving between exercises
+    private static final int TRANSITION_SECONDS = 60;
+
+    private final int sets;
+    private final int reps;
+    private final int restSeconds;
+
+    FitnessLevel(int sets, int reps, int restSeconds) {
+        this.sets = sets;
+        this.reps = reps;
+        this.restSeconds = restSeconds;
+    }
+
+    public int getSets() {
+        return sets;
+    }
+
+    public int getReps() {
+        return reps;
+    }
+
+    public int getRestSeconds() {
+        return restSeconds;
+    }
+
+    public double minutesPerExercise() {
+        return (sets * (WORK_SECONDS_PER_SET + restSeconds) + TRANSITION_SECONDS) / 60.0;
+    }
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a stored level; missing or unknown values count as beginner
+     */
+    public static FitnessLevel from(String value) {
+        if (value != null) {
+            String normalized = value.trim().toUpperCase(Locale.ROOT);
+            for (FitnessLevel level : values()) {
+                if (level.name().equals(normalized)) {
+                    return level;
+                }
+            }
+        }
+        return BEGINNER;
+    }
+}
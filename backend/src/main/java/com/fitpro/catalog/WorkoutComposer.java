@@ -0,0 +1,127 @@
+package com.fitpro.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Composes a workout from the exercise index. Pure computation over bitsets: no I/O and no
+ * shared state, so it can run on any thread against whichever index snapshot is current.
+ */
+public final class WorkoutComposer {
+    private static final int MAX_EXERCISES = 12;
+    private static final int EXERCISES_PER_MUSCLE_GROUP = 3;
+
+    /**
+     * What to generate. A null muscle group lets the composer pick groups, preferring ones
+     * not trained recently; null equipment means everything is available.
+     */
+    public record Spec(
+        FitnessLevel level,
+        int durationMinutes,
+        String muscleGroup,
+        Collection<String> equipment,
+        Collection<String> recentExercises,
+        Collection<String> recentMuscleGroups
+    ) {
+    }
+
+    private WorkoutComposer() {
+    }
+
+    public static WorkoutPlan compose(ExerciseIndex index, Spec spec, RandomGenerator random) {
+        long[] candidates = index.atOrBelow(spec.level());
+        if (spec.equipment() != null) {
+            index.retainAvailableEquipment(candidates, spec.equipment());
+        }
+
+        long[] recent = index.newBitset();
+        Set<String> recentGroups = new HashSet<>();
+        for (String name : spec.recentExercises()) {
+            int position = index.positionOf(name);
+            if (position >= 0) {
+                ExerciseIndex.set(recent, position);
+                recentGroups.add(ExerciseIndex.normalize(index.get(position).muscleGroup()));
+            }
+        }
+        for (String muscleGroup : spec.recentMuscleGroups()) {
+            recentGroups.add(ExerciseIndex.normalize(muscleGroup));
+        }
+
+        int count = (int) Math.round(spec.durationMinutes() / spec.level().minutesPerExercise());
+        count = Math.max(1, Math.min(MAX_EXERCISES, count));
+        List<String> targets = chooseMuscleGroups(index, spec, candidates, recentGroups, count, random);
+
+        long[] chosen = index.newBitset();
+        List<WorkoutPlan.Item> items = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            int position = -1;
+            // Rotate through the target groups; a group that has run out hands its slot on
+            for (int offset = 0; offset < targets.size() && position < 0; offset++) {
+                position = pick(index, candidates, targets.get((slot + offset) % targets.size()), chosen, recent, random);
+            }
+            if (position < 0) {
+                break;
+            }
+            ExerciseIndex.set(chosen, position);
+            FitnessLevel level = spec.level();
+            items.add(new WorkoutPlan.Item(index.get(position), level.getSets(), level.getReps(), level.getRestSeconds()));
+        }
+
+        List<String> groupNames = targets.stream().map(index::muscleGroupName).toList();
+        return new WorkoutPlan(String.join(" & ", groupNames) + " Workout", spec.level(),
+            spec.durationMinutes(), groupNames, items);
+    }
+
+    private static List<String> chooseMuscleGroups(ExerciseIndex index, Spec spec, long[] candidates,
+                                                   Set<String> recentGroups, int count, RandomGenerator random) {
+        if (spec.muscleGroup() != null) {
+            String key = ExerciseIndex.normalize(spec.muscleGroup());
+            if (!index.intersects(candidates, key)) {
+                throw new IllegalArgumentException("No exercises available for muscle group " + spec.muscleGroup());
+            }
+            return List.of(key);
+        }
+
+        List<String> rested = new ArrayList<>();
+        List<String> trained = new ArrayList<>();
+        for (String key : index.muscleGroupKeys()) {
+            if (index.intersects(candidates, key)) {
+                (recentGroups.contains(key) ? trained : rested).add(key);
+            }
+        }
+        if (rested.isEmpty() && trained.isEmpty()) {
+            throw new IllegalArgumentException("No exercises available for this fitness level and equipment");
+        }
+        shuffle(rested, random);
+        shuffle(trained, random);
+        rested.addAll(trained);
+
+        int groups = (count + EXERCISES_PER_MUSCLE_GROUP - 1) / EXERCISES_PER_MUSCLE_GROUP;
+        return List.copyOf(rested.subList(0, Math.min(groups, rested.size())));
+    }
+
+    // A random unchosen exercise of the group, preferring ones the user has not done recently
+    private static int pick(ExerciseIndex index, long[] candidates, String muscleGroup, long[] chosen,
+                            long[] recent, RandomGenerator random) {
+        long[] pool = candidates.clone();
+        index.retainMuscleGroup(pool, muscleGroup);
+        ExerciseIndex.andNot(pool, chosen);
+        long[] fresh = pool.clone();
+        ExerciseIndex.andNot(fresh, recent);
+
+        long[] from = ExerciseIndex.cardinality(fresh) > 0 ? fresh : pool;
+        int size = ExerciseIndex.cardinality(from);
+        return size == 0 ? -1 : ExerciseIndex.nthSetBit(from, random.nextInt(size));
+    }
+
+    private static void shuffle(List<String> values, RandomGenerator random) {
+        for (int i = values.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            values.set(j, values.set(i, values.get(j)));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.fitpro.catalog;
+
+import java.util.List;
+
+/**
+ * A generated workout before it is saved: exercises in order with their prescription.
+ */
+public record WorkoutPlan(
+    String name,
+    FitnessLevel level,
+    int durationMinutes,
+    List<String> muscleGroups,
+    List<Item> exercises
+) {
+    public record Item(CatalogExercise exercise, int sets, int reps, int restSeconds) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.fitpro.classification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over lower-cased keywords, each carrying an integer label. The
+ * failure links are folded into a dense transition table, so matching is one table lookup
+ * per character and finds every keyword occurrence in a single pass, case-insensitively.
+ */
+final class KeywordAutomaton {
+    static final int NO_MATCH = Integer.MAX_VALUE;
+    private static final int ASCII = 128;
+
+    // Characters that appear in no keyword share class 0
+    private final int[] asciiClasses = new int[ASCII];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int alphabetSize;
+    private final int[] transitions;
+    // Lowest label among keywords ending at each state, including those reached by failure links
+    private final int[] outputs;
+
+    /**
+     * @param keywords lists of keywords indexed by label; a lower label wins when several match
+     */
+    KeywordAutomaton(List<List<String>> keywords) {
+        int classes = 1;
+        List<Map<Integer, Integer>> trie = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        trie.add(new HashMap<>());
+        labels.add(NO_MATCH);
+
+        for (int label = 0; label < keywords.size(); label++) {
+            for (String keyword : keywords.get(label)) {
+                String normalized = normalize(keyword);
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < normalized.length(); i++) {
+                    char c = normalized.charAt(i);
+                    int charClass = classOf(c);
+                    if (charClass == 0) {
+                        charClass = classes++;
+                        if (c < ASCII) {
+                            // Upper-case ASCII shares the class, so matching needs no case folding
+                            asciiClasses[c] = charClass;
+                            asciiClasses[Character.toUpperCase(c)] = charClass;
+                        } else {
+                            otherClasses.put(c, charClass);
+                        }
+                    }
+                    Integer next = trie.get(state).get(charClass);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<>());
+                        labels.add(NO_MATCH);
+                        trie.get(state).put(charClass, next);
+                    }
+                    state = next;
+                }
+                labels.set(state, Math.min(labels.get(state), label));
+            }
+        }
+
+        this.alphabetSize = classes;
+        this.transitions = new int[trie.size() * classes];
+        this.outputs = new int[trie.size()];
+        int[] failure = new int[trie.size()];
+
+        // Breadth-first, so a state's failure target is always complete before the state itself
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = labels.get(0);
+        for (int charClass = 0; charClass < classes; charClass++) {
+            Integer child = trie.get(0).get(charClass);
+            if (child != null) {
+                transitions[charClass] = child;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = Math.min(labels.get(state), outputs[failure[state]]);
+            for (int charClass = 0; charClass < classes; charClass++) {
+                Integer child = trie.get(state).get(charClass);
+                int fallback = transitions[failure[state] * classes + charClass];
+                if (child != null) {
+                    failure[child] = fallback;
+                    transitions[state * classes + charClass] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * classes + charClass] = fallback;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowest label of any keyword occurring in the text, or NO_MATCH. Stops early once
+     * label 0 is found, since nothing can beat it.
+     */
+    int lowestMatch(CharSequence text) {
+        int best = NO_MATCH;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int charClass = c < ASCII ? asciiClasses[c] : classOf(Character.toLowerCase(c));
+            state = transitions[state * alphabetSize + charClass];
+            int label = outputs[state];
+            if (label < best) {
+                best = label;
+                if (best == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    int stateCount() {
+        return outputs.length;
+    }
+
+    private int classOf(char c) {
+        return c < ASCII ? asciiClasses[c] : otherClasses.getOrDefault(c, 0);
+    }
+
+    // Matching lower-cases one char at a time, so keywords are folded the same way
+    private static String normalize(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        char[] chars = keyword.trim().toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,51 @@
+package com.fitpro.classification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classifies workouts into a muscle group from their name. All configured keywords are
+ * compiled into one automaton at startup, so a name is scanned once however many groups
+ * and keywords there are. Classification happens when a workout is written; reads use the
+ * stored muscle_group column.
+ */
+@Component
+public class MuscleGroupClassifier {
+    private static final Logger logger = LoggerFactory.getLogger(MuscleGroupClassifier.class);
+
+    private final List<String> groupNames;
+    private final String fallback;
+    private final KeywordAutomaton automaton;
+
+    public MuscleGroupClassifier(MuscleGroupProperties properties) {
+        List<String> names = new ArrayList<>(properties.getGroups().size());
+        List<List<String>> keywords = new ArrayList<>(properties.getGroups().size());
+        for (MuscleGroupProperties.Group group : properties.getGroups()) {
+            if (group.getName() == null || group.getName().isBlank()) {
+                throw new IllegalArgumentException("Muscle group names must not be blank");
+            }
+            names.add(group.getName().trim());
+            keywords.add(group.getKeywords() != null ? group.getKeywords() : List.of());
+        }
+        this.groupNames = List.copyOf(names);
+        this.fallback = properties.getFallback();
+        this.automaton = new KeywordAutomaton(keywords);
+        logger.info("Compiled {} muscle groups into a {}-state keyword automaton", names.size(), automaton.stateCount());
+    }
+
+    /**
+     * Muscle group of a workout name: the highest-priority group with a keyword anywhere in
+     * the name, ignoring case, or the fallback group when none matches
+     */
+    public String classify(String name) {
+        if (name == null) {
+            return fallback;
+        }
+        int match = automaton.lowestMatch(name);
+        return match != KeywordAutomaton.NO_MATCH ? groupNames.get(match) : fallback;
+    }
+}
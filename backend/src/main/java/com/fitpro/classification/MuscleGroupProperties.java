@@ -0,0 +1,50 @@
+package com.fitpro.classification;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyword lists used to classify workouts by name, bound from workouts.muscle-groups.*.
+ * Groups are in priority order: when a name matches several, the earliest group wins.
+ */
+@Data
+@ConfigurationProperties(prefix = "workouts.muscle-groups")
+public class MuscleGroupProperties {
+    private List<Group> groups = new ArrayList<>(List.of(
+        new Group("Chest", List.of("chest")),
+        new Group("Back", List.of("back")),
+        new Group("Legs", List.of("leg")),
+        new Group("Arms", List.of("arm")),
+        new Group("Shoulders", List.of("shoulder")),
+        new Group("Core", List.of("core", "abs")),
+        new Group("Cardio", List.of("cardio")),
+        new Group("Full Body", List.of("full body"))
+    ));
+
+    private String fallback = "Other";
+
+    private Backfill backfill = new Backfill();
+
+    @Data
+    public static class Group {
+        private String name;
+        private List<String> keywords = new ArrayList<>();
+
+        public Group() {
+        }
+
+        public Group(String name, List<String> keywords) {
+            this.name = name;
+            this.keywords = new ArrayList<>(keywords);
+        }
+    }
+
+    @Data
+    public static class Backfill {
+        private boolean enabled = true;
+        private int batchSize = 1000;
+    }
+}
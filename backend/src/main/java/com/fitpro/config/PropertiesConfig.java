@@ -0,0 +1,10 @@
+package com.fitpro.config;
+
+import com.fitpro.classification.MuscleGroupProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MuscleGroupProperties.class)
+public class PropertiesConfig {
+}
@@ -0,0 +1,87 @@
+package com.fitpro.controllers;
+
+import com.fitpro.catalog.CatalogPayload;
+import com.fitpro.catalog.ExerciseCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/exercises")
+public class ExerciseController {
+    private static final Logger logger = LoggerFactory.getLogger(ExerciseController.class);
+
+    private final ExerciseCatalog exerciseCatalog;
+
+    public ExerciseController(ExerciseCatalog exerciseCatalog) {
+        this.exerciseCatalog = exerciseCatalog;
+    }
+
+    /**
+     * The full exercise library, served from the catalog snapshot's pre-serialized bytes.
+     * Revalidation with a matching If-None-Match is answered with 304 from memory.
+     */
+    @GetMapping
+    public ResponseEntity<?> getExercises(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            CatalogPayload payload = exerciseCatalog.getSnapshot().payload();
+            boolean gzipped = acceptsGzip(acceptEncoding);
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+            if (payload.matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(payload.etag(gzipped))
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(payload.etag(gzipped))
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+            if (gzipped) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip());
+            }
+            return response.body(payload.json());
+        } catch (Exception e) {
+            logger.error("Error fetching exercises", e);
+            return ResponseEntity.badRequest().body("Error fetching exercises: " + e.getMessage());
+        }
+    }
+
+    // "gzip, deflate, br" or "gzip;q=0.8"; an explicit q=0 refuses the coding
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("x-gzip")) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
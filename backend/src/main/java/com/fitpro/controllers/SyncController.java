@@ -0,0 +1,56 @@
+package com.fitpro.controllers;
+
+import com.fitpro.dto.SyncPushRequest;
+import com.fitpro.dto.SyncPushResponse;
+import com.fitpro.dto.SyncResponse;
+import com.fitpro.models.User;
+import com.fitpro.security.CustomUserDetails;
+import com.fitpro.services.SyncService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+    private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return userDetails.getUser();
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since) {
+        try {
+            User currentUser = getCurrentUser();
+            SyncResponse response = syncService.getChangesSince(currentUser, since);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error fetching sync changes", e);
+            return ResponseEntity.badRequest().body("Error fetching sync changes: " + e.getMessage());
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<?> pushChanges(@RequestBody SyncPushRequest request) {
+        try {
+            User currentUser = getCurrentUser();
+            SyncPushResponse response = syncService.applyChanges(currentUser, request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error applying sync changes", e);
+            return ResponseEntity.badRequest().body("Error applying sync changes: " + e.getMessage());
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.fitpro.dto.UserProfileRequest;
 import com.fitpro.models.User;
 import com.fitpro.repositories.UserRepository;
 import com.fitpro.security.CustomUserDetails;
+import com.fitpro.security.JwtTokenProvider;
+import com.fitpro.security.PrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -20,9 +22,14 @@ public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final JwtTokenProvider jwtTokenProvider;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, PrincipalCache principalCache,
+                          JwtTokenProvider jwtTokenProvider) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.jwtTokenProvider = jwtTokenProvider;
     }
 
     @PostMapping("/profile")
@@ -38,7 +45,9 @@ public class UserController {
             }
 
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            User user = userDetails.getUser();
+            // The principal only carries a lazy reference, so update a freshly loaded copy
+            User user = userRepository.findById(userDetails.getUser().getId())
+                .orElseThrow(() -> new IllegalStateException("Authenticated user no longer exists"));
             
             logger.debug("Updating profile for user: {}", user.getEmail());
 
@@ -49,9 +58,12 @@ public class UserController {
             user.setGender(profileRequest.getGender());
             user.setFitnessLevel(profileRequest.getFitnessLevel());
             user.setFitnessGoals(profileRequest.getFitnessGoals());
+            user.setProfileVersion(user.getProfileVersion() + 1);
 
             // Save the updated user
             user = userRepository.save(user);
+            principalCache.invalidate(user.getEmail());
+            principalCache.invalidate(user.getId());
             logger.debug("Profile updated successfully");
 
             // Create response with profile data
@@ -66,6 +78,8 @@ public class UserController {
             profile.put("fitnessGoals", user.getFitnessGoals());
 
             response.put("profile", profile);
+            // Earlier tokens carry the old profile version; the client swaps in this one
+            response.put("token", jwtTokenProvider.generateToken(new CustomUserDetails(user)));
             
             return ResponseEntity.ok(response);
         } catch (ClassCastException e) {
@@ -106,6 +120,8 @@ public class UserController {
             profile.put("fitnessGoals", user.getFitnessGoals());
 
             response.put("profile", profile);
+            // Earlier tokens carry the old profile version; the client swaps in this one
+            response.put("token", jwtTokenProvider.generateToken(new CustomUserDetails(user)));
             
             return ResponseEntity.ok(response);
         } catch (ClassCastException e) {
@@ -1,9 +1,17 @@
 package com.fitpro.controllers;
 
+import com.fitpro.dto.CursorPage;
+import com.fitpro.dto.PercentilesDTO;
+import com.fitpro.dto.StatsInsightsDTO;
 import com.fitpro.dto.StatsRequestDTO;
+import com.fitpro.dto.StatsSeriesDTO;
+import com.fitpro.dto.UserStatsDTO;
+import com.fitpro.exceptions.InvalidCursorException;
 import com.fitpro.models.User;
 import com.fitpro.models.UserStats;
 import com.fitpro.security.CustomUserDetails;
+import com.fitpro.services.PopulationStatsService;
+import com.fitpro.services.StatsInsightService;
 import com.fitpro.services.UserStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,10 +34,15 @@ public class UserStatsController {
     private static final Logger logger = LoggerFactory.getLogger(UserStatsController.class);
     
     private final UserStatsService userStatsService;
+    private final StatsInsightService statsInsightService;
+    private final PopulationStatsService populationStatsService;
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_DATE_TIME;
 
-    public UserStatsController(UserStatsService userStatsService) {
+    public UserStatsController(UserStatsService userStatsService, StatsInsightService statsInsightService,
+                               PopulationStatsService populationStatsService) {
         this.userStatsService = userStatsService;
+        this.statsInsightService = statsInsightService;
+        this.populationStatsService = populationStatsService;
     }
 
     private User getCurrentUser() {
@@ -82,13 +95,13 @@ public class UserStatsController {
             return userStatsService.getLatestStats(currentUser)
                 .map(stats -> {
                     Map<String, Object> response = new HashMap<>();
-                    response.put("weight", stats.getWeight());
-                    response.put("height", stats.getHeight());
-                    response.put("bodyFatPercentage", stats.getBodyFatPercentage());
-                    response.put("measurementDate", stats.getMeasurementDate());
+                    response.put("weight", stats.weight());
+                    response.put("height", stats.height());
+                    response.put("bodyFatPercentage", stats.bodyFatPercentage());
+                    response.put("measurementDate", stats.measurementDate());
                     
-                    if (stats.getWeight() != null && stats.getHeight() != null) {
-                        response.put("bmi", userStatsService.calculateBMI(stats));
+                    if (stats.weight() != null && stats.height() != null) {
+                        response.put("bmi", userStatsService.calculateBMI(stats.weight(), stats.height()));
                     }
                     
                     return ResponseEntity.ok(response);
@@ -100,12 +113,41 @@ public class UserStatsController {
         }
     }
 
+    @GetMapping("/insights")
+    public ResponseEntity<?> getInsights() {
+        try {
+            User currentUser = getCurrentUser();
+            StatsInsightsDTO insights = statsInsightService.getInsights(currentUser);
+            return ResponseEntity.ok(insights);
+        } catch (Exception e) {
+            logger.error("Error fetching stats insights", e);
+            return ResponseEntity.badRequest().body("Error fetching stats insights: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/percentiles")
+    public ResponseEntity<?> getPercentiles() {
+        try {
+            User currentUser = getCurrentUser();
+            PercentilesDTO percentiles = populationStatsService.getPercentiles(currentUser);
+            return ResponseEntity.ok(percentiles);
+        } catch (Exception e) {
+            logger.error("Error fetching percentiles", e);
+            return ResponseEntity.badRequest().body("Error fetching percentiles: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/history")
-    public ResponseEntity<?> getStatsHistory() {
+    public ResponseEntity<?> getStatsHistory(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int limit
+    ) {
         try {
             User currentUser = getCurrentUser();
-            List<UserStats> history = userStatsService.getStatsHistory(currentUser);
+            CursorPage<UserStatsDTO> history = userStatsService.getStatsHistoryPage(currentUser, cursor, limit);
             return ResponseEntity.ok(history);
+        } catch (InvalidCursorException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching stats history", e);
             return ResponseEntity.badRequest().body("Error fetching stats history: " + e.getMessage());
@@ -119,7 +161,7 @@ public class UserStatsController {
     ) {
         try {
             User currentUser = getCurrentUser();
-            List<UserStats> stats = userStatsService.getStatsForDateRange(currentUser, startDate, endDate);
+            List<UserStatsDTO> stats = userStatsService.getStatsForDateRange(currentUser, startDate, endDate);
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             logger.error("Error fetching stats for date range", e);
@@ -127,12 +169,34 @@ public class UserStatsController {
         }
     }
 
+    @GetMapping("/series")
+    public ResponseEntity<?> getStatsSeries(
+        @RequestParam(defaultValue = "weight") String metric,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(defaultValue = "" + UserStatsService.DEFAULT_SERIES_POINTS) int maxPoints
+    ) {
+        try {
+            User currentUser = getCurrentUser();
+            StatsSeriesDTO series = userStatsService.getSeries(currentUser, metric, from, to, maxPoints);
+            return ResponseEntity.ok(series);
+        } catch (Exception e) {
+            logger.error("Error fetching stats series", e);
+            return ResponseEntity.badRequest().body("Error fetching stats series: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/progress/weight")
-    public ResponseEntity<?> getWeightProgress() {
+    public ResponseEntity<?> getWeightProgress(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int limit
+    ) {
         try {
             User currentUser = getCurrentUser();
-            List<UserStats> progress = userStatsService.getWeightProgress(currentUser);
+            CursorPage<UserStatsDTO> progress = userStatsService.getWeightProgressPage(currentUser, cursor, limit);
             return ResponseEntity.ok(progress);
+        } catch (InvalidCursorException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching weight progress", e);
             return ResponseEntity.badRequest().body("Error fetching weight progress: " + e.getMessage());
@@ -140,11 +204,16 @@ public class UserStatsController {
     }
 
     @GetMapping("/progress/bodyfat")
-    public ResponseEntity<?> getBodyFatProgress() {
+    public ResponseEntity<?> getBodyFatProgress(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int limit
+    ) {
         try {
             User currentUser = getCurrentUser();
-            List<UserStats> progress = userStatsService.getBodyFatProgress(currentUser);
+            CursorPage<UserStatsDTO> progress = userStatsService.getBodyFatProgressPage(currentUser, cursor, limit);
             return ResponseEntity.ok(progress);
+        } catch (InvalidCursorException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching body fat progress", e);
             return ResponseEntity.badRequest().body("Error fetching body fat progress: " + e.getMessage());
@@ -1,16 +1,30 @@
 package com.fitpro.controllers;
 
+import com.fitpro.dto.CursorPage;
+import com.fitpro.dto.GenerateWorkoutRequest;
+import com.fitpro.dto.GeneratedWorkoutDTO;
+import com.fitpro.dto.WorkoutAggregateDTO;
+import com.fitpro.dto.WorkoutBatchRequest;
+import com.fitpro.dto.WorkoutBatchResponse;
+import com.fitpro.dto.WorkoutHistoryDTO;
+import com.fitpro.exceptions.InvalidCursorException;
+import com.fitpro.models.RollupGrain;
 import com.fitpro.models.User;
 import com.fitpro.models.WorkoutHistory;
+import com.fitpro.models.WorkoutStreak;
 import com.fitpro.security.CustomUserDetails;
+import com.fitpro.services.WorkoutGenerationService;
+import com.fitpro.services.WorkoutRollupService;
 import com.fitpro.services.WorkoutService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -18,14 +32,18 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/workouts")
-@CrossOrigin(origins = "*")
 public class WorkoutController {
     private static final Logger logger = LoggerFactory.getLogger(WorkoutController.class);
     
     private final WorkoutService workoutService;
+    private final WorkoutGenerationService workoutGenerationService;
+    private final WorkoutRollupService workoutRollupService;
 
-    public WorkoutController(WorkoutService workoutService) {
+    public WorkoutController(WorkoutService workoutService, WorkoutGenerationService workoutGenerationService,
+                             WorkoutRollupService workoutRollupService) {
         this.workoutService = workoutService;
+        this.workoutGenerationService = workoutGenerationService;
+        this.workoutRollupService = workoutRollupService;
     }
     
     private User getCurrentUser() {
@@ -39,7 +57,7 @@ public class WorkoutController {
         try {
             logger.info("Received request to save workout: {}", workout);
             User currentUser = getCurrentUser();
-            logger.info("Current user: {}", currentUser.getEmail());
+            logger.info("Current user: {}", currentUser.getId());
             
             workout.setUser(currentUser);
             
@@ -49,27 +67,78 @@ public class WorkoutController {
             
             WorkoutHistory savedWorkout = workoutService.saveWorkout(workout);
             logger.info("Workout saved successfully with ID: {}", savedWorkout.getId());
-            return ResponseEntity.ok(savedWorkout);
+            return ResponseEntity.ok(WorkoutHistoryDTO.from(savedWorkout));
         } catch (Exception e) {
             logger.error("Error saving workout", e);
             return ResponseEntity.badRequest().body("Error saving workout: " + e.getMessage());
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> saveWorkoutBatch(@RequestBody WorkoutBatchRequest request) {
+        try {
+            User currentUser = getCurrentUser();
+            int size = request.getWorkouts() != null ? request.getWorkouts().size() : 0;
+            logger.info("Received batch of {} workouts for user: {}", size, currentUser.getId());
+
+            WorkoutBatchResponse response = workoutService.saveWorkoutBatch(currentUser, request.getWorkouts());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error saving workout batch", e);
+            return ResponseEntity.badRequest().body("Error saving workout batch: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/generate")
+    public ResponseEntity<?> generateWorkout(@RequestBody(required = false) GenerateWorkoutRequest request) {
+        try {
+            User currentUser = getCurrentUser();
+            logger.info("Generating workout for user: {}", currentUser.getId());
+            GeneratedWorkoutDTO workout = workoutGenerationService.generateWorkout(currentUser,
+                request != null ? request : new GenerateWorkoutRequest());
+            return ResponseEntity.ok(workout);
+        } catch (Exception e) {
+            logger.error("Error generating workout", e);
+            return ResponseEntity.badRequest().body("Error generating workout: " + e.getMessage());
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<?> getWorkoutHistory() {
+    public ResponseEntity<?> getWorkoutHistory(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int limit
+    ) {
         try {
             logger.info("Fetching workout history");
             User currentUser = getCurrentUser();
-            List<WorkoutHistory> history = workoutService.getWorkoutHistory(currentUser);
-            logger.info("Found {} workout entries", history.size());
+            CursorPage<WorkoutHistoryDTO> history = workoutService.getWorkoutHistoryPage(currentUser, cursor, limit);
+            logger.info("Found {} workout entries", history.getItems().size());
             return ResponseEntity.ok(history);
+        } catch (InvalidCursorException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching workout history", e);
             return ResponseEntity.badRequest().body("Error fetching workout history: " + e.getMessage());
         }
     }
     
+    @GetMapping("/aggregates")
+    public ResponseEntity<?> getWorkoutAggregates(
+        @RequestParam(required = false) String grain,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        try {
+            User currentUser = getCurrentUser();
+            List<WorkoutAggregateDTO> aggregates = workoutRollupService.getAggregates(
+                currentUser.getId(), RollupGrain.from(grain), from, to);
+            return ResponseEntity.ok(aggregates);
+        } catch (Exception e) {
+            logger.error("Error fetching workout aggregates", e);
+            return ResponseEntity.badRequest().body("Error fetching workout aggregates: " + e.getMessage());
+        }
+    }
+    
     @GetMapping("/stats")
     public ResponseEntity<?> getWorkoutStats() {
         try {
@@ -89,10 +158,12 @@ public class WorkoutController {
         try {
             logger.info("Calculating workout streak");
             User currentUser = getCurrentUser();
-            int streak = workoutService.calculateWorkoutStreak(currentUser);
+            WorkoutStreak state = workoutService.getStreak(currentUser);
+            int streak = state != null ? state.getEffectiveStreak(LocalDate.now()) : 0;
             
             Map<String, Object> response = new HashMap<>();
             response.put("streak", streak);
+            response.put("longestStreak", state != null ? state.getLongestStreak() : 0);
             
             logger.info("Current streak: {}", streak);
             return ResponseEntity.ok(response);
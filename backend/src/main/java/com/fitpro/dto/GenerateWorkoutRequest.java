@@ -0,0 +1,14 @@
+package com.fitpro.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class GenerateWorkoutRequest {
+    private Integer durationMinutes;
+    // Optional; when absent the generator picks groups the user has not trained recently
+    private String muscleGroup;
+    // Equipment the user has; null means no restriction
+    private List<String> equipment;
+}
@@ -0,0 +1,29 @@
+package com.fitpro.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A generated workout template as saved, with its exercises in order.
+ */
+public record GeneratedWorkoutDTO(
+    UUID id,
+    String name,
+    String description,
+    Integer durationMinutes,
+    String difficultyLevel,
+    List<String> muscleGroups,
+    List<Exercise> exercises
+) {
+    public record Exercise(
+        UUID exerciseId,
+        String name,
+        String muscleGroup,
+        String equipmentNeeded,
+        int sets,
+        int reps,
+        int restSeconds,
+        int orderInWorkout
+    ) {
+    }
+}
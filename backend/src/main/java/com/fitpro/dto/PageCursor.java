@@ -0,0 +1,40 @@
+package com.fitpro.dto;
+
+import com.fitpro.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position (timestamp, id) of the last row on a page, exchanged with clients as an
+ * opaque base64url string.
+ */
+public record PageCursor(LocalDateTime timestamp, UUID id) {
+    /** Position before the newest possible row, used for the first page */
+    public static final PageCursor START = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(-1L, -1L));
+
+    public static PageCursor decodeOrStart(String cursor) {
+        return cursor == null || cursor.isEmpty() ? START : decode(cursor);
+    }
+
+    public String encode() {
+        String raw = timestamp.toEpochSecond(ZoneOffset.UTC) + "." + timestamp.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int dot = raw.indexOf('.');
+            int colon = raw.indexOf(':');
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(
+                Long.parseLong(raw.substring(0, dot)), Integer.parseInt(raw.substring(dot + 1, colon)), ZoneOffset.UTC);
+            return new PageCursor(timestamp, UUID.fromString(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.fitpro.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Where a user stands against everyone and against their cohort (fitness level and gender),
+ * read from the latest population snapshot. Training covers the weeks in [windowStart, windowEnd).
+ */
+public record PercentilesDTO(
+    LocalDateTime snapshotBuiltAt,
+    LocalDate windowStart,
+    LocalDate windowEnd,
+    String cohort,
+    List<MetricPercentile> metrics
+) {
+    /**
+     * Percentiles are the share of the population below the user, in percent; a cohort too
+     * small to compare against has no cohort percentile
+     */
+    public record MetricPercentile(
+        String metric,
+        Double value,
+        Double cohortPercentile,
+        long cohortSize,
+        Double overallPercentile,
+        long overallSize
+    ) {
+    }
+}
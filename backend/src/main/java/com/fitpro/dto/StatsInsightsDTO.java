@@ -0,0 +1,39 @@
+package com.fitpro.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Derived body composition metrics, read from the rolling insight state. Weights are in kg,
+ * the trend in kg per week; fields are null until the measurements behind them exist.
+ */
+public record StatsInsightsDTO(
+    Double weight,
+    LocalDateTime weightMeasuredAt,
+    Double weightEma7,
+    Double weightEma30,
+    Double trendPerWeek,
+    Double height,
+    Double bmi,
+    Double bodyFatPercentage,
+    LocalDateTime bodyFatMeasuredAt,
+    Double fatMass,
+    Double leanMass,
+    GoalProjection goal
+) {
+    /**
+     * Projection of the weight trend onto the user's active weight goal. projectedDate is
+     * null when the trend is flat or heads away from the target.
+     */
+    public record GoalProjection(
+        UUID goalId,
+        String title,
+        double targetValue,
+        LocalDateTime targetDate,
+        boolean reached,
+        LocalDate projectedDate,
+        Boolean onTrack
+    ) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.fitpro.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A chart series as parallel arrays: measurement times as epoch millis (stored times read
+ * as UTC) and the metric's values. sourcePoints is how many measurements the series was
+ * sampled from.
+ */
+public record StatsSeriesDTO(
+    String metric,
+    int sourcePoints,
+    long[] timestamps,
+    double[] values
+) {
+    /** One measurement as streamed from the database */
+    public record Point(LocalDateTime measurementDate, Double value) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.fitpro.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Client-side changes keyed by client-generated ids, so a retried push is applied once.
+ */
+@Data
+public class SyncPushRequest {
+    private List<Workout> workouts;
+    private List<Stats> stats;
+    private List<SyncResponse.Deleted> deleted;
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class Workout extends WorkoutBatchRequest.Item {
+        private UUID id;
+    }
+
+    @Data
+    public static class Stats {
+        private UUID id;
+        private Double weight;
+        private Double height;
+        private Double bodyFatPercentage;
+        private LocalDateTime measurementDate;
+    }
+}
@@ -0,0 +1,15 @@
+package com.fitpro.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-item outcome of a sync push. APPLIED rows were written, UNCHANGED ones already matched
+ * (a retry), CONFLICT ids belong to another user and REJECTED items failed validation or
+ * target a workout that has been archived.
+ */
+public record SyncPushResponse(List<ItemResult> results) {
+
+    public record ItemResult(String type, UUID id, String status, String error) {
+    }
+}
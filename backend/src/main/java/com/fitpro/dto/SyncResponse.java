@@ -0,0 +1,19 @@
+package com.fitpro.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rows changed since the client's sync token. When reset is set the client's token was
+ * missing or too old, the lists hold the full data set and the local cache should be replaced.
+ */
+public record SyncResponse(
+    String token,
+    boolean reset,
+    List<WorkoutHistoryDTO> workouts,
+    List<UserStatsDTO> stats,
+    List<Deleted> deleted
+) {
+    public record Deleted(String type, UUID id) {
+    }
+}
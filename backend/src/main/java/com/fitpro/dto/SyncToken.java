@@ -0,0 +1,26 @@
+package com.fitpro.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Delta sync position: the snapshot xmin the client last synced at and when the token was
+ * issued, exchanged with clients as an opaque base64url string.
+ */
+public record SyncToken(long snapshotXmin, long issuedAtEpochSecond) {
+
+    public String encode() {
+        String raw = snapshotXmin + ":" + issuedAtEpochSecond;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            return new SyncToken(Long.parseLong(raw.substring(0, colon)), Long.parseLong(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+}
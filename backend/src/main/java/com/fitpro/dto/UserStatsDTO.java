@@ -0,0 +1,16 @@
+package com.fitpro.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat read model of a user_stats row, selected directly by JPQL.
+ */
+public record UserStatsDTO(
+    UUID id,
+    Double weight,
+    Double height,
+    Double bodyFatPercentage,
+    LocalDateTime measurementDate
+) {
+}
@@ -0,0 +1,19 @@
+package com.fitpro.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Workout totals for one day, week or month, read from the rollup tables
+ */
+public record WorkoutAggregateDTO(
+    LocalDate periodStart,
+    int workouts,
+    long durationMinutes,
+    long caloriesBurned,
+    Map<String, Integer> muscleGroups
+) {
+    /** One histogram row, used to attach muscle group counts to a range of periods */
+    public record MuscleGroupCount(LocalDate periodStart, String muscleGroup, int workouts) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.fitpro.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class WorkoutBatchRequest {
+    private List<Item> workouts;
+
+    @Data
+    public static class Item {
+        private LocalDateTime workoutDate;
+        private Integer durationMinutes;
+        private Integer caloriesBurned;
+        private String muscleGroup;
+        private Map<String, Integer> exercises;
+    }
+}
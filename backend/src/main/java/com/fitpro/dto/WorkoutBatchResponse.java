@@ -0,0 +1,20 @@
+package com.fitpro.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a batch upload, with one result per submitted item in request order.
+ */
+public record WorkoutBatchResponse(int created, int rejected, List<ItemResult> results) {
+
+    public record ItemResult(int index, String status, UUID id, String error) {
+        public static ItemResult created(int index, UUID id) {
+            return new ItemResult(index, "CREATED", id, null);
+        }
+
+        public static ItemResult rejected(int index, String error) {
+            return new ItemResult(index, "REJECTED", null, error);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.fitpro.dto;
+
+import com.fitpro.models.WorkoutHistory;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Flat read model of a workout history row, selected directly by JPQL so listing never
+ * hydrates the user or workout entities.
+ */
+public record WorkoutHistoryDTO(
+    UUID id,
+    LocalDateTime workoutDate,
+    Integer durationMinutes,
+    Integer caloriesBurned,
+    String muscleGroup,
+    boolean completed,
+    Map<String, Integer> exercises
+) {
+    // Projection constructor; exercises are attached separately
+    public WorkoutHistoryDTO(UUID id, LocalDateTime workoutDate, Integer durationMinutes,
+                             Integer caloriesBurned, String muscleGroup) {
+        this(id, workoutDate, durationMinutes, caloriesBurned, muscleGroup, true, Map.of());
+    }
+
+    public WorkoutHistoryDTO withExercises(Map<String, Integer> exercises) {
+        return new WorkoutHistoryDTO(id, workoutDate, durationMinutes, caloriesBurned, muscleGroup, completed, exercises);
+    }
+
+    public static WorkoutHistoryDTO from(WorkoutHistory workout) {
+        return new WorkoutHistoryDTO(workout.getId(), workout.getWorkoutDate(), workout.getDurationMinutes(),
+            workout.getCaloriesBurned(), workout.getMuscleGroup(), workout.isCompleted(),
+            workout.getExercises() != null ? new HashMap<>(workout.getExercises()) : Map.of());
+    }
+
+    /** One exercise_name / sets_completed row, used to attach exercises to a page of DTOs */
+    public record ExerciseSets(UUID historyId, String exerciseName, Integer setsCompleted) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.fitpro.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Everything the workout stats screen needs, selected in a single native query.
+ * Last-workout and streak columns are null when the user has no history.
+ */
+public interface WorkoutSummaryView {
+    long getTotalWorkouts();
+
+    LocalDateTime getLastWorkoutDate();
+
+    String getLastWorkoutMuscleGroup();
+
+    Integer getCurrentStreak();
+
+    Integer getLongestStreak();
+
+    LocalDate getLastActiveDay();
+}
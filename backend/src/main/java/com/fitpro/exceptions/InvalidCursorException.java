@@ -0,0 +1,14 @@
+package com.fitpro.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    private final String code;
+
+    public InvalidCursorException() {
+        super("Invalid page cursor; request the first page again without a cursor");
+        this.code = "INVALID_CURSOR";
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
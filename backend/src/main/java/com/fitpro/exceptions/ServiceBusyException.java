@@ -0,0 +1,25 @@
+package com.fitpro.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    private final String code;
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, String code, long retryAfterSeconds) {
+        super(message);
+        this.code = code;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public static ServiceBusyException hashingSaturated(long retryAfterSeconds) {
+        return new ServiceBusyException("Authentication is temporarily overloaded, please retry shortly",
+            "AUTH_BUSY", retryAfterSeconds);
+    }
+}
@@ -0,0 +1,106 @@
+package com.fitpro.jobs;
+
+import com.fitpro.classification.MuscleGroupClassifier;
+import com.fitpro.classification.MuscleGroupProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Classifies workout history rows written before muscle_group was stored. Rows are walked
+ * in history_id order in batches, each batch committed on its own, so an interrupted run
+ * resumes where it stopped on the next startup.
+ */
+@Component
+public class MuscleGroupBackfillJob {
+    private static final Logger logger = LoggerFactory.getLogger(MuscleGroupBackfillJob.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MuscleGroupClassifier muscleGroupClassifier;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private record Row(UUID historyId, Timestamp completedAt, String workoutName) {
+    }
+
+    public MuscleGroupBackfillJob(JdbcTemplate jdbcTemplate,
+                                  MuscleGroupClassifier muscleGroupClassifier,
+                                  MuscleGroupProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.muscleGroupClassifier = muscleGroupClassifier;
+        this.enabled = properties.getBackfill().isEnabled();
+        this.batchSize = Math.max(1, properties.getBackfill().getBatchSize());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        long updated = 0;
+        // Postgres orders uuids bytewise, so the nil uuid sorts first
+        UUID after = new UUID(0L, 0L);
+        try {
+            while (true) {
+                List<Row> rows = findUnclassified(after);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                String[] historyIds = new String[rows.size()];
+                Timestamp[] completedAts = new Timestamp[rows.size()];
+                String[] muscleGroups = new String[rows.size()];
+                for (int i = 0; i < rows.size(); i++) {
+                    Row row = rows.get(i);
+                    historyIds[i] = row.historyId().toString();
+                    completedAts[i] = row.completedAt();
+                    muscleGroups[i] = muscleGroupClassifier.classify(row.workoutName());
+                }
+                // One statement per batch; completed_at is part of the key, so the join prunes
+                // to the partitions the batch touches
+                updated += jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                        "UPDATE workout_history h SET muscle_group = c.muscle_group " +
+                        "FROM unnest(CAST(? AS uuid[]), CAST(? AS timestamp[]), CAST(? AS text[])) " +
+                        "AS c(history_id, completed_at, muscle_group) " +
+                        "WHERE h.history_id = c.history_id AND h.completed_at = c.completed_at AND h.muscle_group IS NULL");
+                    ps.setArray(1, con.createArrayOf("text", historyIds));
+                    ps.setArray(2, con.createArrayOf("timestamp", completedAts));
+                    ps.setArray(3, con.createArrayOf("text", muscleGroups));
+                    return ps;
+                });
+                after = rows.get(rows.size() - 1).historyId();
+                if (rows.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Muscle group backfill stopped after {} rows", updated, e);
+            return;
+        }
+        if (updated > 0) {
+            logger.info("Backfilled muscle groups for {} workouts in {} ms", updated, System.currentTimeMillis() - start);
+        }
+    }
+
+    private List<Row> findUnclassified(UUID after) {
+        return jdbcTemplate.query(
+            "SELECT h.history_id, h.completed_at, w.name FROM workout_history h " +
+            "JOIN workouts w ON w.workout_id = h.workout_id " +
+            "WHERE h.muscle_group IS NULL AND h.workout_id IS NOT NULL AND h.history_id > ? " +
+            "ORDER BY h.history_id LIMIT ?",
+            (rs, rowNum) -> new Row(rs.getObject(1, UUID.class), rs.getTimestamp(2), rs.getString(3)),
+            after, batchSize);
+    }
+}
@@ -0,0 +1,179 @@
+package com.fitpro.jobs;
+
+import com.fitpro.services.StatsInsightService;
+import com.fitpro.services.WorkoutArchiveService;
+import com.fitpro.stats.MeasurementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the monthly partitions of workout_history and user_stats ahead of the calendar, so
+ * new rows never land in the default partition, and detaches months past the retention
+ * window. Expired workouts are moved into the archive first, so streaks and rollups keep
+ * counting them and their ids stay reserved; expired measurements are tombstoned for sync
+ * clients and the affected users' insights are rebuilt. Detached partitions stay in the
+ * database as plain tables until dropped.
+ */
+@Component
+public class PartitionMaintenanceJob {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+    private static final List<String> PARTITIONED_TABLES = List.of("workout_history", "user_stats");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkoutArchiveService workoutArchiveService;
+    private final StatsInsightService statsInsightService;
+    private final MeasurementCache measurementCache;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public PartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   WorkoutArchiveService workoutArchiveService,
+                                   StatsInsightService statsInsightService,
+                                   MeasurementCache measurementCache,
+                                   @Value("${partitions.months-ahead:3}") int monthsAhead,
+                                   @Value("${partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.workoutArchiveService = workoutArchiveService;
+        this.statsInsightService = statsInsightService;
+        this.measurementCache = measurementCache;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${partitions.maintenance.cron:0 15 2 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                createUpcoming(table, current);
+                if (retentionMonths > 0 && detachExpired(table, current.minusMonths(retentionMonths)) > 0
+                        && table.equals("user_stats")) {
+                    // Cached measurement windows may still hold rows of the detached months
+                    measurementCache.clear();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Partition maintenance failed for {}", table, e);
+            }
+        }
+    }
+
+    private void createUpcoming(String table, YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate monthStart = current.plusMonths(i).atDay(1);
+            Boolean created = jdbcTemplate.queryForObject(
+                "SELECT ensure_monthly_partition(?, ?)", Boolean.class, table, monthStart);
+            if (Boolean.TRUE.equals(created)) {
+                logger.info("Created partition of {} for {}", table, YearMonth.from(monthStart));
+            }
+        }
+    }
+
+    // Detach monthly partitions whose whole month is before the first retained month; returns how many
+    int detachExpired(String table, YearMonth firstRetained) {
+        List<String> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = CAST(? AS regclass) ORDER BY c.relname", String.class, table);
+        String prefix = table + "_p";
+        String cutoff = prefix + firstRetained.format(PARTITION_SUFFIX);
+        int detached = 0;
+        for (String partition : partitions) {
+            boolean monthly = partition.startsWith(prefix) && partition.length() == cutoff.length()
+                && partition.substring(prefix.length()).chars().allMatch(Character::isDigit);
+            if (!monthly || partition.compareTo(cutoff) >= 0) {
+                continue;
+            }
+            boolean done = table.equals("workout_history")
+                ? detachArchived(partition, firstRetained.atDay(1).atStartOfDay())
+                : detachTombstoned(partition);
+            if (done) {
+                logger.info("Detached expired partition {} from {}", partition, table);
+                detached++;
+            }
+        }
+        return detached;
+    }
+
+    // Archive every workout of the partition, then detach it once it is empty. Archival writes
+    // no tombstones and records the ids, exactly as the archive job does for old history.
+    private boolean detachArchived(String partition, LocalDateTime cutoff) {
+        List<UUID> users = jdbcTemplate.queryForList(
+            "SELECT DISTINCT user_id FROM " + partition, UUID.class);
+        for (UUID userId : users) {
+            try {
+                // Each call archives at most one segment's worth of rows
+                int archived;
+                do {
+                    archived = workoutArchiveService.archiveUser(userId, cutoff);
+                } while (archived > 0);
+            } catch (RuntimeException e) {
+                logger.warn("Could not archive expired workouts of user {}", userId, e);
+            }
+        }
+        Boolean detached = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("ALTER TABLE workout_history DETACH PARTITION " + partition);
+            // Checked after the detach so no insert can slip in between
+            Boolean empty = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+            if (!Boolean.TRUE.equals(empty)) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(detached)) {
+            logger.warn("Partition {} still holds workouts that could not be archived, keeping it attached", partition);
+            return false;
+        }
+        return true;
+    }
+
+    // Detach a user_stats partition as if its rows had been deleted: clients get tombstones,
+    // the ids are released and per-user versions move on so every instance reloads its cache
+    private boolean detachTombstoned(String partition) {
+        List<UUID> users = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("ALTER TABLE user_stats DETACH PARTITION " + partition);
+            jdbcTemplate.update(
+                "INSERT INTO sync_tombstones (entity_type, entity_id, user_id, change_xid) " +
+                "SELECT 'stats', stat_id, user_id, pg_current_xact_id()::text::bigint FROM " + partition +
+                " WHERE user_id IS NOT NULL " +
+                "ON CONFLICT (entity_type, entity_id) DO UPDATE SET user_id = EXCLUDED.user_id, " +
+                "change_xid = EXCLUDED.change_xid, deleted_at = CURRENT_TIMESTAMP");
+            jdbcTemplate.update(
+                "DELETE FROM partitioned_row_ids WHERE entity_type = 'stats' " +
+                "AND entity_id IN (SELECT stat_id FROM " + partition + ")");
+            jdbcTemplate.update(
+                "INSERT INTO user_stats_versions (user_id, version) " +
+                "SELECT user_id, count(*) FROM " + partition + " WHERE user_id IS NOT NULL GROUP BY user_id " +
+                "ON CONFLICT (user_id) DO UPDATE SET version = user_stats_versions.version + EXCLUDED.version");
+            return jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM " + partition + " WHERE user_id IS NOT NULL", UUID.class);
+        });
+        for (UUID userId : users) {
+            statsInsightService.rebuild(userId);
+        }
+        return true;
+    }
+}
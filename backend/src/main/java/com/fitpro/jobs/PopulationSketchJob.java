@@ -0,0 +1,203 @@
+package com.fitpro.jobs;
+
+import com.fitpro.models.RollupGrain;
+import com.fitpro.stats.KllSketch;
+import com.fitpro.stats.PopulationMetric;
+import com.fitpro.stats.PopulationSketches;
+import com.fitpro.stats.PopulationSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds the population snapshot behind percentile lookups. Users are split into ranges of
+ * user ids that a fork/join pool scans in parallel, each range filling its own KLL sketches
+ * per cohort; the sketches are merged pairwise on the way back up. Weekly training comes
+ * from the week rollups and BMI from the insight state, so no history table is scanned.
+ */
+@Component
+public class PopulationSketchJob {
+    private static final Logger logger = LoggerFactory.getLogger(PopulationSketchJob.class);
+    private static final int METRICS = PopulationMetric.values().length;
+
+    // One row per user in [lower, upper); the lateral join reads at most `weeks` rollup rows per user
+    private static final String RANGE_SQL =
+        "SELECT u.fitness_level, u.gender, r.minutes, r.workouts, " +
+        "COALESCE(i.last_weight, u.weight) AS weight, COALESCE(i.last_height, u.height) AS height " +
+        "FROM users u " +
+        "LEFT JOIN LATERAL (SELECT SUM(w.duration_minutes) AS minutes, SUM(w.workouts) AS workouts " +
+        "    FROM workout_rollups w WHERE w.user_id = u.user_id AND w.grain = 'WEEK' " +
+        "    AND w.period_start >= ? AND w.period_start < ?) r ON true " +
+        "LEFT JOIN stats_insights i ON i.user_id = u.user_id " +
+        "WHERE u.user_id >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopulationSketches populationSketches;
+    private final int sketchK;
+    private final int weeks;
+    private final int rangeSize;
+    private final int parallelism;
+
+    public PopulationSketchJob(JdbcTemplate jdbcTemplate,
+                               PopulationSketches populationSketches,
+                               @Value("${stats.population.sketch-k:200}") int sketchK,
+                               @Value("${stats.population.weeks:4}") int weeks,
+                               @Value("${stats.population.range-size:5000}") int rangeSize,
+                               @Value("${stats.population.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.populationSketches = populationSketches;
+        this.sketchK = sketchK;
+        this.weeks = Math.max(1, weeks);
+        this.rangeSize = Math.max(1, rangeSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        build();
+    }
+
+    @Scheduled(cron = "${stats.population.cron:0 20 * * * *}")
+    public void build() {
+        long start = System.currentTimeMillis();
+        LocalDate windowEnd = RollupGrain.WEEK.periodStart(LocalDate.now());
+        LocalDate windowStart = windowEnd.minusWeeks(weeks);
+        try {
+            // Every rangeSize-th id starts a range; the last range is open ended
+            List<UUID> bounds = jdbcTemplate.queryForList(
+                "SELECT user_id FROM (SELECT user_id, row_number() OVER (ORDER BY user_id) AS rn FROM users) u " +
+                "WHERE (rn - 1) % ? = 0 ORDER BY user_id", UUID.class, rangeSize);
+            Map<String, KllSketch[]> cohorts;
+            if (bounds.isEmpty()) {
+                cohorts = new HashMap<>();
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    cohorts = pool.invoke(new RangeTask(bounds, 0, bounds.size(), windowStart, windowEnd));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            PopulationSnapshot snapshot = toSnapshot(cohorts, windowStart, windowEnd);
+            populationSketches.publish(snapshot);
+            logger.info("Built population sketches for {} cohorts from {} id ranges ({} users training, {} with BMI) in {} ms",
+                snapshot.cohorts().size() - 1, bounds.size(),
+                snapshot.table(PopulationSnapshot.ALL, PopulationMetric.WEEKLY_MINUTES).count(),
+                snapshot.table(PopulationSnapshot.ALL, PopulationMetric.BMI).count(),
+                System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build population sketches", e);
+        }
+    }
+
+    private PopulationSnapshot toSnapshot(Map<String, KllSketch[]> cohorts, LocalDate windowStart, LocalDate windowEnd) {
+        KllSketch[] all = newSketches();
+        Map<String, KllSketch.QuantileTable[]> tables = new HashMap<>();
+        for (Map.Entry<String, KllSketch[]> cohort : cohorts.entrySet()) {
+            merge(all, cohort.getValue());
+            tables.put(cohort.getKey(), toTables(cohort.getValue()));
+        }
+        tables.put(PopulationSnapshot.ALL, toTables(all));
+        return new PopulationSnapshot(LocalDateTime.now(), windowStart, windowEnd, Map.copyOf(tables));
+    }
+
+    private KllSketch[] newSketches() {
+        KllSketch[] sketches = new KllSketch[METRICS];
+        for (int i = 0; i < METRICS; i++) {
+            sketches[i] = new KllSketch(sketchK);
+        }
+        return sketches;
+    }
+
+    private static void merge(KllSketch[] target, KllSketch[] source) {
+        for (int i = 0; i < METRICS; i++) {
+            target[i].merge(source[i]);
+        }
+    }
+
+    private static KllSketch.QuantileTable[] toTables(KllSketch[] sketches) {
+        KllSketch.QuantileTable[] tables = new KllSketch.QuantileTable[METRICS];
+        for (int i = 0; i < METRICS; i++) {
+            tables[i] = sketches[i].toTable();
+        }
+        return tables;
+    }
+
+    // Ranges [from, to) of bounds; a single range is scanned, larger spans split in half
+    private final class RangeTask extends RecursiveTask<Map<String, KllSketch[]>> {
+        private final List<UUID> bounds;
+        private final int from;
+        private final int to;
+        private final LocalDate windowStart;
+        private final LocalDate windowEnd;
+
+        RangeTask(List<UUID> bounds, int from, int to, LocalDate windowStart, LocalDate windowEnd) {
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+        }
+
+        @Override
+        protected Map<String, KllSketch[]> compute() {
+            if (to - from == 1) {
+                return scan(bounds.get(from), from + 1 < bounds.size() ? bounds.get(from + 1) : null);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(bounds, from, mid, windowStart, windowEnd);
+            left.fork();
+            Map<String, KllSketch[]> right = new RangeTask(bounds, mid, to, windowStart, windowEnd).compute();
+            Map<String, KllSketch[]> merged = left.join();
+            for (Map.Entry<String, KllSketch[]> cohort : right.entrySet()) {
+                KllSketch[] existing = merged.putIfAbsent(cohort.getKey(), cohort.getValue());
+                if (existing != null) {
+                    merge(existing, cohort.getValue());
+                }
+            }
+            return merged;
+        }
+
+        private Map<String, KllSketch[]> scan(UUID lower, UUID upper) {
+            Map<String, KllSketch[]> cohorts = new HashMap<>();
+            List<Object> args = new ArrayList<>(List.of(Date.valueOf(windowStart), Date.valueOf(windowEnd), lower));
+            String sql = RANGE_SQL;
+            if (upper != null) {
+                sql += " AND u.user_id < ?";
+                args.add(upper);
+            }
+            jdbcTemplate.query(sql, rs -> {
+                KllSketch[] sketches = cohorts.computeIfAbsent(
+                    PopulationSnapshot.cohortKey(rs.getString(1), rs.getString(2)), key -> newSketches());
+                long workouts = rs.getLong(4);
+                if (workouts > 0) {
+                    sketches[PopulationMetric.WEEKLY_MINUTES.ordinal()].update(rs.getDouble(3) / weeks);
+                    sketches[PopulationMetric.WEEKLY_WORKOUTS.ordinal()].update((double) workouts / weeks);
+                }
+                double weight = rs.getDouble(5);
+                double height = rs.getDouble(6);
+                if (weight > 0 && height > 0) {
+                    double heightInMeters = height / 100;
+                    sketches[PopulationMetric.BMI.ordinal()].update(weight / (heightInMeters * heightInMeters));
+                }
+            }, args.toArray());
+            return cohorts;
+        }
+    }
+}
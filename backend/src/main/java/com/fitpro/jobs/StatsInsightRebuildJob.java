@@ -0,0 +1,51 @@
+package com.fitpro.jobs;
+
+import com.fitpro.repositories.StatsInsightRepository;
+import com.fitpro.services.StatsInsightService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fills in body composition insight state on startup for users that have measurements but
+ * no state yet, such as users who recorded stats before the state existed.
+ */
+@Component
+public class StatsInsightRebuildJob {
+    private static final Logger logger = LoggerFactory.getLogger(StatsInsightRebuildJob.class);
+
+    private final StatsInsightService statsInsightService;
+    private final StatsInsightRepository statsInsightRepository;
+
+    public StatsInsightRebuildJob(StatsInsightService statsInsightService,
+                                  StatsInsightRepository statsInsightRepository) {
+        this.statsInsightService = statsInsightService;
+        this.statsInsightRepository = statsInsightRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildMissingOnStartup() {
+        List<UUID> userIds = statsInsightRepository.findUsersMissingState();
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int failed = 0;
+        for (UUID userId : userIds) {
+            try {
+                // Each user is rebuilt in its own transaction
+                statsInsightService.rebuild(userId);
+            } catch (Exception e) {
+                failed++;
+                logger.error("Failed to rebuild stats insights for user {}", userId, e);
+            }
+        }
+        logger.info("Rebuilt stats insights for {} users ({} failed) in {} ms",
+            userIds.size() - failed, failed, System.currentTimeMillis() - start);
+    }
+}
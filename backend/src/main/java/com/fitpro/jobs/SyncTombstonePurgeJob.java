@@ -0,0 +1,39 @@
+package com.fitpro.jobs;
+
+import com.fitpro.repositories.SyncTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Drops delete tombstones past the retention window. Clients holding older sync tokens are
+ * told to resync fully, so they never depend on a purged tombstone.
+ */
+@Component
+public class SyncTombstonePurgeJob {
+    private static final Logger logger = LoggerFactory.getLogger(SyncTombstonePurgeJob.class);
+
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final int retentionDays;
+
+    public SyncTombstonePurgeJob(SyncTombstoneRepository syncTombstoneRepository,
+                                 @Value("${sync.tombstone-retention-days:30}") int retentionDays) {
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(cron = "${sync.tombstone-purge.cron:0 0 4 * * *}")
+    @Transactional
+    public void purge() {
+        // Keep a day of slack over the token cutoff so a token issued just inside the window still sees its deletes
+        int removed = syncTombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays + 1L));
+        if (removed > 0) {
+            logger.info("Purged {} sync tombstones older than {} days", removed, retentionDays);
+        }
+    }
+}
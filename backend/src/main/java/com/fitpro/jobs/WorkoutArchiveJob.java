@@ -0,0 +1,71 @@
+package com.fitpro.jobs;
+
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.services.WorkoutArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves workout history older than archive.min-age-days into per-user segment files. Users
+ * with fewer than archive.min-rows old workouts are left alone so segments do not end up tiny.
+ */
+@Component
+public class WorkoutArchiveJob {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutArchiveJob.class);
+    private static final Duration ORPHAN_MIN_AGE = Duration.ofHours(1);
+
+    private final WorkoutArchiveService archiveService;
+    private final WorkoutArchiveStore archiveStore;
+    private final boolean enabled;
+    private final int minAgeDays;
+    private final int minRows;
+
+    public WorkoutArchiveJob(WorkoutArchiveService archiveService,
+                             WorkoutArchiveStore archiveStore,
+                             @Value("${archive.enabled:false}") boolean enabled,
+                             @Value("${archive.min-age-days:730}") int minAgeDays,
+                             @Value("${archive.min-rows:50}") int minRows) {
+        this.archiveService = archiveService;
+        this.archiveStore = archiveStore;
+        this.enabled = enabled;
+        this.minAgeDays = minAgeDays;
+        this.minRows = minRows;
+    }
+
+    @Scheduled(cron = "${archive.cron:0 45 4 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        if (!archiveStore.isConfigured()) {
+            logger.error("Workout archive is enabled but archive.directory is not configured; nothing archived");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        List<UUID> userIds = archiveService.findArchiveCandidates(cutoff, minRows);
+        long archived = 0;
+        int failed = 0;
+        for (UUID userId : userIds) {
+            try {
+                // Each user is archived in its own transaction
+                archived += archiveService.archiveUser(userId, cutoff);
+            } catch (Exception e) {
+                failed++;
+                logger.error("Failed to archive workout history for user {}", userId, e);
+            }
+        }
+
+        int orphans = archiveStore.removeOrphanedFiles(ORPHAN_MIN_AGE);
+        logger.info("Archived {} workouts for {} users ({} failed, {} orphaned files removed) in {} ms",
+            archived, userIds.size() - failed, failed, orphans, System.currentTimeMillis() - start);
+    }
+}
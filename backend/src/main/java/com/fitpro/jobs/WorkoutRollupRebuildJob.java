@@ -0,0 +1,92 @@
+package com.fitpro.jobs;
+
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.repositories.WorkoutHistoryRepository;
+import com.fitpro.repositories.WorkoutRollupRepository;
+import com.fitpro.services.WorkoutRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Rebuilds workout rollups from history and the archive. On startup it fills in users that
+ * have workouts but no rollups yet. Starting the application with --rebuild-rollups
+ * recomputes every user first, and --rebuild-rollups=id1,id2 only the given users.
+ */
+@Component
+public class WorkoutRollupRebuildJob implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutRollupRebuildJob.class);
+    private static final String REBUILD_OPTION = "rebuild-rollups";
+
+    private final WorkoutRollupService workoutRollupService;
+    private final WorkoutRollupRepository workoutRollupRepository;
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final WorkoutArchiveStore workoutArchiveStore;
+
+    public WorkoutRollupRebuildJob(WorkoutRollupService workoutRollupService,
+                                   WorkoutRollupRepository workoutRollupRepository,
+                                   WorkoutHistoryRepository workoutHistoryRepository,
+                                   WorkoutArchiveStore workoutArchiveStore) {
+        this.workoutRollupService = workoutRollupService;
+        this.workoutRollupRepository = workoutRollupRepository;
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.workoutArchiveStore = workoutArchiveStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(REBUILD_OPTION)) {
+            return;
+        }
+        List<UUID> userIds = new ArrayList<>();
+        for (String value : args.getOptionValues(REBUILD_OPTION)) {
+            for (String id : value.split(",")) {
+                if (!id.isBlank()) {
+                    userIds.add(UUID.fromString(id.trim()));
+                }
+            }
+        }
+        rebuild(userIds.isEmpty() ? findUsersWithWorkouts() : userIds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildMissingOnStartup() {
+        rebuild(workoutRollupRepository.findUsersMissingRollups());
+    }
+
+    // Users with hot or archived workouts; archived-only users have no rows in workout_history
+    private List<UUID> findUsersWithWorkouts() {
+        Set<UUID> userIds = new LinkedHashSet<>(workoutHistoryRepository.findUserIdsWithHistory());
+        userIds.addAll(workoutArchiveStore.findUserIds());
+        return List.copyOf(userIds);
+    }
+
+    private void rebuild(List<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int failed = 0;
+        for (UUID userId : userIds) {
+            try {
+                // Each user is rebuilt in its own transaction
+                workoutRollupService.rebuild(userId);
+            } catch (Exception e) {
+                failed++;
+                logger.error("Failed to rebuild workout rollups for user {}", userId, e);
+            }
+        }
+        logger.info("Rebuilt workout rollups for {} users ({} failed) in {} ms",
+            userIds.size() - failed, failed, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,82 @@
+package com.fitpro.jobs;
+
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.repositories.WorkoutHistoryRepository;
+import com.fitpro.repositories.WorkoutStreakRepository;
+import com.fitpro.services.WorkoutService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reconstructs workout streak state from history. On startup and on each scheduled run it
+ * fills in users that have history but no streak row; with streaks.rebuild.full set the
+ * scheduled run recomputes every user.
+ */
+@Component
+public class WorkoutStreakRebuildJob {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutStreakRebuildJob.class);
+
+    private final WorkoutService workoutService;
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final WorkoutStreakRepository workoutStreakRepository;
+    private final WorkoutArchiveStore workoutArchiveStore;
+    private final boolean fullRebuild;
+
+    public WorkoutStreakRebuildJob(WorkoutService workoutService,
+                                   WorkoutHistoryRepository workoutHistoryRepository,
+                                   WorkoutStreakRepository workoutStreakRepository,
+                                   WorkoutArchiveStore workoutArchiveStore,
+                                   @Value("${streaks.rebuild.full:false}") boolean fullRebuild) {
+        this.workoutService = workoutService;
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.workoutStreakRepository = workoutStreakRepository;
+        this.workoutArchiveStore = workoutArchiveStore;
+        this.fullRebuild = fullRebuild;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildMissingOnStartup() {
+        rebuild(workoutStreakRepository.findUsersMissingState());
+    }
+
+    @Scheduled(cron = "${streaks.rebuild.cron:0 30 3 * * *}")
+    public void rebuildScheduled() {
+        rebuild(fullRebuild ? findUsersWithWorkouts() : workoutStreakRepository.findUsersMissingState());
+    }
+
+    // Users with hot or archived workouts; archived-only users have no rows in workout_history
+    private List<UUID> findUsersWithWorkouts() {
+        Set<UUID> userIds = new LinkedHashSet<>(workoutHistoryRepository.findUserIdsWithHistory());
+        userIds.addAll(workoutArchiveStore.findUserIds());
+        return List.copyOf(userIds);
+    }
+
+    private void rebuild(List<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int failed = 0;
+        for (UUID userId : userIds) {
+            try {
+                // Each user is rebuilt in its own transaction
+                workoutService.rebuildStreak(userId);
+            } catch (Exception e) {
+                failed++;
+                logger.error("Failed to rebuild workout streak for user {}", userId, e);
+            }
+        }
+        logger.info("Rebuilt workout streaks for {} users ({} failed) in {} ms",
+            userIds.size() - failed, failed, System.currentTimeMillis() - start);
+    }
+}
@@ -7,6 +7,7 @@ import lombok.EqualsAndHashCode;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@AttributeOverride(name = "id", column = @Column(name = "achievement_id"))
 @Table(name = "achievements")
 public class Achievement extends BaseEntity {
     @Column(nullable = false)
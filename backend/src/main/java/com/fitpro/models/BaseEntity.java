@@ -1,9 +1,9 @@
 package com.fitpro.models;
 
+import com.fitpro.models.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.util.UUID;
 
@@ -12,8 +12,7 @@ import java.util.UUID;
 @Setter
 public abstract class BaseEntity {
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @TimeOrderedUuid
     @Column(name = "stat_id")
     private UUID id;
 } 
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.fitpro.models;
+
+import com.fitpro.models.id.TimeOrderedUuid;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Entity
+@Table(name = "exercises")
+public class Exercise {
+    @Id
+    @TimeOrderedUuid
+    @Column(name = "exercise_id")
+    private UUID id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "muscle_group")
+    private String muscleGroup;
+
+    // Free text, several items separated by commas, e.g. "Barbell, Bench"
+    @Column(name = "equipment_needed")
+    private String equipmentNeeded;
+
+    @Column(name = "difficulty_level")
+    private String difficultyLevel;
+}
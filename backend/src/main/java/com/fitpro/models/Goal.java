@@ -9,9 +9,10 @@ import java.time.LocalDateTime;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@AttributeOverride(name = "id", column = @Column(name = "goal_id"))
 @Table(name = "goals")
 public class Goal extends BaseEntity {
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
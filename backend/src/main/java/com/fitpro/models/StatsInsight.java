@@ -0,0 +1,150 @@
+package com.fitpro.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Rolling body composition state of one user. Each weigh-in decays the previous state by
+ * the time since the last one and adds the new sample, so an update is O(1) and the state
+ * never has to be recomputed from history unless a weigh-in arrives out of order.
+ */
+@Data
+@Entity
+@Table(name = "stats_insights")
+public class StatsInsight {
+    public static final double SHORT_EMA_DAYS = 7;
+    public static final double LONG_EMA_DAYS = 30;
+    private static final double MILLIS_PER_DAY = 86_400_000.0;
+    // Weighted variance of weigh-in times, in days squared, below which no slope is fitted
+    private static final double MIN_TREND_VARIANCE = 1.0;
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "weight_samples", nullable = false)
+    private long weightSamples;
+
+    @Column(name = "last_weight")
+    private Double lastWeight;
+
+    @Column(name = "last_weight_at")
+    private LocalDateTime lastWeightAt;
+
+    @Column(name = "ema_7")
+    private Double shortEma;
+
+    @Column(name = "ema_7_weight", nullable = false)
+    private double shortEmaWeight;
+
+    @Column(name = "ema_30")
+    private Double longEma;
+
+    @Column(name = "ema_30_weight", nullable = false)
+    private double longEmaWeight;
+
+    // Decayed sums of 1, t, y, t*t and t*y, with t in days relative to the last weigh-in
+    @Column(name = "trend_n", nullable = false)
+    private double trendN;
+
+    @Column(name = "trend_t", nullable = false)
+    private double trendT;
+
+    @Column(name = "trend_y", nullable = false)
+    private double trendY;
+
+    @Column(name = "trend_tt", nullable = false)
+    private double trendTT;
+
+    @Column(name = "trend_ty", nullable = false)
+    private double trendTY;
+
+    @Column(name = "last_height")
+    private Double lastHeight;
+
+    @Column(name = "last_height_at")
+    private LocalDateTime lastHeightAt;
+
+    @Column(name = "last_body_fat")
+    private Double lastBodyFat;
+
+    @Column(name = "last_body_fat_at")
+    private LocalDateTime lastBodyFatAt;
+
+    /**
+     * Apply one measurement. Returns false without changing anything when it carries a
+     * weight older than the last weigh-in, which the decayed state cannot take back.
+     */
+    public boolean apply(LocalDateTime measuredAt, Double weight, Double height, Double bodyFat, double trendDays) {
+        if (weight != null && lastWeightAt != null && measuredAt.isBefore(lastWeightAt)) {
+            return false;
+        }
+        if (weight != null) {
+            addWeight(measuredAt, weight, trendDays);
+        }
+        if (height != null && (lastHeightAt == null || !measuredAt.isBefore(lastHeightAt))) {
+            lastHeight = height;
+            lastHeightAt = measuredAt;
+        }
+        if (bodyFat != null && (lastBodyFatAt == null || !measuredAt.isBefore(lastBodyFatAt))) {
+            lastBodyFat = bodyFat;
+            lastBodyFatAt = measuredAt;
+        }
+        return true;
+    }
+
+    /**
+     * Weighted least squares slope of weight in kg per day, or null until the weigh-ins
+     * are spread over a couple of days
+     */
+    public Double getTrendSlope() {
+        double denominator = trendN * trendTT - trendT * trendT;
+        if (weightSamples < 2 || denominator < MIN_TREND_VARIANCE * trendN * trendN) {
+            return null;
+        }
+        return (trendN * trendTY - trendT * trendY) / denominator;
+    }
+
+    /**
+     * Fitted weight at the last weigh-in, or null while there is no trend
+     */
+    public Double getTrendLevel() {
+        Double slope = getTrendSlope();
+        return slope != null ? (trendY - slope * trendT) / trendN : null;
+    }
+
+    private void addWeight(LocalDateTime measuredAt, double weight, double trendDays) {
+        double days = lastWeightAt != null
+            ? Duration.between(lastWeightAt, measuredAt).toMillis() / MILLIS_PER_DAY
+            : 0;
+
+        double shortDecay = Math.exp(-days / SHORT_EMA_DAYS);
+        shortEmaWeight = shortEmaWeight * shortDecay + 1;
+        shortEma = shortEma != null ? shortEma + (weight - shortEma) / shortEmaWeight : weight;
+        double longDecay = Math.exp(-days / LONG_EMA_DAYS);
+        longEmaWeight = longEmaWeight * longDecay + 1;
+        longEma = longEma != null ? longEma + (weight - longEma) / longEmaWeight : weight;
+
+        // Move the origin to the new weigh-in, so t stays small, then decay and add it at t = 0
+        trendTT = trendTT - 2 * days * trendT + days * days * trendN;
+        trendTY = trendTY - days * trendY;
+        trendT = trendT - days * trendN;
+        double trendDecay = Math.exp(-days / trendDays);
+        trendN = trendN * trendDecay + 1;
+        trendT *= trendDecay;
+        trendY = trendY * trendDecay + weight;
+        trendTT *= trendDecay;
+        trendTY *= trendDecay;
+
+        weightSamples++;
+        lastWeight = weight;
+        lastWeightAt = measuredAt;
+    }
+}
@@ -0,0 +1,51 @@
+package com.fitpro.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Marker left behind by a delete trigger so that delta sync can tell clients to drop the row.
+ */
+@Data
+@Entity
+@Table(name = "sync_tombstones")
+@IdClass(SyncTombstone.Key.class)
+public class SyncTombstone {
+    public static final String WORKOUT = "workout";
+    public static final String STATS = "stats";
+
+    @Id
+    @Column(name = "entity_type")
+    private String entityType;
+
+    @Id
+    @Column(name = "entity_id")
+    private UUID entityId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "change_xid", nullable = false)
+    private Long changeXid;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String entityType;
+        private UUID entityId;
+    }
+}
@@ -1,5 +1,7 @@
 package com.fitpro.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fitpro.models.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDateTime;
@@ -8,9 +10,10 @@ import java.util.UUID;
 @Data
 @Entity
 @Table(name = "users")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     @Column(name = "user_id")
     private UUID id;
 
@@ -35,6 +38,10 @@ public class User {
     private String fitnessLevel;
     private String fitnessGoals;
 
+    // Bumped on every profile change so self-contained tokens can be recognised as stale
+    @Column(name = "profile_version", nullable = false)
+    private Long profileVersion = 0L;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_stats")
 public class UserStats extends BaseEntity {
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -23,4 +23,8 @@ public class UserStats extends BaseEntity {
 
     @Column(name = "measurement_date")
     private LocalDateTime measurementDate;
+
+    // Transaction id of the last write, stamped by a trigger for delta sync
+    @Column(name = "change_xid", insertable = false, updatable = false)
+    private Long changeXid;
 } 
\ No newline at end of file
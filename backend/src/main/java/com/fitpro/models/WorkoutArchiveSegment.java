@@ -0,0 +1,46 @@
+package com.fitpro.models;
+
+import com.fitpro.models.id.TimeOrderedUuid;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A segment file of archived workouts for one user. A segment is only read once its row
+ * here is committed, together with the deletion of the rows it replaced.
+ */
+@Data
+@Entity
+@Table(name = "workout_archive_segments")
+public class WorkoutArchiveSegment {
+    @Id
+    @TimeOrderedUuid
+    @Column(name = "segment_id")
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "row_count", nullable = false)
+    private int rowCount;
+
+    @Column(name = "first_workout_at", nullable = false)
+    private LocalDateTime firstWorkoutAt;
+
+    @Column(name = "last_workout_at", nullable = false)
+    private LocalDateTime lastWorkoutAt;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
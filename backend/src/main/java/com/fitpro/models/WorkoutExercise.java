@@ -0,0 +1,78 @@
+package com.fitpro.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One exercise of a workout template with its prescribed sets, reps and rest. Ids are
+ * assigned by the caller, so the entity tracks whether it is new itself; otherwise every
+ * save would be a merge preceded by a SELECT.
+ */
+@Data
+@Entity
+@Table(name = "workout_exercises")
+@IdClass(WorkoutExercise.Key.class)
+public class WorkoutExercise implements Persistable<WorkoutExercise.Key> {
+    @Id
+    @Column(name = "workout_id")
+    private UUID workoutId;
+
+    @Id
+    @Column(name = "exercise_id")
+    private UUID exerciseId;
+
+    @Column(name = "sets")
+    private Integer sets;
+
+    @Column(name = "reps")
+    private Integer reps;
+
+    @Column(name = "weight")
+    private Double weight;
+
+    @Column(name = "rest_seconds")
+    private Integer restSeconds;
+
+    @Column(name = "order_in_workout")
+    private Integer orderInWorkout;
+
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public Key getId() {
+        return new Key(workoutId, exerciseId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID workoutId;
+        private UUID exerciseId;
+    }
+}
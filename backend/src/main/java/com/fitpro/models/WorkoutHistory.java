@@ -1,17 +1,23 @@
 package com.fitpro.models;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.BatchSize;
 
+import com.fitpro.models.id.TimeOrderedUuid;
+
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapKeyColumn;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.Data;
@@ -21,16 +27,15 @@ import lombok.Data;
 @Table(name = "workout_history")
 public class WorkoutHistory {
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @TimeOrderedUuid
     @Column(name = "history_id")
     private UUID id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "workout_id")
     private Workout workout;
     
@@ -43,17 +48,22 @@ public class WorkoutHistory {
     @Column(name = "calories_burned")
     private Integer caloriesBurned;
     
-    @Transient
+    // Transaction id of the last write, stamped by a trigger for delta sync
+    @Column(name = "change_xid", insertable = false, updatable = false)
+    private Long changeXid;
+    
+    // Classified from the workout name when saved, or as sent by the client
+    @Column(name = "muscle_group", length = 50)
     private String muscleGroup;
     
     @Transient
     private boolean isCompleted = true;
     
-    @Transient
-    private Map<String, Integer> exercises;
-    
-    // Helper method to get muscle group from the workout if available
-    public String getMuscleGroup() {
-        return workout != null ? workout.getMuscleGroup() : muscleGroup;
-    }
+    // Sets completed per exercise name; loaded for up to 50 workouts per query when accessed
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "workout_history_exercises", joinColumns = @JoinColumn(name = "history_id"))
+    @MapKeyColumn(name = "exercise_name", length = 100)
+    @Column(name = "sets_completed")
+    @BatchSize(size = 50)
+    private Map<String, Integer> exercises = new HashMap<>();
 } 
\ No newline at end of file
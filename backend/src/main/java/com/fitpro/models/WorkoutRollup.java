@@ -0,0 +1,57 @@
+package com.fitpro.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Workout totals of one user for one day, week or month. Rows are only written through
+ * the increment and rebuild queries in WorkoutRollupRepository.
+ */
+@Data
+@Entity
+@Table(name = "workout_rollups")
+@IdClass(WorkoutRollup.Key.class)
+public class WorkoutRollup {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "grain", length = 5)
+    private RollupGrain grain;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    @Column(name = "workouts", nullable = false)
+    private int workouts;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private long durationMinutes;
+
+    @Column(name = "calories_burned", nullable = false)
+    private long caloriesBurned;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private RollupGrain grain;
+        private LocalDate periodStart;
+    }
+}
@@ -0,0 +1,55 @@
+package com.fitpro.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Number of workouts for one muscle group within a rollup period
+ */
+@Data
+@Entity
+@Table(name = "workout_rollup_muscle_groups")
+@IdClass(WorkoutRollupMuscleGroup.Key.class)
+public class WorkoutRollupMuscleGroup {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "grain", length = 5)
+    private RollupGrain grain;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    @Id
+    @Column(name = "muscle_group", length = 50)
+    private String muscleGroup;
+
+    @Column(name = "workouts", nullable = false)
+    private int workouts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private RollupGrain grain;
+        private LocalDate periodStart;
+        private String muscleGroup;
+    }
+}
@@ -0,0 +1,43 @@
+package com.fitpro.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Entity
+@Table(name = "workout_streaks")
+public class WorkoutStreak {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "current_streak", nullable = false)
+    private int currentStreak;
+
+    @Column(name = "longest_streak", nullable = false)
+    private int longestStreak;
+
+    @Column(name = "last_active_day")
+    private LocalDate lastActiveDay;
+
+    @Column(name = "total_workouts", nullable = false)
+    private long totalWorkouts;
+
+    public int getEffectiveStreak(LocalDate today) {
+        return effectiveStreak(currentStreak, lastActiveDay, today);
+    }
+
+    // The stored run only counts while the user has trained today or yesterday
+    public static int effectiveStreak(int currentStreak, LocalDate lastActiveDay, LocalDate today) {
+        if (lastActiveDay == null || lastActiveDay.isBefore(today.minusDays(1))) {
+            return 0;
+        }
+        return currentStreak;
+    }
+}
@@ -0,0 +1,46 @@
+package com.fitpro.models.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs in the version 7 layout: a 48-bit Unix millisecond timestamp, a 12-bit
+ * counter that keeps ids from one process strictly increasing within a millisecond, and 62
+ * random bits. Consecutive inserts land on the right-hand edge of a B-tree index instead of
+ * on random pages, and the values stay ordinary UUIDs that sort alongside existing v4 keys.
+ */
+public final class UuidV7 {
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    // Upper bits: last millisecond used, lower 12 bits: counter within it
+    private static final AtomicLong lastState = new AtomicLong();
+    private static final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SecureRandom::new);
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long state = nextState(System.currentTimeMillis());
+        long millis = state >>> COUNTER_BITS;
+        long counter = state & COUNTER_MASK;
+
+        long msb = (millis << 16) | 0x7000L | counter;
+        long lsb = (random.get().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private static long nextState(long nowMillis) {
+        while (true) {
+            long previous = lastState.get();
+            long previousMillis = previous >>> COUNTER_BITS;
+            // A new millisecond restarts the counter; the same or a backwards clock keeps
+            // counting, borrowing the next millisecond when the counter overflows
+            long next = nowMillis > previousMillis ? nowMillis << COUNTER_BITS : previous + 1;
+            if (lastState.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.Exercise;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ExerciseRepository extends JpaRepository<Exercise, UUID> {
+    // Whole catalog in a stable order, so index positions only move when the catalog changes
+    List<Exercise> findAllByOrderByNameAscIdAsc();
+
+    // Bumped by a statement trigger on every change to the exercises table
+    @Query(value = "SELECT version FROM catalog_versions WHERE catalog = 'exercises'", nativeQuery = true)
+    Long findCatalogVersion();
+}
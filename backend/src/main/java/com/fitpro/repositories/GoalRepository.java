@@ -0,0 +1,20 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.Goal;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface GoalRepository extends JpaRepository<Goal, UUID> {
+    // Open goals of one type with a target, most recently started first
+    @Query("SELECT g FROM Goal g WHERE g.user.id = :userId AND LOWER(g.goalType) = :goalType " +
+           "AND (g.completed IS NULL OR g.completed = false) AND g.targetValue IS NOT NULL " +
+           "ORDER BY g.startDate DESC NULLS LAST")
+    List<Goal> findActive(@Param("userId") UUID userId, @Param("goalType") String goalType, Limit limit);
+}
@@ -0,0 +1,22 @@
+package com.fitpro.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fitpro.models.StatsInsight;
+
+@Repository
+public interface StatsInsightRepository extends JpaRepository<StatsInsight, UUID> {
+    // Serializes updates and rebuilds of one user's insight state until commit
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(CAST(:userId AS text), 3))) l", nativeQuery = true)
+    int lockUser(@Param("userId") UUID userId);
+
+    // Users with measurements but no insight state yet
+    @Query("SELECT DISTINCT us.user.id FROM UserStats us WHERE NOT EXISTS (SELECT 1 FROM StatsInsight s WHERE s.userId = us.user.id)")
+    List<UUID> findUsersMissingState();
+}
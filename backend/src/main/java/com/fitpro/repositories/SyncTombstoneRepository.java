@@ -0,0 +1,40 @@
+package com.fitpro.repositories;
+
+import com.fitpro.dto.SyncResponse;
+import com.fitpro.models.SyncTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, SyncTombstone.Key> {
+    // Deletes made by transactions not yet visible to the snapshot behind the client's token
+    @Query("SELECT new com.fitpro.dto.SyncResponse$Deleted(t.entityType, t.entityId) FROM SyncTombstone t " +
+           "WHERE t.userId = :userId AND t.changeXid >= :since")
+    List<SyncResponse.Deleted> findChangedSince(@Param("userId") UUID userId, @Param("since") long since);
+
+    // Oldest transaction still running when the current snapshot was taken; every later
+    // change carries a transaction id at or above it
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long currentSnapshotXmin();
+
+    // Serialise writes to one client-generated id until the transaction ends. Partitioned
+    // tables cannot enforce a unique id on its own, so this stands in for ON CONFLICT.
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(CAST(:id AS text), 0))) l", nativeQuery = true)
+    int lockSyncId(@Param("id") UUID id);
+
+    // Stop delete triggers from leaving tombstones for the rest of the transaction, for
+    // deletes that move rows elsewhere rather than remove them
+    @Query(value = "SELECT set_config('fitpro.skip_tombstones', 'on', true)", nativeQuery = true)
+    String suppressTombstones();
+
+    @Modifying
+    @Query("DELETE FROM SyncTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,6 +2,8 @@ package com.fitpro.repositories;
 
 import com.fitpro.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,4 +13,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    // Null when the user does not exist
+    @Query("SELECT u.profileVersion FROM User u WHERE u.id = :id")
+    Long findProfileVersion(@Param("id") UUID id);
 } 
\ No newline at end of file
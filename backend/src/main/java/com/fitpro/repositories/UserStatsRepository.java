@@ -1,9 +1,16 @@
 package com.fitpro.repositories;
 
+import com.fitpro.dto.StatsSeriesDTO;
+import com.fitpro.dto.UserStatsDTO;
 import com.fitpro.models.UserStats;
 import com.fitpro.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +18,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
@@ -20,6 +28,11 @@ public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
     // Find all stats for a user ordered by date
     List<UserStats> findByUserOrderByMeasurementDateDesc(User user);
     
+    // Keyset page of stats strictly older than (measurementDate, id), newest first
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user = :user AND us.measurementDate <= :measurementDate AND (us.measurementDate < :measurementDate OR us.id < :id) ORDER BY us.measurementDate DESC, us.id DESC")
+    List<UserStatsDTO> findPageBefore(@Param("user") User user, @Param("measurementDate") LocalDateTime measurementDate, @Param("id") UUID id, Limit limit);
+    
     // Find stats within a date range
     List<UserStats> findByUserAndMeasurementDateBetweenOrderByMeasurementDateDesc(
         User user, 
@@ -27,6 +40,11 @@ public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
         LocalDateTime endDate
     );
     
+    // Flat projection of stats within a date range
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user = :user AND us.measurementDate BETWEEN :startDate AND :endDate ORDER BY us.measurementDate DESC, us.id DESC")
+    List<UserStatsDTO> findRangeViews(@Param("user") User user, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
     // Find stats by user and specific measurement date
     Optional<UserStats> findByUserAndMeasurementDate(User user, LocalDateTime measurementDate);
     
@@ -37,4 +55,85 @@ public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
     // Custom query to get user's body fat percentage progress
     @Query("SELECT us FROM UserStats us WHERE us.user = :user AND us.bodyFatPercentage IS NOT NULL ORDER BY us.measurementDate DESC")
     List<UserStats> findUserBodyFatProgress(@Param("user") User user);
-} 
\ No newline at end of file
+    
+    // Keyset pages of weight and body fat progress
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user = :user AND us.weight IS NOT NULL AND us.measurementDate <= :measurementDate AND (us.measurementDate < :measurementDate OR us.id < :id) ORDER BY us.measurementDate DESC, us.id DESC")
+    List<UserStatsDTO> findWeightProgressPageBefore(@Param("user") User user, @Param("measurementDate") LocalDateTime measurementDate, @Param("id") UUID id, Limit limit);
+    
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user = :user AND us.bodyFatPercentage IS NOT NULL AND us.measurementDate <= :measurementDate AND (us.measurementDate < :measurementDate OR us.id < :id) ORDER BY us.measurementDate DESC, us.id DESC")
+    List<UserStatsDTO> findBodyFatProgressPageBefore(@Param("user") User user, @Param("measurementDate") LocalDateTime measurementDate, @Param("id") UUID id, Limit limit);
+    
+    // Newest measurements of a user, for the in-memory measurement window
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user.id = :userId ORDER BY us.measurementDate DESC, us.id DESC")
+    List<UserStatsDTO> findNewest(@Param("userId") UUID userId, Limit limit);
+    
+    // Change counter of a user's measurements, bumped by a trigger on every row written or deleted
+    @Query(value = "SELECT COALESCE((SELECT version FROM user_stats_versions WHERE user_id = :userId), 0)", nativeQuery = true)
+    long findStatsVersion(@Param("userId") UUID userId);
+    
+    // Every measurement of a user, oldest first, for rebuilding derived state
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user.id = :userId AND us.measurementDate IS NOT NULL ORDER BY us.measurementDate, us.id")
+    Stream<UserStatsDTO> streamHistory(@Param("userId") UUID userId);
+    
+    // Series points in time order, streamed in fetch-size chunks; counts size the downsampling buckets
+    @Query("SELECT COUNT(us) FROM UserStats us WHERE us.user.id = :userId AND us.weight IS NOT NULL " +
+           "AND us.measurementDate BETWEEN :from AND :to")
+    int countWeightSeries(@Param("userId") UUID userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.fitpro.dto.StatsSeriesDTO$Point(us.measurementDate, us.weight) FROM UserStats us " +
+           "WHERE us.user.id = :userId AND us.weight IS NOT NULL AND us.measurementDate BETWEEN :from AND :to " +
+           "ORDER BY us.measurementDate, us.id")
+    Stream<StatsSeriesDTO.Point> streamWeightSeries(@Param("userId") UUID userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT COUNT(us) FROM UserStats us WHERE us.user.id = :userId AND us.bodyFatPercentage IS NOT NULL " +
+           "AND us.measurementDate BETWEEN :from AND :to")
+    int countBodyFatSeries(@Param("userId") UUID userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.fitpro.dto.StatsSeriesDTO$Point(us.measurementDate, us.bodyFatPercentage) FROM UserStats us " +
+           "WHERE us.user.id = :userId AND us.bodyFatPercentage IS NOT NULL AND us.measurementDate BETWEEN :from AND :to " +
+           "ORDER BY us.measurementDate, us.id")
+    Stream<StatsSeriesDTO.Point> streamBodyFatSeries(@Param("userId") UUID userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    // Stats written by transactions not yet visible to the snapshot behind the client's token
+    @Query("SELECT new com.fitpro.dto.UserStatsDTO(us.id, us.weight, us.height, us.bodyFatPercentage, us.measurementDate) " +
+           "FROM UserStats us WHERE us.user.id = :userId AND us.changeXid >= :since")
+    List<UserStatsDTO> findChangedSince(@Param("userId") UUID userId, @Param("since") long since);
+    
+    // Update a measurement under a client-generated id; a missing date leaves it unchanged.
+    // Returns 0 when the row is missing, belongs to another user or already holds these values.
+    @Modifying
+    @Query(value = "UPDATE user_stats SET weight = CAST(:weight AS float8), height = CAST(:height AS float8), " +
+                   "body_fat_percentage = CAST(:bodyFatPercentage AS float8), " +
+                   "measurement_date = COALESCE(CAST(:measurementDate AS timestamp), measurement_date) " +
+                   "WHERE stat_id = :id AND user_id = :userId " +
+                   "AND (weight, height, body_fat_percentage, measurement_date) " +
+                   "IS DISTINCT FROM (CAST(:weight AS float8), CAST(:height AS float8), CAST(:bodyFatPercentage AS float8), " +
+                   "COALESCE(CAST(:measurementDate AS timestamp), measurement_date))",
+           nativeQuery = true)
+    int updateOwned(@Param("id") UUID id, @Param("userId") UUID userId, @Param("weight") Double weight,
+                    @Param("height") Double height, @Param("bodyFatPercentage") Double bodyFatPercentage,
+                    @Param("measurementDate") LocalDateTime measurementDate);
+    
+    // Insert a measurement under a client-generated id; a missing date means now
+    @Modifying
+    @Query(value = "INSERT INTO user_stats (stat_id, user_id, weight, height, body_fat_percentage, measurement_date) " +
+                   "VALUES (:id, :userId, CAST(:weight AS float8), CAST(:height AS float8), CAST(:bodyFatPercentage AS float8), " +
+                   "COALESCE(CAST(:measurementDate AS timestamp), LOCALTIMESTAMP))",
+           nativeQuery = true)
+    int insertWithId(@Param("id") UUID id, @Param("userId") UUID userId, @Param("weight") Double weight,
+                     @Param("height") Double height, @Param("bodyFatPercentage") Double bodyFatPercentage,
+                     @Param("measurementDate") LocalDateTime measurementDate);
+    
+    @Modifying
+    @Query("DELETE FROM UserStats us WHERE us.id = :id AND us.user.id = :userId")
+    int deleteOwnedBy(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    boolean existsByIdAndUserId(UUID id, UUID userId);
+}
@@ -0,0 +1,44 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.WorkoutArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WorkoutArchiveSegmentRepository extends JpaRepository<WorkoutArchiveSegment, UUID> {
+    List<WorkoutArchiveSegment> findByUserIdOrderByFirstWorkoutAtAsc(UUID userId);
+
+    // Archived workout count from segment metadata, without opening any files
+    @Query("SELECT COALESCE(SUM(s.rowCount), 0) FROM WorkoutArchiveSegment s WHERE s.userId = :userId")
+    long countArchivedWorkouts(@Param("userId") UUID userId);
+
+    @Query("SELECT DISTINCT s.userId FROM WorkoutArchiveSegment s")
+    List<UUID> findArchivedUserIds();
+
+    // Keeps two archive runs from writing segments for the same user at once
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtextextended(CAST(:userId AS text), 1))", nativeQuery = true)
+    boolean tryLockUser(@Param("userId") UUID userId);
+
+    @Query("SELECT s.fileName FROM WorkoutArchiveSegment s WHERE s.userId = :userId")
+    List<String> findFileNamesByUserId(@Param("userId") UUID userId);
+
+    // Remember the ids of workouts moved into a segment; the date bound matches the archive delete
+    @Modifying
+    @Query(value = "INSERT INTO workout_archive_ids (history_id, user_id, segment_id) " +
+                   "SELECT history_id, user_id, :segmentId FROM workout_history " +
+                   "WHERE history_id IN (:ids) AND completed_at < :cutoff",
+           nativeQuery = true)
+    int recordArchivedIds(@Param("segmentId") UUID segmentId, @Param("ids") Collection<UUID> ids,
+                          @Param("cutoff") LocalDateTime cutoff);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM workout_archive_ids WHERE history_id = :id)", nativeQuery = true)
+    boolean isArchived(@Param("id") UUID id);
+}
@@ -0,0 +1,13 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.WorkoutExercise;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WorkoutExerciseRepository extends JpaRepository<WorkoutExercise, WorkoutExercise.Key> {
+    List<WorkoutExercise> findByWorkoutIdOrderByOrderInWorkout(UUID workoutId);
+}
@@ -1,14 +1,20 @@
 package com.fitpro.repositories;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.fitpro.dto.WorkoutHistoryDTO;
+import com.fitpro.dto.WorkoutSummaryView;
 import com.fitpro.models.User;
 import com.fitpro.models.WorkoutHistory;
 
@@ -17,6 +23,12 @@ public interface WorkoutHistoryRepository extends JpaRepository<WorkoutHistory,
     // Find all workouts for a user
     List<WorkoutHistory> findByUserOrderByWorkoutDateDesc(User user);
     
+    // Keyset page of a user's workouts strictly older than (workoutDate, id), newest first
+    @Query("SELECT new com.fitpro.dto.WorkoutHistoryDTO(w.id, w.workoutDate, w.durationMinutes, w.caloriesBurned, w.muscleGroup) " +
+           "FROM WorkoutHistory w " +
+           "WHERE w.user = :user AND w.workoutDate <= :workoutDate AND (w.workoutDate < :workoutDate OR w.id < :id) ORDER BY w.workoutDate DESC, w.id DESC")
+    List<WorkoutHistoryDTO> findPageBefore(@Param("user") User user, @Param("workoutDate") LocalDateTime workoutDate, @Param("id") UUID id, Limit limit);
+    
     // Find workouts by user email
     @Query("SELECT w FROM WorkoutHistory w WHERE w.user.email = :email ORDER BY w.workoutDate DESC")
     List<WorkoutHistory> findByUserEmailOrderByWorkoutDateDesc(@Param("email") String email);
@@ -25,10 +37,114 @@ public interface WorkoutHistoryRepository extends JpaRepository<WorkoutHistory,
     @Query("SELECT w FROM WorkoutHistory w WHERE w.user = :user AND w.workoutDate >= :startDate ORDER BY w.workoutDate DESC")
     List<WorkoutHistory> findCompletedWorkoutsAfterDate(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
     
+    // Distinct days on which a user worked out, used to rebuild streak state
+    @Query("SELECT DISTINCT cast(w.workoutDate as LocalDate) FROM WorkoutHistory w WHERE w.user.id = :userId AND w.workoutDate IS NOT NULL")
+    List<LocalDate> findActiveDays(@Param("userId") UUID userId);
+    
+    // Exercise rows for a page of workouts, fetched in one IN query
+    @Query("SELECT new com.fitpro.dto.WorkoutHistoryDTO$ExerciseSets(w.id, KEY(e), VALUE(e)) " +
+           "FROM WorkoutHistory w JOIN w.exercises e WHERE w.id IN :ids")
+    List<WorkoutHistoryDTO.ExerciseSets> findExercisesByHistoryIds(@Param("ids") Collection<UUID> ids);
+    
+    // Exercise names and muscle groups logged since :since, used to vary generated workouts
+    @Query("SELECT DISTINCT KEY(e) FROM WorkoutHistory w JOIN w.exercises e WHERE w.user.id = :userId AND w.workoutDate >= :since")
+    List<String> findRecentExerciseNames(@Param("userId") UUID userId, @Param("since") LocalDateTime since);
+    
+    @Query("SELECT DISTINCT w.muscleGroup FROM WorkoutHistory w WHERE w.user.id = :userId AND w.workoutDate >= :since AND w.muscleGroup IS NOT NULL")
+    List<String> findRecentMuscleGroups(@Param("userId") UUID userId, @Param("since") LocalDateTime since);
+    
+    // All of a user's workouts as DTOs without exercises, used to rebuild rollups
+    @Query("SELECT new com.fitpro.dto.WorkoutHistoryDTO(w.id, w.workoutDate, w.durationMinutes, w.caloriesBurned, w.muscleGroup) " +
+           "FROM WorkoutHistory w WHERE w.user.id = :userId")
+    List<WorkoutHistoryDTO> findRollupSources(@Param("userId") UUID userId);
+    
+    // Every user that has logged at least one workout
+    @Query("SELECT DISTINCT w.user.id FROM WorkoutHistory w")
+    List<UUID> findUserIdsWithHistory();
+    
     // Count total completed workouts
     @Query("SELECT COUNT(w) FROM WorkoutHistory w WHERE w.user = :user")
     long countCompletedWorkouts(@Param("user") User user);
     
+    @Query("SELECT COUNT(w) FROM WorkoutHistory w WHERE w.user.id = :userId")
+    long countByUserId(@Param("userId") UUID userId);
+    
+    // Materialized workout count and streak state plus the latest workout, in one round trip
+    @Query(value = "SELECT COALESCE(s.total_workouts, 0) AS totalWorkouts, " +
+                   "l.completed_at AS lastWorkoutDate, l.muscle_group AS lastWorkoutMuscleGroup, " +
+                   "s.current_streak AS currentStreak, s.longest_streak AS longestStreak, s.last_active_day AS lastActiveDay " +
+                   "FROM (SELECT CAST(:userId AS uuid) AS user_id) u " +
+                   "LEFT JOIN workout_streaks s ON s.user_id = u.user_id " +
+                   "LEFT JOIN LATERAL (SELECT h.completed_at, h.muscle_group FROM workout_history h " +
+                   "    WHERE h.user_id = u.user_id AND h.completed_at IS NOT NULL " +
+                   "    ORDER BY h.completed_at DESC, h.history_id DESC LIMIT 1) l ON true",
+           nativeQuery = true)
+    WorkoutSummaryView findSummary(@Param("userId") UUID userId);
+    
+    // Workouts written by transactions not yet visible to the snapshot behind the client's token
+    @Query("SELECT new com.fitpro.dto.WorkoutHistoryDTO(w.id, w.workoutDate, w.durationMinutes, w.caloriesBurned, w.muscleGroup) " +
+           "FROM WorkoutHistory w WHERE w.user.id = :userId AND w.changeXid >= :since")
+    List<WorkoutHistoryDTO> findChangedSince(@Param("userId") UUID userId, @Param("since") long since);
+    
+    // Update a workout under a client-generated id; a missing date leaves it unchanged.
+    // Returns 0 when the row is missing, belongs to another user or already holds these values.
+    @Modifying
+    @Query(value = "UPDATE workout_history SET " +
+                   "completed_at = COALESCE(CAST(:workoutDate AS timestamp), completed_at), " +
+                   "duration_minutes = CAST(:durationMinutes AS integer), calories_burned = CAST(:caloriesBurned AS integer), " +
+                   "muscle_group = CAST(:muscleGroup AS varchar) " +
+                   "WHERE history_id = :id AND user_id = :userId " +
+                   "AND (completed_at, duration_minutes, calories_burned, muscle_group) " +
+                   "IS DISTINCT FROM (COALESCE(CAST(:workoutDate AS timestamp), completed_at), " +
+                   "CAST(:durationMinutes AS integer), CAST(:caloriesBurned AS integer), CAST(:muscleGroup AS varchar))",
+           nativeQuery = true)
+    int updateOwned(@Param("id") UUID id, @Param("userId") UUID userId, @Param("workoutDate") LocalDateTime workoutDate,
+                    @Param("durationMinutes") Integer durationMinutes, @Param("caloriesBurned") Integer caloriesBurned,
+                    @Param("muscleGroup") String muscleGroup);
+    
+    // Insert a workout under a client-generated id; a missing date means now
+    @Modifying
+    @Query(value = "INSERT INTO workout_history (history_id, user_id, completed_at, duration_minutes, calories_burned, muscle_group) " +
+                   "VALUES (:id, :userId, COALESCE(CAST(:workoutDate AS timestamp), LOCALTIMESTAMP), " +
+                   "CAST(:durationMinutes AS integer), CAST(:caloriesBurned AS integer), CAST(:muscleGroup AS varchar))",
+           nativeQuery = true)
+    int insertWithId(@Param("id") UUID id, @Param("userId") UUID userId, @Param("workoutDate") LocalDateTime workoutDate,
+                     @Param("durationMinutes") Integer durationMinutes, @Param("caloriesBurned") Integer caloriesBurned,
+                     @Param("muscleGroup") String muscleGroup);
+    
+    @Modifying
+    @Query(value = "DELETE FROM workout_history_exercises e USING workout_history w " +
+                   "WHERE e.history_id = w.history_id AND w.history_id = :id AND w.user_id = :userId",
+           nativeQuery = true)
+    int deleteExercisesOwnedBy(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    @Modifying
+    @Query("DELETE FROM WorkoutHistory w WHERE w.id = :id AND w.user.id = :userId")
+    int deleteOwnedBy(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    boolean existsByIdAndUserId(UUID id, UUID userId);
+    
+    // Users with at least :minRows workouts older than :cutoff; only the old partitions are scanned
+    @Query(value = "SELECT user_id FROM workout_history WHERE completed_at < :cutoff " +
+                   "GROUP BY user_id HAVING COUNT(*) >= :minRows",
+           nativeQuery = true)
+    List<UUID> findArchiveCandidates(@Param("cutoff") LocalDateTime cutoff, @Param("minRows") long minRows);
+    
+    // Oldest workouts of a user before :cutoff, oldest first
+    @Query("SELECT new com.fitpro.dto.WorkoutHistoryDTO(w.id, w.workoutDate, w.durationMinutes, w.caloriesBurned, w.muscleGroup) " +
+           "FROM WorkoutHistory w " +
+           "WHERE w.user.id = :userId AND w.workoutDate < :cutoff ORDER BY w.workoutDate, w.id")
+    List<WorkoutHistoryDTO> findOlderThan(@Param("userId") UUID userId, @Param("cutoff") LocalDateTime cutoff, Limit limit);
+    
+    @Modifying
+    @Query(value = "DELETE FROM workout_history_exercises WHERE history_id IN (:ids)", nativeQuery = true)
+    int deleteExercisesByHistoryIds(@Param("ids") Collection<UUID> ids);
+    
+    // The date bound lets the delete prune to the partitions being archived
+    @Modifying
+    @Query("DELETE FROM WorkoutHistory w WHERE w.id IN :ids AND w.workoutDate < :cutoff")
+    int deleteArchived(@Param("ids") Collection<UUID> ids, @Param("cutoff") LocalDateTime cutoff);
+    
     // Find workouts by date range
     List<WorkoutHistory> findByUserAndWorkoutDateBetweenOrderByWorkoutDateDesc(User user, LocalDateTime startDate, LocalDateTime endDate);
     
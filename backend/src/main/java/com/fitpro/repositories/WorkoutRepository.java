@@ -0,0 +1,11 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.Workout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface WorkoutRepository extends JpaRepository<Workout, UUID> {
+}
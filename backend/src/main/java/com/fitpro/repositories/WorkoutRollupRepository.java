@@ -0,0 +1,73 @@
+package com.fitpro.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fitpro.dto.WorkoutAggregateDTO;
+import com.fitpro.models.RollupGrain;
+import com.fitpro.models.WorkoutRollup;
+
+@Repository
+public interface WorkoutRollupRepository extends JpaRepository<WorkoutRollup, WorkoutRollup.Key> {
+    // Serializes increments, rebuilds and archival of one user's workouts until commit
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(CAST(:userId AS text), 2))) l", nativeQuery = true)
+    int lockUser(@Param("userId") UUID userId);
+
+    // Add the given totals to each (grain, period), creating missing periods; the arrays are parallel
+    @Modifying
+    @Query(value = "INSERT INTO workout_rollups (user_id, grain, period_start, workouts, duration_minutes, calories_burned) " +
+                   "SELECT :userId, d.grain, d.period_start, d.workouts, d.duration_minutes, d.calories_burned " +
+                   "FROM unnest(CAST(:grains AS varchar[]), CAST(:periodStarts AS date[]), CAST(:workouts AS integer[]), " +
+                   "    CAST(:durations AS bigint[]), CAST(:calories AS bigint[])) " +
+                   "    AS d(grain, period_start, workouts, duration_minutes, calories_burned) " +
+                   "ON CONFLICT (user_id, grain, period_start) DO UPDATE SET " +
+                   "workouts = workout_rollups.workouts + EXCLUDED.workouts, " +
+                   "duration_minutes = workout_rollups.duration_minutes + EXCLUDED.duration_minutes, " +
+                   "calories_burned = workout_rollups.calories_burned + EXCLUDED.calories_burned",
+           nativeQuery = true)
+    int addTotals(@Param("userId") UUID userId, @Param("grains") String[] grains, @Param("periodStarts") LocalDate[] periodStarts,
+                  @Param("workouts") int[] workouts, @Param("durations") long[] durations, @Param("calories") long[] calories);
+
+    @Modifying
+    @Query(value = "INSERT INTO workout_rollup_muscle_groups (user_id, grain, period_start, muscle_group, workouts) " +
+                   "SELECT :userId, d.grain, d.period_start, d.muscle_group, d.workouts " +
+                   "FROM unnest(CAST(:grains AS varchar[]), CAST(:periodStarts AS date[]), CAST(:muscleGroups AS varchar[]), " +
+                   "    CAST(:workouts AS integer[])) AS d(grain, period_start, muscle_group, workouts) " +
+                   "ON CONFLICT (user_id, grain, period_start, muscle_group) DO UPDATE SET " +
+                   "workouts = workout_rollup_muscle_groups.workouts + EXCLUDED.workouts",
+           nativeQuery = true)
+    int addMuscleGroups(@Param("userId") UUID userId, @Param("grains") String[] grains, @Param("periodStarts") LocalDate[] periodStarts,
+                        @Param("muscleGroups") String[] muscleGroups, @Param("workouts") int[] workouts);
+
+    @Modifying
+    @Query(value = "DELETE FROM workout_rollups WHERE user_id = :userId", nativeQuery = true)
+    int deleteTotals(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM workout_rollup_muscle_groups WHERE user_id = :userId", nativeQuery = true)
+    int deleteMuscleGroups(@Param("userId") UUID userId);
+
+    List<WorkoutRollup> findByUserIdAndGrainAndPeriodStartBetweenOrderByPeriodStart(
+        UUID userId, RollupGrain grain, LocalDate from, LocalDate to);
+
+    @Query("SELECT new com.fitpro.dto.WorkoutAggregateDTO$MuscleGroupCount(m.periodStart, m.muscleGroup, m.workouts) " +
+           "FROM WorkoutRollupMuscleGroup m " +
+           "WHERE m.userId = :userId AND m.grain = :grain AND m.periodStart BETWEEN :from AND :to " +
+           "ORDER BY m.periodStart, m.workouts DESC, m.muscleGroup")
+    List<WorkoutAggregateDTO.MuscleGroupCount> findMuscleGroups(@Param("userId") UUID userId, @Param("grain") RollupGrain grain,
+                                    @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Users with workout history or archived workouts but no rollups yet; archived-only users
+    // have no rows in workout_history
+    @Query("SELECT w.user.id FROM WorkoutHistory w WHERE NOT EXISTS (SELECT 1 FROM WorkoutRollup r WHERE r.userId = w.user.id) " +
+           "UNION " +
+           "SELECT s.userId FROM WorkoutArchiveSegment s WHERE NOT EXISTS (SELECT 1 FROM WorkoutRollup r WHERE r.userId = s.userId)")
+    List<UUID> findUsersMissingRollups();
+}
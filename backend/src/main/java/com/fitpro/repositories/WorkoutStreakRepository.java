@@ -0,0 +1,49 @@
+package com.fitpro.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fitpro.models.WorkoutStreak;
+
+@Repository
+public interface WorkoutStreakRepository extends JpaRepository<WorkoutStreak, UUID> {
+    // Advance the streak and workout count for a workout on :day in one statement. Returns 0
+    // when :day is older than the last active day, in which case the state has to be rebuilt.
+    @Modifying
+    @Query(value = "INSERT INTO workout_streaks (user_id, current_streak, longest_streak, last_active_day, total_workouts) " +
+                   "VALUES (:userId, 1, 1, :day, 1) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET " +
+                   "current_streak = CASE WHEN EXCLUDED.last_active_day = workout_streaks.last_active_day THEN workout_streaks.current_streak " +
+                   "                      WHEN EXCLUDED.last_active_day = workout_streaks.last_active_day + 1 THEN workout_streaks.current_streak + 1 " +
+                   "                      ELSE 1 END, " +
+                   "longest_streak = GREATEST(workout_streaks.longest_streak, " +
+                   "                 CASE WHEN EXCLUDED.last_active_day = workout_streaks.last_active_day + 1 THEN workout_streaks.current_streak + 1 ELSE 1 END), " +
+                   "last_active_day = EXCLUDED.last_active_day, " +
+                   "total_workouts = workout_streaks.total_workouts + 1 " +
+                   "WHERE workout_streaks.last_active_day IS NULL OR EXCLUDED.last_active_day >= workout_streaks.last_active_day",
+           nativeQuery = true)
+    int recordActiveDay(@Param("userId") UUID userId, @Param("day") LocalDate day);
+
+    // Overwrite the streak state with values rebuilt from history
+    @Modifying
+    @Query(value = "INSERT INTO workout_streaks (user_id, current_streak, longest_streak, last_active_day, total_workouts) " +
+                   "VALUES (:userId, :currentStreak, :longestStreak, :lastActiveDay, :totalWorkouts) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET current_streak = EXCLUDED.current_streak, " +
+                   "longest_streak = EXCLUDED.longest_streak, last_active_day = EXCLUDED.last_active_day, " +
+                   "total_workouts = EXCLUDED.total_workouts",
+           nativeQuery = true)
+    void replaceState(@Param("userId") UUID userId, @Param("currentStreak") int currentStreak,
+                      @Param("longestStreak") int longestStreak, @Param("lastActiveDay") LocalDate lastActiveDay,
+                      @Param("totalWorkouts") long totalWorkouts);
+
+    // Users with workout history but no streak state yet
+    @Query("SELECT DISTINCT w.user.id FROM WorkoutHistory w WHERE NOT EXISTS (SELECT 1 FROM WorkoutStreak s WHERE s.userId = w.user.id)")
+    List<UUID> findUsersMissingState();
+}
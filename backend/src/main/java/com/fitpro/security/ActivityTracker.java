@@ -0,0 +1,128 @@
+package com.fitpro.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces last-seen times of authenticated users in memory and writes them to
+ * users.last_login in batches, so a busy user costs one UPDATE per flush interval rather
+ * than one per request. Activity not yet flushed is lost on a crash, which bounds the loss
+ * to one interval; a clean shutdown flushes what is pending.
+ */
+@Component
+public class ActivityTracker {
+    private static final Logger logger = LoggerFactory.getLogger(ActivityTracker.class);
+
+    // Never moves last_login backwards, so a retried or late batch cannot undo a newer one
+    private static final String UPDATE_SQL =
+        "UPDATE users SET last_login = ? WHERE user_id = ? AND (last_login IS NULL OR last_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    // Newest activity per user in epoch millis, drained by flush
+    private final ConcurrentHashMap<UUID, Long> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedUsers = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    public ActivityTracker(JdbcTemplate jdbcTemplate,
+                           @Value("${security.activity.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Note that a user was active now
+     */
+    public void record(UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recorded.increment();
+        // A plain read first keeps repeated requests within the same millisecond off the bin lock
+        Long previous = pending.get(userId);
+        if (previous == null || previous < now) {
+            pending.merge(userId, now, Math::max);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.activity.flush-interval-ms:30000}",
+               initialDelayString = "${security.activity.flush-interval-ms:30000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<Object[]> batch = new ArrayList<>();
+            for (Map.Entry<UUID, Long> entry : pending.entrySet()) {
+                UUID userId = entry.getKey();
+                Long seenAt = entry.getValue();
+                // Only drop the entry if no newer activity replaced it meanwhile; a newer one goes next flush
+                pending.remove(userId, seenAt);
+                Timestamp timestamp = new Timestamp(seenAt);
+                batch.add(new Object[]{timestamp, userId, timestamp});
+            }
+            try {
+                for (int from = 0; from < batch.size(); from += batchSize) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, batch.subList(from, Math.min(batch.size(), from + batchSize)));
+                }
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                // Put the activity back for the next flush, keeping anything newer recorded since
+                for (Object[] row : batch) {
+                    pending.merge((UUID) row[1], ((Timestamp) row[0]).getTime(), Math::max);
+                }
+                logger.warn("Failed to flush last-seen times for {} users, retrying next interval", batch.size(), e);
+                return;
+            }
+            flushes.increment();
+            flushedUsers.add(batch.size());
+            logger.info("Flushed last-seen times for {} users in {} ms ({} requests coalesced into {} updates, {} failed flushes so far)",
+                batch.size(), (System.nanoTime() - start) / 1_000_000, recorded.sum(), flushedUsers.sum(), failedFlushes.sum());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getFlushedUsers() {
+        return flushedUsers.sum();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.sum();
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+}
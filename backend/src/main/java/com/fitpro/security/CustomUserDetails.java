@@ -7,27 +7,56 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 public class CustomUserDetails implements UserDetails {
-    private final User user;
+    private static final List<GrantedAuthority> DEFAULT_AUTHORITIES =
+        Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final UUID userId;
+    private final String email;
+    private final long profileVersion;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final Supplier<User> userSupplier;
+    private User user;
 
     public CustomUserDetails(User user) {
+        this.userId = user.getId();
+        this.email = user.getEmail();
+        this.profileVersion = user.getProfileVersion() != null ? user.getProfileVersion() : 0L;
+        this.authorities = DEFAULT_AUTHORITIES;
+        this.userSupplier = null;
         this.user = user;
     }
 
+    /**
+     * Principal built from self-contained token claims; the User is only resolved
+     * through the supplier when a caller actually asks for it
+     */
+    CustomUserDetails(UUID userId, String email, long profileVersion,
+                      Collection<? extends GrantedAuthority> authorities, Supplier<User> userSupplier) {
+        this.userId = userId;
+        this.email = email;
+        this.profileVersion = profileVersion;
+        this.authorities = authorities.isEmpty() ? DEFAULT_AUTHORITIES : authorities;
+        this.userSupplier = userSupplier;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPasswordHash();
+        return user != null ? user.getPasswordHash() : null;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -50,7 +79,18 @@ public class CustomUserDetails implements UserDetails {
         return true;
     }
 
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public long getProfileVersion() {
+        return profileVersion;
+    }
+
     public User getUser() {
+        if (user == null && userSupplier != null) {
+            user = userSupplier.get();
+        }
         return user;
     }
-} 
\ No newline at end of file
+}
@@ -2,18 +2,29 @@ package com.fitpro.security;
 
 import com.fitpro.models.User;
 import com.fitpro.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -23,4 +34,58 @@ public class CustomUserDetailsService implements UserDetailsService {
         
         return new CustomUserDetails(user);
     }
+
+    /**
+     * Principal for a verified token that could not be resolved from its claims, built from
+     * the cached snapshot for the email. The snapshot's profile version is checked against
+     * the current one on every call, so a profile change made through any instance replaces
+     * it. Each call returns a new principal whose User is resolved lazily by id.
+     */
+    public CustomUserDetails loadCachedUser(String email) {
+        PrincipalSnapshot snapshot = principalCache.get(email, this::loadSnapshot);
+        Long currentVersion = principalCache.getProfileVersion(snapshot.userId(), userRepository::findProfileVersion);
+        if (currentVersion == null || snapshot.profileVersion() < currentVersion) {
+            logger.debug("Cached principal for user {} has profile version {}, current is {}",
+                snapshot.userId(), snapshot.profileVersion(), currentVersion);
+            principalCache.invalidate(email);
+            snapshot = principalCache.get(email, this::loadSnapshot);
+        }
+        UUID id = snapshot.userId();
+        return new CustomUserDetails(id, snapshot.email(), snapshot.profileVersion(), snapshot.authorities(),
+            () -> userRepository.getReferenceById(id));
+    }
+
+    private PrincipalSnapshot loadSnapshot(String email) {
+        return PrincipalSnapshot.of((CustomUserDetails) loadUserByUsername(email));
+    }
+
+    /**
+     * Build a principal straight from self-contained token claims, or return null for
+     * tokens that only carry the email subject or were issued before the user's last
+     * profile change, so the caller loads a current principal instead. The User is
+     * resolved lazily by id.
+     */
+    public CustomUserDetails loadUserFromClaims(TokenClaims claims) {
+        if (!(claims.get(JwtTokenProvider.CLAIM_USER_ID) instanceof String userId)) {
+            return null;
+        }
+        UUID id = UUID.fromString(userId);
+        long profileVersion = claims.get(JwtTokenProvider.CLAIM_PROFILE_VERSION) instanceof Number version
+            ? version.longValue() : 0L;
+        Long currentVersion = principalCache.getProfileVersion(id, userRepository::findProfileVersion);
+        if (currentVersion == null || profileVersion < currentVersion) {
+            logger.debug("Token for user {} carries profile version {}, current is {}", id, profileVersion, currentVersion);
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (claims.get(JwtTokenProvider.CLAIM_AUTHORITIES) instanceof List<?> names) {
+            for (Object name : names) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(name)));
+            }
+        }
+
+        return new CustomUserDetails(id, claims.getSubject(), profileVersion, authorities,
+            () -> userRepository.getReferenceById(id));
+    }
 } 
\ No newline at end of file
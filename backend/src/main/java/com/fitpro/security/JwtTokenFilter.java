@@ -6,10 +6,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,11 +22,14 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenFilter.class);
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
+    private final ActivityTracker activityTracker;
 
-    public JwtTokenFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
+    public JwtTokenFilter(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService,
+                          ActivityTracker activityTracker) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.activityTracker = activityTracker;
     }
 
     @Override
@@ -50,11 +52,21 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             if (jwt != null) {
                 logger.debug("Attempting to validate token for request to: {}", requestURI);
                 try {
-                    if (jwtTokenProvider.validateToken(jwt)) {
-                        String username = jwtTokenProvider.getUsernameFromToken(jwt);
+                    TokenClaims claims = jwtTokenProvider.verifyToken(jwt);
+                    if (claims != null) {
+                        String username = claims.getSubject();
                         logger.debug("Token is valid for user: {}", username);
 
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                        CustomUserDetails userDetails = userDetailsService.loadUserFromClaims(claims);
+                        if (userDetails == null) {
+                            userDetails = userDetailsService.loadCachedUser(username);
+                            if (claims.get(JwtTokenProvider.CLAIM_USER_ID) != null) {
+                                // Issued before the last profile change: hand back a current token
+                                // with the same expiry so the client leaves the email-keyed path
+                                response.setHeader(HttpHeaders.AUTHORIZATION, "Bearer "
+                                    + jwtTokenProvider.generateToken(userDetails, claims.getExpiresAtMillis()));
+                            }
+                        }
                         logger.debug("Loaded user details for: {}, authorities: {}", username, userDetails.getAuthorities());
                         
                         UsernamePasswordAuthenticationToken authentication = 
@@ -62,6 +74,7 @@ public class JwtTokenFilter extends OncePerRequestFilter {
                                 userDetails, null, userDetails.getAuthorities());
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authentication);
+                        activityTracker.record(userDetails.getUserId());
                         logger.debug("Successfully set authentication in SecurityContext for user: {}", username);
                     } else {
                         logger.warn("Token validation failed for request to: {}", requestURI);
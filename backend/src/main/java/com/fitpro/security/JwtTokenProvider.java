@@ -1,83 +1,182 @@
 package com.fitpro.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.*;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.security.MessageDigest;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
 
 @Component
 public class JwtTokenProvider {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
-    
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String HMAC_ALGORITHM = SignatureAlgorithm.HS256.getJcaName();
+
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_PROFILE_VERSION = "pv";
+    static final String CLAIM_AUTHORITIES = "auth";
+
     @Value("${jwt.secret}")
     private String secretKey;
-    
+
     @Value("${jwt.expiration}")
     private long validityInMilliseconds; // JWT token validity period in milliseconds
 
-    private Key getSigningKey() {
+    @Value("${jwt.self-contained:true}")
+    private boolean selfContained; // embed user id, profile version and authorities in tokens
+
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    private Key signingKey;
+    private ThreadLocal<Mac> macs;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
         byte[] keyBytes = Base64.getDecoder().decode(secretKey.getBytes());
-        return new SecretKeySpec(keyBytes, SignatureAlgorithm.HS256.getJcaName());
+        signingKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(signingKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialise " + HMAC_ALGORITHM, e);
+            }
+        });
+        verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
     }
 
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, System.currentTimeMillis() + validityInMilliseconds);
+    }
+
+    /**
+     * Issue a token expiring at the given time, so replacing a token with an outdated
+     * profile version does not extend the session it belongs to.
+     */
+    public String generateToken(UserDetails userDetails, long expiresAtMillis) {
         Date now = new Date();
-        Date validity = new Date(now.getTime() + validityInMilliseconds);
+        Date validity = new Date(expiresAtMillis);
 
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
-                .setExpiration(validity)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(validity);
+
+        if (selfContained && userDetails instanceof CustomUserDetails details && details.getUserId() != null) {
+            builder.claim(CLAIM_USER_ID, details.getUserId().toString())
+                    .claim(CLAIM_PROFILE_VERSION, details.getProfileVersion())
+                    .claim(CLAIM_AUTHORITIES, details.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .toList());
+        }
+
+        String token = builder
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
-                
+
         logger.debug("Generated token for user: {}", userDetails.getUsername());
         return token;
     }
 
-    public String getUsernameFromToken(String token) {
+    /**
+     * Verify the token signature and expiry with a single parse, returning its claims,
+     * or null if the token is not valid. Recently verified tokens skip the HMAC entirely.
+     */
+    public TokenClaims verifyToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            logger.warn("Invalid JWT token: malformed compact serialization");
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        String signature = token.substring(payloadEnd + 1);
+        TokenClaims cached = verifiedTokens.get(signature, token, now);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            String username = claims.getSubject();
-            logger.debug("Extracted username from token: {}", username);
-            return username;
+            Map<?, ?> header = decodeSegment(token.substring(0, headerEnd));
+            if (!SignatureAlgorithm.HS256.getValue().equals(header.get("alg"))) {
+                logger.warn("JWT token is unsupported: alg {}", header.get("alg"));
+                return null;
+            }
+
+            Mac mac = macs.get();
+            byte[] expected = mac.doFinal(token.substring(0, payloadEnd).getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature))) {
+                logger.warn("Invalid JWT signature");
+                return null;
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> payload = (Map<String, Object>) decodeSegment(token.substring(headerEnd + 1, payloadEnd));
+            if (!(payload.get("exp") instanceof Number exp) || !(payload.get("sub") instanceof String subject)) {
+                logger.warn("Invalid JWT token: missing exp or sub claim");
+                return null;
+            }
+            if (payload.get("nbf") instanceof Number nbf && nbf.longValue() * 1000 > now) {
+                logger.warn("JWT token is not yet valid");
+                return null;
+            }
+            long issuedAt = payload.get("iat") instanceof Number iat ? iat.longValue() * 1000 : 0L;
+            TokenClaims claims = new TokenClaims(subject, issuedAt, exp.longValue() * 1000, payload);
+            if (claims.isExpired(now)) {
+                logger.warn("JWT token is expired");
+                return null;
+            }
+
+            verifiedTokens.put(signature, token, claims, now);
+            return claims;
         } catch (Exception e) {
-            logger.error("Error extracting username from token", e);
+            logger.warn("Invalid JWT token: {}", e.getMessage());
             return null;
         }
     }
 
+    private Map<?, ?> decodeSegment(String segment) throws IOException {
+        return objectMapper.readValue(Base64.getUrlDecoder().decode(segment), Map.class);
+    }
+
+    public String getUsernameFromToken(String token) {
+        TokenClaims claims = verifyToken(token);
+        String username = claims != null ? claims.getSubject() : null;
+        logger.debug("Extracted username from token: {}", username);
+        return username;
+    }
+
     public boolean validateToken(String token) {
-        try {
-            logger.debug("Attempting to validate token");
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            logger.debug("Token validation successful");
-            return true;
-        } catch (SignatureException e) {
-            logger.error("Invalid JWT signature: {}", e.getMessage());
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
-        }
-        return false;
+        logger.debug("Attempting to validate token");
+        return verifyToken(token) != null;
+    }
+
+    public long getVerifiedCacheHits() {
+        return verifiedTokens.getHits();
+    }
+
+    public long getVerifiedCacheMisses() {
+        return verifiedTokens.getMisses();
     }
-} 
\ No newline at end of file
+}
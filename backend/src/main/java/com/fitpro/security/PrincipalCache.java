@@ -0,0 +1,136 @@
+package com.fitpro.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of principal snapshots keyed by email, so warm users are
+ * resolved without a users lookup on every request. Snapshots are immutable and hold no
+ * password hash or entity, so nothing is shared between requests. It also holds each
+ * user's current profile version, which tokens and snapshots are checked against.
+ */
+@Component
+public class PrincipalCache {
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, VersionEntry> versions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    public PrincipalCache(@Value("${security.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Get the cached principal snapshot for an email, loading and caching it on a miss
+     */
+    PrincipalSnapshot get(String email, Function<String, PrincipalSnapshot> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.principal;
+        }
+        misses.increment();
+
+        PrincipalSnapshot principal = loader.apply(email);
+        if (maxEntries > 0) {
+            if (entry == null && entries.size() >= maxEntries) {
+                evict(entries, now);
+            }
+            entries.put(email, new Entry(principal, now + ttlMillis));
+        }
+        return principal;
+    }
+
+    /**
+     * Get a user's current profile version, loading it on a miss; null if the user no
+     * longer exists. Other instances' profile updates become visible within the TTL.
+     */
+    public Long getProfileVersion(UUID userId, Function<UUID, Long> loader) {
+        long now = System.currentTimeMillis();
+        VersionEntry entry = versions.get(userId);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.version;
+        }
+        misses.increment();
+
+        Long version = loader.apply(userId);
+        if (maxEntries > 0 && version != null) {
+            if (entry == null && versions.size() >= maxEntries) {
+                evict(versions, now);
+            }
+            versions.put(userId, new VersionEntry(version, now + ttlMillis));
+        }
+        return version;
+    }
+
+    public void invalidate(String email) {
+        if (email != null && entries.remove(email) != null) {
+            logger.debug("Invalidated cached principal for: {}", email);
+        }
+    }
+
+    public void invalidate(UUID userId) {
+        if (userId != null) {
+            versions.remove(userId);
+            entries.values().removeIf(entry -> userId.equals(entry.principal.userId()));
+        }
+    }
+
+    private <K> void evict(ConcurrentHashMap<K, ? extends Expiring> map, long now) {
+        int before = map.size();
+        map.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (map.size() >= maxEntries) {
+            // Everything is live; drop an arbitrary tenth rather than grow past the bound
+            int toDrop = Math.max(1, maxEntries / 10);
+            for (K key : map.keySet()) {
+                if (toDrop-- <= 0) {
+                    break;
+                }
+                map.remove(key);
+            }
+        }
+        evictions.add(Math.max(0, before - map.size()));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private interface Expiring {
+        long expiresAt();
+    }
+
+    private record Entry(PrincipalSnapshot principal, long expiresAt) implements Expiring {
+    }
+
+    private record VersionEntry(long version, long expiresAt) implements Expiring {
+    }
+}
@@ -0,0 +1,22 @@
+package com.fitpro.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * What PrincipalCache keeps of an authenticated user: identity, profile version and
+ * authorities, but no User entity and no password hash. Each request builds its own
+ * CustomUserDetails from it.
+ */
+record PrincipalSnapshot(UUID userId, String email, long profileVersion, List<GrantedAuthority> authorities) {
+    PrincipalSnapshot {
+        authorities = List.copyOf(authorities);
+    }
+
+    static PrincipalSnapshot of(CustomUserDetails details) {
+        return new PrincipalSnapshot(details.getUserId(), details.getUsername(), details.getProfileVersion(),
+            List.copyOf(details.getAuthorities()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.fitpro.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -34,10 +35,16 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtTokenFilter jwtTokenFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
 
-    public SecurityConfig(CustomUserDetailsService userDetailsService, JwtTokenFilter jwtTokenFilter) {
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength; // cost factor; stored hashes below it are upgraded on login
+
+    public SecurityConfig(CustomUserDetailsService userDetailsService, JwtTokenFilter jwtTokenFilter,
+                          AuthRateLimitFilter authRateLimitFilter) {
         this.userDetailsService = userDetailsService;
         this.jwtTokenFilter = jwtTokenFilter;
+        this.authRateLimitFilter = authRateLimitFilter;
     }
 
     @Bean
@@ -64,6 +71,9 @@ public class SecurityConfig {
                 headers.frameOptions(frame -> frame.disable())
             );
 
+        // Throttle /auth attempts before any token, user or password work happens
+        http.addFilterBefore(authRateLimitFilter, UsernamePasswordAuthenticationFilter.class);
+
         // Add JWT token filter
         http.addFilterBefore(jwtTokenFilter, UsernamePasswordAuthenticationFilter.class);
         
@@ -131,7 +141,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
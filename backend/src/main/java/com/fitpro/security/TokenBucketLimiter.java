@@ -0,0 +1,121 @@
+package com.fitpro.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket limiter with one lock-free bucket per key. Each bucket packs its last refill
+ * time and remaining milli-tokens into a single long that is updated with CAS. Buckets that
+ * have refilled completely are indistinguishable from new ones and are swept when the key
+ * count exceeds its bound. While every tracked key is still draining, the buckets closest to
+ * refilled are evicted to make room, so a flood of new keys costs the least limited keys a
+ * few tokens instead of locking every new key out.
+ */
+class TokenBucketLimiter {
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLIS_PER_TOKEN = 1000;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+    // Evict this fraction of maxKeys at once, so the scan is paid once per many new keys
+    private static final int EVICT_FRACTION = 64;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long capacityMilli;
+    private final double refillMilliPerMs;
+    private final int maxKeys;
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    TokenBucketLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        if (capacity <= 0 || capacity * MILLIS_PER_TOKEN > TOKEN_MASK) {
+            throw new IllegalArgumentException("Bucket capacity must be between 1 and " + TOKEN_MASK / MILLIS_PER_TOKEN);
+        }
+        this.capacityMilli = capacity * MILLIS_PER_TOKEN;
+        this.refillMilliPerMs = refillPerMinute * MILLIS_PER_TOKEN / 60_000.0;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Try to take one token for the key. Returns 0 when allowed, otherwise the number of
+     * milliseconds until a token will be available.
+     */
+    long tryAcquire(String key, long nowMillis) {
+        // A wall clock stepping back must not pack a negative time, which would never refill
+        long now = Math.max(0, nowMillis - epoch);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+                if (buckets.size() >= maxKeys) {
+                    evict(now);
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(pack(now, capacityMilli)));
+        }
+
+        while (true) {
+            long state = bucket.get();
+            long refilled = refill(state, now);
+            long tokens = refilled & TOKEN_MASK;
+            if (tokens < MILLIS_PER_TOKEN) {
+                return refillMilliPerMs <= 0 ? Long.MAX_VALUE
+                    : (long) Math.ceil((MILLIS_PER_TOKEN - tokens) / refillMilliPerMs);
+            }
+            if (bucket.compareAndSet(state, refilled - MILLIS_PER_TOKEN)) {
+                return 0;
+            }
+        }
+    }
+
+    private long refill(long state, long now) {
+        long last = state >>> TOKEN_BITS;
+        long tokens = state & TOKEN_MASK;
+        long elapsed = now - last;
+        if (elapsed <= 0 || tokens >= capacityMilli) {
+            return tokens >= capacityMilli ? pack(Math.max(now, last), capacityMilli) : state;
+        }
+        long added = (long) (elapsed * refillMilliPerMs);
+        if (tokens + added >= capacityMilli) {
+            return pack(now, capacityMilli);
+        }
+        if (added == 0) {
+            return state;
+        }
+        // Only advance the clock by the time those whole milli-tokens took to accrue
+        return pack(last + (long) (added / refillMilliPerMs), tokens + added);
+    }
+
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> (refill(bucket.get(), now) & TOKEN_MASK) >= capacityMilli);
+    }
+
+    // Every tracked key is still draining; drop the ones with the most tokens left
+    private synchronized void evict(long now) {
+        if (buckets.size() < maxKeys) {
+            return;
+        }
+        List<Map.Entry<String, Long>> tokens = new ArrayList<>(buckets.size());
+        buckets.forEach((key, bucket) -> tokens.add(Map.entry(key, refill(bucket.get(), now) & TOKEN_MASK)));
+        tokens.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        int count = Math.min(tokens.size(), Math.max(1, maxKeys / EVICT_FRACTION));
+        for (int i = 0; i < count; i++) {
+            buckets.remove(tokens.get(i).getKey());
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << TOKEN_BITS) | tokens;
+    }
+}
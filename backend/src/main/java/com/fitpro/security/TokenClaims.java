@@ -0,0 +1,41 @@
+package com.fitpro.security;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Claims of a token whose signature and expiry have already been verified.
+ */
+public final class TokenClaims {
+    private final String subject;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+    private final Map<String, Object> claims;
+
+    public TokenClaims(String subject, long issuedAtMillis, long expiresAtMillis, Map<String, Object> claims) {
+        this.subject = subject;
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+        this.claims = Collections.unmodifiableMap(claims);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public Object get(String name) {
+        return claims.get(name);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
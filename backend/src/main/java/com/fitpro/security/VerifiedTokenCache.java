@@ -0,0 +1,75 @@
+package com.fitpro.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of tokens that already passed signature verification, keyed by the
+ * token's signature segment. Entries are dropped once the token's exp has passed.
+ */
+class VerifiedTokenCache {
+    private static final long PURGE_INTERVAL_MILLIS = 1000;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final AtomicLong lastPurge = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    TokenClaims get(String signature, String token, long nowMillis) {
+        Entry entry = entries.get(signature);
+        if (entry == null || !entry.token.equals(token)) {
+            misses.increment();
+            return null;
+        }
+        if (entry.claims.isExpired(nowMillis)) {
+            entries.remove(signature, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.claims;
+    }
+
+    void put(String signature, String token, TokenClaims claims, long nowMillis) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            purgeExpired(nowMillis);
+            if (entries.size() >= maxEntries) {
+                // Still full of live tokens: skip caching rather than evict hot entries
+                return;
+            }
+        }
+        entries.put(signature, new Entry(token, claims));
+    }
+
+    private void purgeExpired(long nowMillis) {
+        long last = lastPurge.get();
+        if (nowMillis - last < PURGE_INTERVAL_MILLIS || !lastPurge.compareAndSet(last, nowMillis)) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.claims.isExpired(nowMillis));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    private record Entry(String token, TokenClaims claims) {
+    }
+}
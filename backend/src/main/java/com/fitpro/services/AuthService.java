@@ -6,14 +6,12 @@ import com.fitpro.dto.SignupRequest;
 import com.fitpro.exceptions.AuthException;
 import com.fitpro.models.User;
 import com.fitpro.repositories.UserRepository;
+import com.fitpro.security.ActivityTracker;
 import com.fitpro.security.CustomUserDetails;
 import com.fitpro.security.JwtTokenProvider;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.fitpro.security.PrincipalCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -21,19 +19,24 @@ import java.util.Map;
 
 @Service
 public class AuthService {
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtTokenProvider jwtTokenProvider;
-    private final AuthenticationManager authenticationManager;
+    private final PrincipalCache principalCache;
+    private final ActivityTracker activityTracker;
 
     public AuthService(UserRepository userRepository,
-                      PasswordEncoder passwordEncoder,
+                      PasswordHashingService passwordHashingService,
                       JwtTokenProvider jwtTokenProvider,
-                      AuthenticationManager authenticationManager) {
+                      PrincipalCache principalCache,
+                      ActivityTracker activityTracker) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtTokenProvider = jwtTokenProvider;
-        this.authenticationManager = authenticationManager;
+        this.principalCache = principalCache;
+        this.activityTracker = activityTracker;
     }
 
     public AuthResponse signup(SignupRequest request) {
@@ -44,9 +47,10 @@ public class AuthService {
         User user = new User();
         user.setEmail(request.getEmail());
         user.setUsername(request.getUsername());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        user.setPasswordHash(passwordHashingService.encode(request.getPassword()));
 
         user = userRepository.save(user);
+        principalCache.invalidate(user.getEmail());
         CustomUserDetails userDetails = new CustomUserDetails(user);
         String token = jwtTokenProvider.generateToken(userDetails);
 
@@ -54,31 +58,37 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-            );
+        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+        String storedHash = user != null ? user.getPasswordHash() : null;
+        if (!passwordHashingService.matches(request.getPassword(), storedHash)) {
+            throw AuthException.invalidCredentials();
+        }
 
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            User user = userDetails.getUser();
-            String token = jwtTokenProvider.generateToken(userDetails);
+        // Transparently upgrade hashes created with an older cost factor
+        if (passwordHashingService.needsRehash(storedHash)) {
+            logger.debug("Rehashing password for user: {}", user.getId());
+            user.setPasswordHash(passwordHashingService.encode(request.getPassword()));
+            user = userRepository.save(user);
+            principalCache.invalidate(user.getEmail());
+        }
 
-            // Get user's profile if any fields are set
-            Map<String, Object> profile = null;
-            if (user.getAge() != null || user.getWeight() != null || user.getHeight() != null || 
-                user.getGender() != null || user.getFitnessLevel() != null || user.getFitnessGoals() != null) {
-                profile = new HashMap<>();
-                profile.put("age", user.getAge());
-                profile.put("weight", user.getWeight());
-                profile.put("height", user.getHeight());
-                profile.put("gender", user.getGender());
-                profile.put("fitnessLevel", user.getFitnessLevel());
-                profile.put("fitnessGoals", user.getFitnessGoals());
-            }
+        CustomUserDetails userDetails = new CustomUserDetails(user);
+        String token = jwtTokenProvider.generateToken(userDetails);
+        activityTracker.record(user.getId());
 
-            return new AuthResponse(token, user.getUsername(), profile);
-        } catch (BadCredentialsException e) {
-            throw AuthException.invalidCredentials();
+        // Get user's profile if any fields are set
+        Map<String, Object> profile = null;
+        if (user.getAge() != null || user.getWeight() != null || user.getHeight() != null || 
+            user.getGender() != null || user.getFitnessLevel() != null || user.getFitnessGoals() != null) {
+            profile = new HashMap<>();
+            profile.put("age", user.getAge());
+            profile.put("weight", user.getWeight());
+            profile.put("height", user.getHeight());
+            profile.put("gender", user.getGender());
+            profile.put("fitnessLevel", user.getFitnessLevel());
+            profile.put("fitnessGoals", user.getFitnessGoals());
         }
+
+        return new AuthResponse(token, user.getUsername(), profile);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.fitpro.services;
+
+import com.fitpro.dto.PercentilesDTO;
+import com.fitpro.models.RollupGrain;
+import com.fitpro.models.StatsInsight;
+import com.fitpro.models.User;
+import com.fitpro.models.WorkoutRollup;
+import com.fitpro.repositories.StatsInsightRepository;
+import com.fitpro.repositories.WorkoutRollupRepository;
+import com.fitpro.stats.KllSketch;
+import com.fitpro.stats.PopulationMetric;
+import com.fitpro.stats.PopulationSketches;
+import com.fitpro.stats.PopulationSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares a user with the population using the latest sketch snapshot. The user's own
+ * values come from their week rollups and insight state, and each percentile is a binary
+ * search over a few hundred sketch values, whatever the number of users.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PopulationStatsService {
+    private final PopulationSketches populationSketches;
+    private final WorkoutRollupRepository workoutRollupRepository;
+    private final StatsInsightRepository statsInsightRepository;
+    private final int minCohortSize;
+
+    public PopulationStatsService(PopulationSketches populationSketches,
+                                  WorkoutRollupRepository workoutRollupRepository,
+                                  StatsInsightRepository statsInsightRepository,
+                                  @Value("${stats.population.min-cohort-size:20}") int minCohortSize) {
+        this.populationSketches = populationSketches;
+        this.workoutRollupRepository = workoutRollupRepository;
+        this.statsInsightRepository = statsInsightRepository;
+        this.minCohortSize = minCohortSize;
+    }
+
+    public PercentilesDTO getPercentiles(User user) {
+        PopulationSnapshot snapshot = populationSketches.getSnapshot();
+        if (snapshot == null) {
+            throw new IllegalStateException("Population percentiles are not available yet");
+        }
+        long minutes = 0;
+        long workouts = 0;
+        for (WorkoutRollup week : workoutRollupRepository.findByUserIdAndGrainAndPeriodStartBetweenOrderByPeriodStart(
+                user.getId(), RollupGrain.WEEK, snapshot.windowStart(), snapshot.windowEnd().minusDays(1))) {
+            minutes += week.getDurationMinutes();
+            workouts += week.getWorkouts();
+        }
+        double weeks = ChronoUnit.WEEKS.between(snapshot.windowStart(), snapshot.windowEnd());
+
+        StatsInsight insight = statsInsightRepository.findById(user.getId()).orElse(null);
+        Double weight = insight != null && insight.getLastWeight() != null ? insight.getLastWeight() : user.getWeight();
+        Double height = insight != null && insight.getLastHeight() != null ? insight.getLastHeight() : user.getHeight();
+        Double bmi = null;
+        if (weight != null && height != null && weight > 0 && height > 0) {
+            double heightInMeters = height / 100;
+            bmi = weight / (heightInMeters * heightInMeters);
+        }
+
+        String cohort = PopulationSnapshot.cohortKey(user.getFitnessLevel(), user.getGender());
+        List<PercentilesDTO.MetricPercentile> metrics = new ArrayList<>();
+        metrics.add(compare(snapshot, cohort, PopulationMetric.WEEKLY_MINUTES, minutes / weeks));
+        metrics.add(compare(snapshot, cohort, PopulationMetric.WEEKLY_WORKOUTS, workouts / weeks));
+        metrics.add(compare(snapshot, cohort, PopulationMetric.BMI, bmi));
+        return new PercentilesDTO(snapshot.builtAt(), snapshot.windowStart(), snapshot.windowEnd(), cohort, metrics);
+    }
+
+    private PercentilesDTO.MetricPercentile compare(PopulationSnapshot snapshot, String cohort,
+                                                    PopulationMetric metric, Double value) {
+        KllSketch.QuantileTable overall = snapshot.table(PopulationSnapshot.ALL, metric);
+        KllSketch.QuantileTable own = snapshot.table(cohort, metric);
+        long cohortSize = own != null ? own.count() : 0;
+        Double cohortPercentile = value != null && cohortSize >= minCohortSize ? own.percentile(value) : null;
+        Double overallPercentile = value != null ? overall.percentile(value) : null;
+        return new PercentilesDTO.MetricPercentile(metric.key(), value, cohortPercentile, cohortSize,
+            overallPercentile, overall.count());
+    }
+}
@@ -0,0 +1,153 @@
+package com.fitpro.services;
+
+import com.fitpro.dto.StatsInsightsDTO;
+import com.fitpro.dto.UserStatsDTO;
+import com.fitpro.models.Goal;
+import com.fitpro.models.StatsInsight;
+import com.fitpro.models.User;
+import com.fitpro.repositories.GoalRepository;
+import com.fitpro.repositories.StatsInsightRepository;
+import com.fitpro.repositories.UserStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Maintains each user's rolling body composition state and derives insights from it.
+ * recordStats advances the state in O(1); a back-dated weigh-in, a sync edit or a delete
+ * replays the user's measurements instead. Reads never touch user_stats.
+ */
+@Service
+@Transactional
+public class StatsInsightService {
+    private static final Logger logger = LoggerFactory.getLogger(StatsInsightService.class);
+    /** Goal type whose target the weight trend is projected onto */
+    public static final String WEIGHT_GOAL = "weight";
+    // Differences below this count as having reached the target, in kg
+    private static final double GOAL_TOLERANCE = 0.05;
+    private static final int MAX_PROJECTION_DAYS = 3650;
+
+    private final StatsInsightRepository statsInsightRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final GoalRepository goalRepository;
+    private final double trendDays;
+
+    public StatsInsightService(StatsInsightRepository statsInsightRepository,
+                               UserStatsRepository userStatsRepository,
+                               GoalRepository goalRepository,
+                               @Value("${stats.insights.trend-days:28}") double trendDays) {
+        this.statsInsightRepository = statsInsightRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.goalRepository = goalRepository;
+        this.trendDays = trendDays;
+    }
+
+    /**
+     * Advance a user's state with one new measurement
+     */
+    public void record(UUID userId, UserStatsDTO stats) {
+        statsInsightRepository.lockUser(userId);
+        StatsInsight state = statsInsightRepository.findById(userId).orElseGet(() -> newState(userId));
+        if (!state.apply(stats.measurementDate(), stats.weight(), stats.height(), stats.bodyFatPercentage(), trendDays)) {
+            logger.debug("Back-dated weigh-in at {} for user {}, rebuilding insights", stats.measurementDate(), userId);
+            rebuild(userId);
+            return;
+        }
+        statsInsightRepository.save(state);
+    }
+
+    /**
+     * Recompute a user's state by replaying every measurement in time order
+     */
+    public void rebuild(UUID userId) {
+        statsInsightRepository.lockUser(userId);
+        StatsInsight state = newState(userId);
+        boolean any = false;
+        try (Stream<UserStatsDTO> rows = userStatsRepository.streamHistory(userId)) {
+            for (Iterator<UserStatsDTO> it = rows.iterator(); it.hasNext(); ) {
+                UserStatsDTO row = it.next();
+                state.apply(row.measurementDate(), row.weight(), row.height(), row.bodyFatPercentage(), trendDays);
+                any = true;
+            }
+        }
+        if (any) {
+            statsInsightRepository.save(state);
+        } else if (statsInsightRepository.existsById(userId)) {
+            statsInsightRepository.deleteById(userId);
+        }
+    }
+
+    /**
+     * Insights from the stored state and the user's active weight goal
+     */
+    @Transactional(readOnly = true)
+    public StatsInsightsDTO getInsights(User user) {
+        StatsInsight state = statsInsightRepository.findById(user.getId()).orElseGet(() -> newState(user.getId()));
+        Double weight = state.getLastWeight();
+        Double height = state.getLastHeight();
+        Double bodyFat = state.getLastBodyFat();
+        Double slope = state.getTrendSlope();
+
+        Double bmi = null;
+        if (weight != null && height != null && height > 0) {
+            double heightInMeters = height / 100;
+            bmi = weight / (heightInMeters * heightInMeters);
+        }
+        Double fatMass = weight != null && bodyFat != null ? weight * bodyFat / 100 : null;
+        Double leanMass = fatMass != null ? weight - fatMass : null;
+
+        return new StatsInsightsDTO(weight, state.getLastWeightAt(), state.getShortEma(), state.getLongEma(),
+            slope != null ? slope * 7 : null, height, bmi, bodyFat, state.getLastBodyFatAt(),
+            fatMass, leanMass, projectGoal(user.getId(), state));
+    }
+
+    // Walk the fitted weight along the trend until it meets the target of the newest open weight goal
+    private StatsInsightsDTO.GoalProjection projectGoal(UUID userId, StatsInsight state) {
+        Goal goal = goalRepository.findActive(userId, WEIGHT_GOAL, Limit.of(1)).stream().findFirst().orElse(null);
+        if (goal == null) {
+            return null;
+        }
+        double target = goal.getTargetValue();
+        Double slope = state.getTrendSlope();
+        Double current = slope != null ? state.getTrendLevel() : state.getLastWeight();
+        boolean reached = false;
+        LocalDate projected = null;
+        Boolean onTrack = null;
+
+        if (current != null) {
+            // The goal's own value is where the user started; without it the monthly average stands in
+            Double start = goal.getCurrentValue() != null ? goal.getCurrentValue() : state.getLongEma();
+            double direction = Math.signum(target - start);
+            reached = Math.abs(target - current) <= GOAL_TOLERANCE || direction * (current - target) > 0;
+            if (reached) {
+                projected = state.getLastWeightAt().toLocalDate();
+            } else if (slope != null) {
+                double days = (target - current) / slope;
+                if (days > 0 && days <= MAX_PROJECTION_DAYS) {
+                    projected = state.getLastWeightAt().toLocalDate().plusDays((long) Math.ceil(days));
+                } else {
+                    onTrack = false;
+                }
+            }
+            if (projected != null && goal.getTargetDate() != null) {
+                onTrack = !projected.isAfter(goal.getTargetDate().toLocalDate());
+            }
+        }
+        return new StatsInsightsDTO.GoalProjection(goal.getId(), goal.getTitle(), target, goal.getTargetDate(),
+            reached, projected, onTrack);
+    }
+
+    private static StatsInsight newState(UUID userId) {
+        StatsInsight state = new StatsInsight();
+        state.setUserId(userId);
+        return state;
+    }
+}
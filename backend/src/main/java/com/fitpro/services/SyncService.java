@@ -0,0 +1,233 @@
+package com.fitpro.services;
+
+import com.fitpro.dto.SyncPushRequest;
+import com.fitpro.dto.SyncPushResponse;
+import com.fitpro.dto.SyncResponse;
+import com.fitpro.dto.SyncToken;
+import com.fitpro.models.SyncTombstone;
+import com.fitpro.models.User;
+import com.fitpro.models.WorkoutHistory;
+import com.fitpro.repositories.SyncTombstoneRepository;
+import com.fitpro.repositories.UserStatsRepository;
+import com.fitpro.repositories.WorkoutArchiveSegmentRepository;
+import com.fitpro.repositories.WorkoutHistoryRepository;
+import com.fitpro.stats.MeasurementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class SyncService {
+    private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+    private static final String ARCHIVED = "Workout is archived and can no longer be changed";
+
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final WorkoutArchiveSegmentRepository archiveSegmentRepository;
+    private final WorkoutService workoutService;
+    private final WorkoutRollupService workoutRollupService;
+    private final MeasurementCache measurementCache;
+    private final StatsInsightService statsInsightService;
+    private final int maxPushSize;
+    private final Duration tombstoneRetention;
+
+    public SyncService(WorkoutHistoryRepository workoutHistoryRepository,
+                       UserStatsRepository userStatsRepository,
+                       SyncTombstoneRepository syncTombstoneRepository,
+                       WorkoutArchiveSegmentRepository archiveSegmentRepository,
+                       WorkoutService workoutService,
+                       WorkoutRollupService workoutRollupService,
+                       MeasurementCache measurementCache,
+                       StatsInsightService statsInsightService,
+                       @Value("${sync.push.max-size:500}") int maxPushSize,
+                       @Value("${sync.tombstone-retention-days:30}") int tombstoneRetentionDays) {
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.archiveSegmentRepository = archiveSegmentRepository;
+        this.workoutService = workoutService;
+        this.workoutRollupService = workoutRollupService;
+        this.measurementCache = measurementCache;
+        this.statsInsightService = statsInsightService;
+        this.maxPushSize = maxPushSize;
+        this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+    }
+
+    /**
+     * Get everything that changed for a user since the given token. Runs in one repeatable
+     * read snapshot so the new token and the rows returned describe the same point in time.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SyncResponse getChangesSince(User user, String token) {
+        SyncToken since = token == null || token.isEmpty() ? null : SyncToken.decode(token);
+        Instant now = Instant.now();
+        // Tombstones older than the retention window may already be gone, so such clients resync fully
+        boolean reset = since == null
+            || Instant.ofEpochSecond(since.issuedAtEpochSecond()).isBefore(now.minus(tombstoneRetention));
+
+        long snapshotXmin = syncTombstoneRepository.currentSnapshotXmin();
+        long from = reset ? 0 : since.snapshotXmin();
+        UUID userId = user.getId();
+
+        SyncResponse response = new SyncResponse(
+            new SyncToken(snapshotXmin, now.getEpochSecond()).encode(),
+            reset,
+            workoutService.attachExercises(workoutHistoryRepository.findChangedSince(userId, from)),
+            userStatsRepository.findChangedSince(userId, from),
+            reset ? List.of() : syncTombstoneRepository.findChangedSince(userId, from));
+
+        logger.debug("Sync for user {} (reset={}): {} workouts, {} stats, {} deletes", userId, reset,
+            response.workouts().size(), response.stats().size(), response.deleted().size());
+        return response;
+    }
+
+    /**
+     * Apply client changes keyed by client-generated ids. Upserts and deletes are idempotent,
+     * so a push that is retried after a lost response changes nothing the second time. Each id
+     * is locked for the transaction so concurrent pushes cannot insert it twice. Workouts
+     * already moved to the archive are rejected rather than inserted again.
+     */
+    public SyncPushResponse applyChanges(User user, SyncPushRequest request) {
+        List<SyncPushRequest.Workout> workouts = request.getWorkouts() != null ? request.getWorkouts() : List.of();
+        List<SyncPushRequest.Stats> stats = request.getStats() != null ? request.getStats() : List.of();
+        List<SyncResponse.Deleted> deleted = request.getDeleted() != null ? request.getDeleted() : List.of();
+        if (workouts.size() + stats.size() + deleted.size() > maxPushSize) {
+            throw new IllegalArgumentException("Sync push exceeds the maximum of " + maxPushSize + " changes");
+        }
+
+        UUID userId = user.getId();
+        LocalDateTime latestAllowed = LocalDateTime.now().plusDays(1);
+        List<SyncPushResponse.ItemResult> results = new ArrayList<>();
+        boolean workoutsChanged = false;
+        boolean statsChanged = false;
+        if (!workouts.isEmpty() || !deleted.isEmpty()) {
+            // Taken before any row locks, as archival does, so the two cannot deadlock
+            workoutRollupService.lockUser(userId);
+        }
+
+        for (SyncPushRequest.Workout workout : workouts) {
+            String error = workout == null || workout.getId() == null ? "Workout id is required"
+                : WorkoutService.validateWorkoutItem(workout, latestAllowed);
+            if (error != null) {
+                results.add(rejected(SyncTombstone.WORKOUT, workout != null ? workout.getId() : null, error));
+                continue;
+            }
+            syncTombstoneRepository.lockSyncId(workout.getId());
+            String muscleGroup = WorkoutService.capMuscleGroup(workout.getMuscleGroup());
+            int updated = workoutHistoryRepository.updateOwned(workout.getId(), userId, workout.getWorkoutDate(),
+                workout.getDurationMinutes(), workout.getCaloriesBurned(), muscleGroup);
+            boolean owned = updated > 0 || workoutHistoryRepository.existsByIdAndUserId(workout.getId(), userId);
+            if (!owned && archiveSegmentRepository.isArchived(workout.getId())) {
+                // Already counted in the archive; inserting it again would count it twice
+                results.add(rejected(SyncTombstone.WORKOUT, workout.getId(), ARCHIVED));
+                continue;
+            }
+            if (!owned && !workoutHistoryRepository.existsById(workout.getId())) {
+                updated = workoutHistoryRepository.insertWithId(workout.getId(), userId, workout.getWorkoutDate(),
+                    workout.getDurationMinutes(), workout.getCaloriesBurned(), muscleGroup);
+                owned = true;
+            }
+            if (owned && workout.getExercises() != null && replaceExercises(workout.getId(), workout.getExercises())) {
+                updated = 1;
+            }
+            workoutsChanged |= updated > 0;
+            results.add(outcome(SyncTombstone.WORKOUT, workout.getId(), updated, owned));
+        }
+
+        for (SyncPushRequest.Stats stat : stats) {
+            if (stat == null || stat.getId() == null) {
+                results.add(rejected(SyncTombstone.STATS, null, "Stats id is required"));
+                continue;
+            }
+            syncTombstoneRepository.lockSyncId(stat.getId());
+            int updated = userStatsRepository.updateOwned(stat.getId(), userId, stat.getWeight(), stat.getHeight(),
+                stat.getBodyFatPercentage(), stat.getMeasurementDate());
+            boolean owned = updated > 0 || userStatsRepository.existsByIdAndUserId(stat.getId(), userId);
+            if (!owned && !userStatsRepository.existsById(stat.getId())) {
+                updated = userStatsRepository.insertWithId(stat.getId(), userId, stat.getWeight(), stat.getHeight(),
+                    stat.getBodyFatPercentage(), stat.getMeasurementDate());
+                owned = true;
+            }
+            statsChanged |= updated > 0;
+            results.add(outcome(SyncTombstone.STATS, stat.getId(), updated, owned));
+        }
+
+        for (SyncResponse.Deleted delete : deleted) {
+            if (delete == null || delete.id() == null) {
+                results.add(rejected(delete != null ? delete.type() : null, null, "Deleted id is required"));
+                continue;
+            }
+            int removed;
+            boolean owned;
+            if (SyncTombstone.WORKOUT.equals(delete.type())) {
+                workoutHistoryRepository.deleteExercisesOwnedBy(delete.id(), userId);
+                removed = workoutHistoryRepository.deleteOwnedBy(delete.id(), userId);
+                if (removed == 0 && archiveSegmentRepository.isArchived(delete.id())) {
+                    results.add(rejected(delete.type(), delete.id(), ARCHIVED));
+                    continue;
+                }
+                owned = removed > 0 || !workoutHistoryRepository.existsById(delete.id());
+                workoutsChanged |= removed > 0;
+            } else if (SyncTombstone.STATS.equals(delete.type())) {
+                removed = userStatsRepository.deleteOwnedBy(delete.id(), userId);
+                owned = removed > 0 || !userStatsRepository.existsById(delete.id());
+                statsChanged |= removed > 0;
+            } else {
+                results.add(rejected(delete.type(), delete.id(), "Unknown type"));
+                continue;
+            }
+            // Deleting a row that is already gone is a retry, not an error
+            results.add(outcome(delete.type(), delete.id(), removed, owned));
+        }
+
+        if (workoutsChanged) {
+            // Pushes can move or delete workouts, which increments cannot express
+            workoutService.rebuildStreak(userId);
+            workoutRollupService.rebuild(userId);
+        }
+        if (statsChanged) {
+            // Edits can move a measurement anywhere in history, which the rolling state cannot undo
+            statsInsightService.rebuild(userId);
+            measurementCache.invalidateAfterCommit(userId);
+        }
+        logger.info("Applied sync push for user {}: {} workouts, {} stats, {} deletes",
+            userId, workouts.size(), stats.size(), deleted.size());
+        return new SyncPushResponse(results);
+    }
+
+    // Bring a workout's exercise rows in line with the client's map; returns whether anything changed
+    private boolean replaceExercises(UUID workoutId, Map<String, Integer> exercises) {
+        WorkoutHistory workout = workoutHistoryRepository.findById(workoutId).orElseThrow();
+        Map<String, Integer> current = workout.getExercises();
+        if (current.equals(exercises)) {
+            return false;
+        }
+        current.clear();
+        current.putAll(exercises);
+        return true;
+    }
+
+    private static SyncPushResponse.ItemResult outcome(String type, UUID id, int updated, boolean owned) {
+        if (!owned) {
+            return new SyncPushResponse.ItemResult(type, id, "CONFLICT", "Id belongs to another user");
+        }
+        return new SyncPushResponse.ItemResult(type, id, updated > 0 ? "APPLIED" : "UNCHANGED", null);
+    }
+
+    private static SyncPushResponse.ItemResult rejected(String type, UUID id, String error) {
+        return new SyncPushResponse.ItemResult(type, id, "REJECTED", error);
+    }
+}
@@ -1,77 +1,115 @@
 package com.fitpro.services;
 
+import com.fitpro.dto.CursorPage;
+import com.fitpro.dto.PageCursor;
+import com.fitpro.dto.StatsSeriesDTO;
+import com.fitpro.dto.UserStatsDTO;
 import com.fitpro.models.User;
 import com.fitpro.models.UserStats;
 import com.fitpro.repositories.UserStatsRepository;
+import com.fitpro.stats.MeasurementCache;
+import com.fitpro.stats.MeasurementFilter;
+import com.fitpro.stats.SeriesDownsampler;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class UserStatsService {
     private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+    public static final int DEFAULT_SERIES_POINTS = 200;
+    public static final int MAX_SERIES_POINTS = 2000;
+    // Open bounds of a series query
+    private static final LocalDateTime SERIES_START = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime SERIES_END = LocalDateTime.of(9999, 12, 31, 23, 59);
     
     private final UserStatsRepository userStatsRepository;
+    private final MeasurementCache measurementCache;
+    private final StatsInsightService statsInsightService;
 
-    public UserStatsService(UserStatsRepository userStatsRepository) {
+    public UserStatsService(UserStatsRepository userStatsRepository, MeasurementCache measurementCache,
+                            StatsInsightService statsInsightService) {
         this.userStatsRepository = userStatsRepository;
+        this.measurementCache = measurementCache;
+        this.statsInsightService = statsInsightService;
     }
 
     /**
      * Record new stats for a user
      */
     public UserStats recordStats(User user, Double weight, Double height, Double bodyFatPercentage, LocalDateTime measurementDate) {
-        logger.debug("Recording new stats for user: {}", user.getEmail());
+        logger.debug("Recording new stats for user: {}", user.getId());
         
         UserStats stats = new UserStats();
         stats.setUser(user);
         stats.setWeight(weight);
         stats.setHeight(height);
         stats.setBodyFatPercentage(bodyFatPercentage);
-        if (measurementDate != null) {
-            stats.setMeasurementDate(measurementDate);
-        }
+        // Postgres keeps microseconds; truncating here keeps the cached copy identical to the row
+        stats.setMeasurementDate((measurementDate != null ? measurementDate : LocalDateTime.now()).truncatedTo(ChronoUnit.MICROS));
         
-        return userStatsRepository.save(stats);
+        UserStats saved = userStatsRepository.save(stats);
+        UserStatsDTO row = new UserStatsDTO(saved.getId(), saved.getWeight(), saved.getHeight(),
+            saved.getBodyFatPercentage(), saved.getMeasurementDate());
+        statsInsightService.record(user.getId(), row);
+        measurementCache.recordAfterCommit(user.getId(), row);
+        return saved;
     }
 
     /**
      * Get user's latest stats
      */
-    public Optional<UserStats> getLatestStats(User user) {
-        logger.debug("Fetching latest stats for user: {}", user.getEmail());
-        return userStatsRepository.findFirstByUserOrderByMeasurementDateDesc(user);
+    public Optional<UserStatsDTO> getLatestStats(User user) {
+        logger.debug("Fetching latest stats for user: {}", user.getId());
+        return measurementCache.latest(user.getId());
     }
 
     /**
      * Get user's stats history
      */
     public List<UserStats> getStatsHistory(User user) {
-        logger.debug("Fetching stats history for user: {}", user.getEmail());
+        logger.debug("Fetching stats history for user: {}", user.getId());
         return userStatsRepository.findByUserOrderByMeasurementDateDesc(user);
     }
 
+    /**
+     * Get one page of a user's stats history, newest first
+     */
+    public CursorPage<UserStatsDTO> getStatsHistoryPage(User user, String cursor, int limit) {
+        int pageSize = CursorPage.clampPageSize(limit);
+        PageCursor position = PageCursor.decodeOrStart(cursor);
+        List<UserStatsDTO> cached = measurementCache.pageBefore(
+            user.getId(), MeasurementFilter.ALL, position.timestamp(), position.id(), pageSize + 1);
+        return toPage(cached != null ? cached : userStatsRepository.findPageBefore(
+            user, position.timestamp(), position.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+
     /**
      * Get user's stats for a specific date range
      */
-    public List<UserStats> getStatsForDateRange(User user, LocalDateTime startDate, LocalDateTime endDate) {
-        logger.debug("Fetching stats for user: {} between {} and {}", user.getEmail(), startDate, endDate);
-        return userStatsRepository.findByUserAndMeasurementDateBetweenOrderByMeasurementDateDesc(
-            user, startDate, endDate
-        );
+    public List<UserStatsDTO> getStatsForDateRange(User user, LocalDateTime startDate, LocalDateTime endDate) {
+        logger.debug("Fetching stats for user: {} between {} and {}", user.getId(), startDate, endDate);
+        List<UserStatsDTO> cached = measurementCache.range(user.getId(), startDate, endDate);
+        return cached != null ? cached : userStatsRepository.findRangeViews(user, startDate, endDate);
     }
 
     /**
      * Get user's weight progress
      */
     public List<UserStats> getWeightProgress(User user) {
-        logger.debug("Fetching weight progress for user: {}", user.getEmail());
+        logger.debug("Fetching weight progress for user: {}", user.getId());
         return userStatsRepository.findUserWeightProgress(user);
     }
 
@@ -79,20 +117,88 @@ public class UserStatsService {
      * Get user's body fat percentage progress
      */
     public List<UserStats> getBodyFatProgress(User user) {
-        logger.debug("Fetching body fat progress for user: {}", user.getEmail());
+        logger.debug("Fetching body fat progress for user: {}", user.getId());
         return userStatsRepository.findUserBodyFatProgress(user);
     }
 
+    /**
+     * Get one page of user's weight progress, newest first
+     */
+    public CursorPage<UserStatsDTO> getWeightProgressPage(User user, String cursor, int limit) {
+        int pageSize = CursorPage.clampPageSize(limit);
+        PageCursor position = PageCursor.decodeOrStart(cursor);
+        List<UserStatsDTO> cached = measurementCache.pageBefore(
+            user.getId(), MeasurementFilter.WEIGHT, position.timestamp(), position.id(), pageSize + 1);
+        return toPage(cached != null ? cached : userStatsRepository.findWeightProgressPageBefore(
+            user, position.timestamp(), position.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Get one page of user's body fat percentage progress, newest first
+     */
+    public CursorPage<UserStatsDTO> getBodyFatProgressPage(User user, String cursor, int limit) {
+        int pageSize = CursorPage.clampPageSize(limit);
+        PageCursor position = PageCursor.decodeOrStart(cursor);
+        List<UserStatsDTO> cached = measurementCache.pageBefore(
+            user.getId(), MeasurementFilter.BODY_FAT, position.timestamp(), position.id(), pageSize + 1);
+        return toPage(cached != null ? cached : userStatsRepository.findBodyFatProgressPageBefore(
+            user, position.timestamp(), position.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Weight or body fat between from and to, downsampled to at most maxPoints with LTTB.
+     * Rows are streamed through the sampler, so the work per request is one pass over the
+     * range and the response size is bounded by maxPoints. Count and rows come from one
+     * snapshot, which the sampler relies on to size its buckets.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public StatsSeriesDTO getSeries(User user, String metric, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        String name = metric != null ? metric.trim().toLowerCase(Locale.ROOT) : "weight";
+        if (!name.equals("weight") && !name.equals("bodyfat")) {
+            throw new IllegalArgumentException("Metric must be weight or bodyfat");
+        }
+        LocalDateTime start = from != null ? from : SERIES_START;
+        LocalDateTime end = to != null ? to : SERIES_END;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        int points = Math.max(SeriesDownsampler.MIN_POINTS, Math.min(maxPoints, MAX_SERIES_POINTS));
+
+        boolean weight = name.equals("weight");
+        int total = weight
+            ? userStatsRepository.countWeightSeries(user.getId(), start, end)
+            : userStatsRepository.countBodyFatSeries(user.getId(), start, end);
+        SeriesDownsampler sampler = new SeriesDownsampler(total, points);
+        if (total > 0) {
+            try (Stream<StatsSeriesDTO.Point> rows = weight
+                ? userStatsRepository.streamWeightSeries(user.getId(), start, end)
+                : userStatsRepository.streamBodyFatSeries(user.getId(), start, end)) {
+                rows.forEach(point -> sampler.add(
+                    point.measurementDate().toInstant(ZoneOffset.UTC).toEpochMilli(), point.value()));
+            }
+        }
+        SeriesDownsampler.Series series = sampler.finish();
+        return new StatsSeriesDTO(name, total, series.times(), series.values());
+    }
+
+    private CursorPage<UserStatsDTO> toPage(List<UserStatsDTO> rows, int pageSize) {
+        return CursorPage.of(rows, pageSize, stats -> new PageCursor(stats.measurementDate(), stats.id()));
+    }
+
     /**
      * Calculate BMI for given stats
      */
     public double calculateBMI(UserStats stats) {
-        if (stats.getWeight() == null || stats.getHeight() == null || stats.getHeight() == 0) {
+        return calculateBMI(stats.getWeight(), stats.getHeight());
+    }
+
+    public double calculateBMI(Double weight, Double height) {
+        if (weight == null || height == null || height == 0) {
             throw new IllegalArgumentException("Weight and height must be present and height must not be zero");
         }
         // BMI = weight(kg) / (height(m))²
-        double heightInMeters = stats.getHeight() / 100; // Convert cm to m
-        return stats.getWeight() / (heightInMeters * heightInMeters);
+        double heightInMeters = height / 100; // Convert cm to m
+        return weight / (heightInMeters * heightInMeters);
     }
 
     /**
@@ -101,5 +207,7 @@ public class UserStatsService {
     public void deleteStats(UserStats stats) {
         logger.debug("Deleting stats entry with ID: {}", stats.getId());
         userStatsRepository.delete(stats);
+        statsInsightService.rebuild(stats.getUser().getId());
+        measurementCache.invalidateAfterCommit(stats.getUser().getId());
     }
 } 
\ No newline at end of file
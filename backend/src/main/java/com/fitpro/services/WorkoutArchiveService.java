@@ -0,0 +1,105 @@
+package com.fitpro.services;
+
+import com.fitpro.archive.ArchivedWorkout;
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.dto.WorkoutHistoryDTO;
+import com.fitpro.models.WorkoutArchiveSegment;
+import com.fitpro.repositories.SyncTombstoneRepository;
+import com.fitpro.repositories.WorkoutArchiveSegmentRepository;
+import com.fitpro.repositories.WorkoutHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class WorkoutArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutArchiveService.class);
+    private static final int DELETE_CHUNK = 1000;
+
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final WorkoutArchiveSegmentRepository segmentRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final WorkoutArchiveStore archiveStore;
+    private final WorkoutService workoutService;
+    private final WorkoutRollupService workoutRollupService;
+    private final int maxRowsPerSegment;
+
+    public WorkoutArchiveService(WorkoutHistoryRepository workoutHistoryRepository,
+                                 WorkoutArchiveSegmentRepository segmentRepository,
+                                 SyncTombstoneRepository syncTombstoneRepository,
+                                 WorkoutArchiveStore archiveStore,
+                                 WorkoutService workoutService,
+                                 WorkoutRollupService workoutRollupService,
+                                 @Value("${archive.max-rows-per-segment:10000}") int maxRowsPerSegment) {
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.segmentRepository = segmentRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.archiveStore = archiveStore;
+        this.workoutService = workoutService;
+        this.workoutRollupService = workoutRollupService;
+        this.maxRowsPerSegment = maxRowsPerSegment;
+    }
+
+    /**
+     * Users with at least minRows workouts older than the cutoff
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> findArchiveCandidates(LocalDateTime cutoff, int minRows) {
+        return workoutHistoryRepository.findArchiveCandidates(cutoff, minRows);
+    }
+
+    /**
+     * Move a user's oldest workouts before the cutoff into a new archive segment and delete
+     * them from workout_history. The segment is registered in the same transaction as the
+     * delete, so readers see either the rows or the segment, never both or neither.
+     * Returns the number of workouts archived.
+     */
+    public int archiveUser(UUID userId, LocalDateTime cutoff) {
+        if (!segmentRepository.tryLockUser(userId)) {
+            logger.debug("Archive of user {} already in progress, skipping", userId);
+            return 0;
+        }
+        // Rollups already count these workouts; the lock only keeps a rebuild from seeing them twice
+        workoutRollupService.lockUser(userId);
+        List<WorkoutHistoryDTO> workouts = workoutService.attachExercises(
+            workoutHistoryRepository.findOlderThan(userId, cutoff, Limit.of(maxRowsPerSegment)));
+        if (workouts.isEmpty()) {
+            return 0;
+        }
+
+        List<ArchivedWorkout> rows = workouts.stream()
+            .map(workout -> new ArchivedWorkout(workout.workoutDate(), workout.durationMinutes(),
+                workout.caloriesBurned(), workout.muscleGroup(), workout.exercises()))
+            .toList();
+        WorkoutArchiveSegment segment = archiveStore.write(userId, rows);
+
+        // Archived rows are not deletions as far as sync clients are concerned; their ids are
+        // kept instead, so a client pushing one back cannot insert it a second time
+        syncTombstoneRepository.suppressTombstones();
+        List<UUID> ids = workouts.stream().map(WorkoutHistoryDTO::id).toList();
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + DELETE_CHUNK, ids.size()));
+            segmentRepository.recordArchivedIds(segment.getId(), chunk, cutoff);
+            workoutHistoryRepository.deleteExercisesByHistoryIds(chunk);
+            int deleted = workoutHistoryRepository.deleteArchived(chunk, cutoff);
+            if (deleted != chunk.size()) {
+                // A concurrent edit moved or removed a row; roll back and let the next run retry
+                throw new IllegalStateException("Workout history for user " + userId + " changed during archival");
+            }
+        }
+
+        // Counts and streaks stay the same; rebuilding here also corrects any rebuild that ran concurrently
+        workoutService.rebuildStreak(userId);
+        logger.info("Archived {} workouts for user {} into segment {} ({} bytes)",
+            rows.size(), userId, segment.getId(), segment.getSizeBytes());
+        return rows.size();
+    }
+}
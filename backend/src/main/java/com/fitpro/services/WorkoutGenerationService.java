@@ -0,0 +1,114 @@
+package com.fitpro.services;
+
+import com.fitpro.catalog.ExerciseCatalog;
+import com.fitpro.catalog.FitnessLevel;
+import com.fitpro.catalog.WorkoutComposer;
+import com.fitpro.catalog.WorkoutPlan;
+import com.fitpro.dto.GenerateWorkoutRequest;
+import com.fitpro.dto.GeneratedWorkoutDTO;
+import com.fitpro.models.User;
+import com.fitpro.models.Workout;
+import com.fitpro.models.WorkoutExercise;
+import com.fitpro.repositories.WorkoutExerciseRepository;
+import com.fitpro.repositories.WorkoutHistoryRepository;
+import com.fitpro.repositories.WorkoutRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+@Transactional
+public class WorkoutGenerationService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutGenerationService.class);
+    private static final int MIN_DURATION_MINUTES = 10;
+    private static final int MAX_DURATION_MINUTES = 180;
+
+    private final ExerciseCatalog exerciseCatalog;
+    private final WorkoutRepository workoutRepository;
+    private final WorkoutExerciseRepository workoutExerciseRepository;
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final int defaultDurationMinutes;
+    private final int recoveryHours;
+
+    public WorkoutGenerationService(ExerciseCatalog exerciseCatalog,
+                                    WorkoutRepository workoutRepository,
+                                    WorkoutExerciseRepository workoutExerciseRepository,
+                                    WorkoutHistoryRepository workoutHistoryRepository,
+                                    @Value("${workouts.generate.default-duration-minutes:45}") int defaultDurationMinutes,
+                                    @Value("${workouts.generate.recovery-hours:48}") int recoveryHours) {
+        this.exerciseCatalog = exerciseCatalog;
+        this.workoutRepository = workoutRepository;
+        this.workoutExerciseRepository = workoutExerciseRepository;
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.defaultDurationMinutes = defaultDurationMinutes;
+        this.recoveryHours = recoveryHours;
+    }
+
+    /**
+     * Generate and save a workout for the user's fitness level. Exercises and muscle groups
+     * from the last recovery-hours of history are avoided where the catalog allows.
+     */
+    public GeneratedWorkoutDTO generateWorkout(User user, GenerateWorkoutRequest request) {
+        int duration = request.getDurationMinutes() != null ? request.getDurationMinutes() : defaultDurationMinutes;
+        if (duration < MIN_DURATION_MINUTES || duration > MAX_DURATION_MINUTES) {
+            throw new IllegalArgumentException("Duration must be between " + MIN_DURATION_MINUTES
+                + " and " + MAX_DURATION_MINUTES + " minutes");
+        }
+
+        LocalDateTime since = LocalDateTime.now().minusHours(recoveryHours);
+        WorkoutComposer.Spec spec = new WorkoutComposer.Spec(
+            FitnessLevel.from(user.getFitnessLevel()),
+            duration,
+            request.getMuscleGroup(),
+            request.getEquipment(),
+            workoutHistoryRepository.findRecentExerciseNames(user.getId(), since),
+            workoutHistoryRepository.findRecentMuscleGroups(user.getId(), since));
+
+        WorkoutPlan plan = WorkoutComposer.compose(exerciseCatalog.getIndex(), spec, ThreadLocalRandom.current());
+        if (plan.exercises().isEmpty()) {
+            throw new IllegalArgumentException("No exercises available for this workout");
+        }
+
+        Workout workout = new Workout();
+        workout.setUser(user);
+        workout.setName(plan.name());
+        int exerciseCount = plan.exercises().size();
+        workout.setDescription(exerciseCount + (exerciseCount == 1 ? " exercise, " : " exercises, ")
+            + plan.level().getSets() + " sets of " + plan.level().getReps() + " reps with "
+            + plan.level().getRestSeconds() + "s rest");
+        workout.setDurationMinutes(plan.durationMinutes());
+        workout.setDifficultyLevel(plan.level().value());
+        workout.setAiGenerated(true);
+        workout.setCreatedAt(LocalDateTime.now());
+        Workout saved = workoutRepository.save(workout);
+
+        List<WorkoutExercise> rows = new ArrayList<>(plan.exercises().size());
+        List<GeneratedWorkoutDTO.Exercise> exercises = new ArrayList<>(plan.exercises().size());
+        for (int i = 0; i < plan.exercises().size(); i++) {
+            WorkoutPlan.Item item = plan.exercises().get(i);
+            WorkoutExercise row = new WorkoutExercise();
+            row.setWorkoutId(saved.getId());
+            row.setExerciseId(item.exercise().id());
+            row.setSets(item.sets());
+            row.setReps(item.reps());
+            row.setRestSeconds(item.restSeconds());
+            row.setOrderInWorkout(i + 1);
+            rows.add(row);
+            exercises.add(new GeneratedWorkoutDTO.Exercise(item.exercise().id(), item.exercise().name(),
+                item.exercise().muscleGroup(), item.exercise().equipmentNeeded(),
+                item.sets(), item.reps(), item.restSeconds(), i + 1));
+        }
+        workoutExerciseRepository.saveAll(rows);
+
+        logger.info("Generated workout {} for user {} with {} exercises", saved.getId(), user.getId(), rows.size());
+        return new GeneratedWorkoutDTO(saved.getId(), saved.getName(), saved.getDescription(),
+            saved.getDurationMinutes(), saved.getDifficultyLevel(), plan.muscleGroups(), exercises);
+    }
+}
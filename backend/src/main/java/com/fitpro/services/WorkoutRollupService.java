@@ -0,0 +1,206 @@
+package com.fitpro.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fitpro.archive.ArchivedWorkout;
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.dto.WorkoutAggregateDTO;
+import com.fitpro.dto.WorkoutHistoryDTO;
+import com.fitpro.models.RollupGrain;
+import com.fitpro.models.WorkoutHistory;
+import com.fitpro.models.WorkoutRollup;
+import com.fitpro.repositories.WorkoutHistoryRepository;
+import com.fitpro.repositories.WorkoutRollupRepository;
+
+/**
+ * Maintains per-user workout totals and muscle group counts at day, week and month grain.
+ * New workouts are added in place; edits and deletes, which only arrive through sync,
+ * rebuild the user's rollups from history and the archive.
+ */
+@Service
+@Transactional
+public class WorkoutRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutRollupService.class);
+    private static final int DEFAULT_PERIODS_DAY = 30;
+    private static final int DEFAULT_PERIODS = 12;
+
+    private final WorkoutRollupRepository workoutRollupRepository;
+    private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final WorkoutArchiveStore workoutArchiveStore;
+
+    public WorkoutRollupService(WorkoutRollupRepository workoutRollupRepository,
+                                WorkoutHistoryRepository workoutHistoryRepository,
+                                WorkoutArchiveStore workoutArchiveStore) {
+        this.workoutRollupRepository = workoutRollupRepository;
+        this.workoutHistoryRepository = workoutHistoryRepository;
+        this.workoutArchiveStore = workoutArchiveStore;
+    }
+
+    /**
+     * Add one new workout to its day, week and month
+     */
+    public void recordWorkout(WorkoutHistory workout) {
+        recordWorkouts(workout.getUser().getId(), List.of(workout));
+    }
+
+    /**
+     * Add new workouts of one user, with one upsert per table for the whole set
+     */
+    public void recordWorkouts(UUID userId, Collection<WorkoutHistory> workouts) {
+        Deltas deltas = new Deltas();
+        for (WorkoutHistory workout : workouts) {
+            deltas.add(workout.getWorkoutDate(), workout.getDurationMinutes(), workout.getCaloriesBurned(), workout.getMuscleGroup());
+        }
+        lockUser(userId);
+        write(userId, deltas);
+    }
+
+    /**
+     * Recompute a user's rollups from their workout history and archived workouts
+     */
+    public void rebuild(UUID userId) {
+        lockUser(userId);
+        workoutRollupRepository.deleteMuscleGroups(userId);
+        workoutRollupRepository.deleteTotals(userId);
+
+        Deltas deltas = new Deltas();
+        for (WorkoutHistoryDTO workout : workoutHistoryRepository.findRollupSources(userId)) {
+            deltas.add(workout.workoutDate(), workout.durationMinutes(), workout.caloriesBurned(), workout.muscleGroup());
+        }
+        for (ArchivedWorkout workout : workoutArchiveStore.readWorkouts(userId)) {
+            deltas.add(workout.workoutDate(), workout.durationMinutes(), workout.caloriesBurned(), workout.muscleGroup());
+        }
+        write(userId, deltas);
+        logger.debug("Rebuilt {} workout rollups for user {}", deltas.totals.size(), userId);
+    }
+
+    /**
+     * Hold the user's rollup lock until the transaction ends. Archival takes it too, since a
+     * rebuild reading history and archive while rows move between them would count them twice.
+     */
+    public void lockUser(UUID userId) {
+        workoutRollupRepository.lockUser(userId);
+    }
+
+    /**
+     * Periods of the given grain that overlap [from, to] and contain workouts, oldest first.
+     * Without bounds this covers the last 30 days, 12 weeks or 12 months up to today.
+     */
+    @Transactional(readOnly = true)
+    public List<WorkoutAggregateDTO> getAggregates(UUID userId, RollupGrain grain, LocalDate from, LocalDate to) {
+        if (to == null) {
+            to = LocalDate.now();
+        }
+        if (from == null) {
+            from = switch (grain) {
+                case DAY -> to.minusDays(DEFAULT_PERIODS_DAY - 1);
+                case WEEK -> to.minusWeeks(DEFAULT_PERIODS - 1);
+                case MONTH -> to.minusMonths(DEFAULT_PERIODS - 1);
+            };
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LocalDate firstPeriod = grain.periodStart(from);
+        List<WorkoutRollup> totals = workoutRollupRepository
+            .findByUserIdAndGrainAndPeriodStartBetweenOrderByPeriodStart(userId, grain, firstPeriod, to);
+        if (totals.isEmpty()) {
+            return List.of();
+        }
+
+        Map<LocalDate, Map<String, Integer>> muscleGroups = new HashMap<>();
+        for (WorkoutAggregateDTO.MuscleGroupCount row : workoutRollupRepository.findMuscleGroups(userId, grain, firstPeriod, to)) {
+            muscleGroups.computeIfAbsent(row.periodStart(), day -> new LinkedHashMap<>())
+                .put(row.muscleGroup(), row.workouts());
+        }
+        List<WorkoutAggregateDTO> aggregates = new ArrayList<>(totals.size());
+        for (WorkoutRollup rollup : totals) {
+            aggregates.add(new WorkoutAggregateDTO(rollup.getPeriodStart(), rollup.getWorkouts(),
+                rollup.getDurationMinutes(), rollup.getCaloriesBurned(),
+                muscleGroups.getOrDefault(rollup.getPeriodStart(), Map.of())));
+        }
+        return aggregates;
+    }
+
+    private void write(UUID userId, Deltas deltas) {
+        if (deltas.totals.isEmpty()) {
+            return;
+        }
+        int size = deltas.totals.size();
+        String[] grains = new String[size];
+        LocalDate[] periodStarts = new LocalDate[size];
+        int[] workouts = new int[size];
+        long[] durations = new long[size];
+        long[] calories = new long[size];
+        int i = 0;
+        for (Map.Entry<Period, long[]> entry : deltas.totals.entrySet()) {
+            grains[i] = entry.getKey().grain().name();
+            periodStarts[i] = entry.getKey().start();
+            workouts[i] = (int) entry.getValue()[0];
+            durations[i] = entry.getValue()[1];
+            calories[i] = entry.getValue()[2];
+            i++;
+        }
+        workoutRollupRepository.addTotals(userId, grains, periodStarts, workouts, durations, calories);
+
+        if (deltas.muscleGroups.isEmpty()) {
+            return;
+        }
+        size = deltas.muscleGroups.size();
+        grains = new String[size];
+        periodStarts = new LocalDate[size];
+        String[] names = new String[size];
+        workouts = new int[size];
+        i = 0;
+        for (Map.Entry<MuscleGroupPeriod, Integer> entry : deltas.muscleGroups.entrySet()) {
+            grains[i] = entry.getKey().period().grain().name();
+            periodStarts[i] = entry.getKey().period().start();
+            names[i] = entry.getKey().muscleGroup();
+            workouts[i] = entry.getValue();
+            i++;
+        }
+        workoutRollupRepository.addMuscleGroups(userId, grains, periodStarts, names, workouts);
+    }
+
+    private record Period(RollupGrain grain, LocalDate start) {
+    }
+
+    private record MuscleGroupPeriod(Period period, String muscleGroup) {
+    }
+
+    // Totals per period as {workouts, duration, calories}, summed in memory before writing
+    private static final class Deltas {
+        private final Map<Period, long[]> totals = new HashMap<>();
+        private final Map<MuscleGroupPeriod, Integer> muscleGroups = new HashMap<>();
+
+        void add(LocalDateTime workoutDate, Integer durationMinutes, Integer caloriesBurned, String muscleGroup) {
+            if (workoutDate == null) {
+                return;
+            }
+            LocalDate day = workoutDate.toLocalDate();
+            for (RollupGrain grain : RollupGrain.values()) {
+                Period period = new Period(grain, grain.periodStart(day));
+                long[] sums = totals.computeIfAbsent(period, p -> new long[3]);
+                sums[0]++;
+                sums[1] += durationMinutes != null ? durationMinutes : 0;
+                sums[2] += caloriesBurned != null ? caloriesBurned : 0;
+                if (muscleGroup != null) {
+                    muscleGroups.merge(new MuscleGroupPeriod(period, muscleGroup), 1, Integer::sum);
+                }
+            }
+        }
+    }
+}
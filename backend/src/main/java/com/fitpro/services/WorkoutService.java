@@ -2,39 +2,225 @@ package com.fitpro.services;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.classification.MuscleGroupClassifier;
+import com.fitpro.dto.CursorPage;
+import com.fitpro.dto.PageCursor;
+import com.fitpro.dto.WorkoutBatchRequest;
+import com.fitpro.dto.WorkoutBatchResponse;
+import com.fitpro.dto.WorkoutHistoryDTO;
+import com.fitpro.dto.WorkoutSummaryView;
 import com.fitpro.models.User;
 import com.fitpro.models.WorkoutHistory;
+import com.fitpro.models.WorkoutStreak;
 import com.fitpro.repositories.WorkoutHistoryRepository;
+import com.fitpro.repositories.WorkoutStreakRepository;
 
 @Service
 @Transactional
 public class WorkoutService {
     private static final Logger logger = LoggerFactory.getLogger(WorkoutService.class);
+    // Keeps IN lists well under the JDBC bind parameter limit during full syncs
+    private static final int EXERCISE_FETCH_CHUNK = 1000;
+    private static final int MUSCLE_GROUP_MAX_LENGTH = 50;
     
     private final WorkoutHistoryRepository workoutHistoryRepository;
+    private final WorkoutStreakRepository workoutStreakRepository;
+    private final WorkoutArchiveStore workoutArchiveStore;
+    private final MuscleGroupClassifier muscleGroupClassifier;
+    private final WorkoutRollupService workoutRollupService;
+    private final int maxBatchSize;
 
-    public WorkoutService(WorkoutHistoryRepository workoutHistoryRepository) {
+    public WorkoutService(WorkoutHistoryRepository workoutHistoryRepository,
+                          WorkoutStreakRepository workoutStreakRepository,
+                          WorkoutArchiveStore workoutArchiveStore,
+                          MuscleGroupClassifier muscleGroupClassifier,
+                          WorkoutRollupService workoutRollupService,
+                          @Value("${workouts.batch.max-size:500}") int maxBatchSize) {
         this.workoutHistoryRepository = workoutHistoryRepository;
+        this.workoutStreakRepository = workoutStreakRepository;
+        this.workoutArchiveStore = workoutArchiveStore;
+        this.muscleGroupClassifier = muscleGroupClassifier;
+        this.workoutRollupService = workoutRollupService;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
-     * Save a workout
+     * Save a workout. It is checked with the same rules as a batch item. A workout logged
+     * from a template without an explicit muscle group is classified from the template name
+     * here, once, and stored with the row.
      */
     public WorkoutHistory saveWorkout(WorkoutHistory workout) {
+        LocalDateTime now = LocalDateTime.now();
+        String error = validateWorkout(workout.getWorkoutDate(), workout.getDurationMinutes(), workout.getCaloriesBurned(),
+            workout.getExercises(), now.plusDays(1));
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
         if (workout.getWorkoutDate() == null) {
-            workout.setWorkoutDate(LocalDateTime.now());
+            workout.setWorkoutDate(now);
+        }
+        workout.setMuscleGroup(capMuscleGroup(workout.getMuscleGroup()));
+        if (workout.getMuscleGroup() == null && workout.getWorkout() != null && workout.getWorkout().getName() != null) {
+            workout.setMuscleGroup(muscleGroupClassifier.classify(workout.getWorkout().getName()));
+        }
+        WorkoutHistory saved = workoutHistoryRepository.save(workout);
+        recordActiveDay(saved.getUser().getId(), saved.getWorkoutDate().toLocalDate());
+        workoutRollupService.recordWorkout(saved);
+        return saved;
+    }
+
+    /**
+     * Save a batch of workouts uploaded after an offline period. Items are validated in one
+     * pass; the valid ones are inserted together in this transaction and invalid ones are
+     * reported back by index without failing the rest.
+     */
+    public WorkoutBatchResponse saveWorkoutBatch(User user, List<WorkoutBatchRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch contains no workouts");
+        }
+        if (items.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxBatchSize + " workouts");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime latestAllowed = now.plusDays(1);
+        List<WorkoutHistory> accepted = new ArrayList<>(items.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(items.size());
+        WorkoutBatchResponse.ItemResult[] results = new WorkoutBatchResponse.ItemResult[items.size()];
+
+        for (int i = 0; i < items.size(); i++) {
+            WorkoutBatchRequest.Item item = items.get(i);
+            String error = validateWorkoutItem(item, latestAllowed);
+            if (error != null) {
+                results[i] = WorkoutBatchResponse.ItemResult.rejected(i, error);
+                continue;
+            }
+
+            WorkoutHistory workout = new WorkoutHistory();
+            workout.setUser(user);
+            workout.setWorkoutDate(item.getWorkoutDate() != null ? item.getWorkoutDate() : now);
+            workout.setDurationMinutes(item.getDurationMinutes());
+            workout.setCaloriesBurned(item.getCaloriesBurned());
+            workout.setMuscleGroup(capMuscleGroup(item.getMuscleGroup()));
+            if (item.getExercises() != null) {
+                workout.setExercises(new HashMap<>(item.getExercises()));
+            }
+            accepted.add(workout);
+            acceptedIndexes.add(i);
+        }
+
+        if (!accepted.isEmpty()) {
+            // Ids are generated in memory, so these go out as batched JDBC inserts
+            List<WorkoutHistory> saved = workoutHistoryRepository.saveAll(accepted);
+            for (int i = 0; i < saved.size(); i++) {
+                int index = acceptedIndexes.get(i);
+                results[index] = WorkoutBatchResponse.ItemResult.created(index, saved.get(i).getId());
+            }
+            // A batch usually spans several days, some of them back-filled; one rebuild
+            // is cheaper than replaying the streak upsert per item
+            workoutHistoryRepository.flush();
+            rebuildStreak(user.getId());
+            workoutRollupService.recordWorkouts(user.getId(), saved);
+        }
+
+        logger.info("Saved workout batch for user {}: {} created, {} rejected",
+            user.getId(), accepted.size(), items.size() - accepted.size());
+        return new WorkoutBatchResponse(accepted.size(), items.size() - accepted.size(), List.of(results));
+    }
+
+    static String validateWorkoutItem(WorkoutBatchRequest.Item item, LocalDateTime latestAllowed) {
+        if (item == null) {
+            return "Workout is empty";
+        }
+        return validateWorkout(item.getWorkoutDate(), item.getDurationMinutes(), item.getCaloriesBurned(),
+            item.getExercises(), latestAllowed);
+    }
+
+    // Client-supplied groups are free text; an over-long one is cut to the column size rather than rejected
+    static String capMuscleGroup(String muscleGroup) {
+        return muscleGroup != null && muscleGroup.length() > MUSCLE_GROUP_MAX_LENGTH
+            ? muscleGroup.substring(0, MUSCLE_GROUP_MAX_LENGTH) : muscleGroup;
+    }
+
+    /**
+     * Check a workout from a client; returns the first problem found, or null if it is valid
+     */
+    static String validateWorkout(LocalDateTime workoutDate, Integer durationMinutes, Integer caloriesBurned,
+                                  Map<String, Integer> exercises, LocalDateTime latestAllowed) {
+        if (workoutDate != null && workoutDate.isAfter(latestAllowed)) {
+            return "Workout date is in the future";
+        }
+        if (durationMinutes != null && (durationMinutes < 0 || durationMinutes > 24 * 60)) {
+            return "Duration must be between 0 and 1440 minutes";
+        }
+        if (caloriesBurned != null && caloriesBurned < 0) {
+            return "Calories burned cannot be negative";
+        }
+        if (exercises != null) {
+            for (Map.Entry<String, Integer> exercise : exercises.entrySet()) {
+                String name = exercise.getKey();
+                if (name == null || name.isBlank() || name.length() > 100) {
+                    return "Exercise names must be 1 to 100 characters";
+                }
+                if (exercise.getValue() == null || exercise.getValue() < 0) {
+                    return "Sets for " + name + " must be zero or more";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Advance the user's streak state for a workout on the given day. A day earlier than
+     * the last recorded one (a back-filled workout) falls back to a rebuild from history.
+     */
+    private void recordActiveDay(UUID userId, LocalDate day) {
+        if (workoutStreakRepository.recordActiveDay(userId, day) == 0) {
+            logger.debug("Out-of-order workout day {} for user {}, rebuilding streak", day, userId);
+            rebuildStreak(userId);
         }
-        return workoutHistoryRepository.save(workout);
+    }
+
+    /**
+     * Recompute a user's streak state and workout count from their full workout history,
+     * including workouts moved to the archive
+     */
+    public void rebuildStreak(UUID userId) {
+        Set<LocalDate> activeDays = new HashSet<>(workoutHistoryRepository.findActiveDays(userId));
+        activeDays.addAll(workoutArchiveStore.findActiveDays(userId));
+        if (activeDays.isEmpty()) {
+            workoutStreakRepository.deleteById(userId);
+            return;
+        }
+        List<LocalDate> days = new ArrayList<>(activeDays);
+        days.sort(null);
+
+        int current = 0;
+        int longest = 0;
+        LocalDate previous = null;
+        for (LocalDate day : days) {
+            current = previous != null && day.equals(previous.plusDays(1)) ? current + 1 : 1;
+            longest = Math.max(longest, current);
+            previous = day;
+        }
+        workoutStreakRepository.replaceState(userId, current, longest, previous,
+            workoutHistoryRepository.countByUserId(userId) + workoutArchiveStore.countWorkouts(userId));
     }
 
     /**
@@ -44,6 +230,47 @@ public class WorkoutService {
         return workoutHistoryRepository.findByUserOrderByWorkoutDateDesc(user);
     }
 
+    /**
+     * Get one page of a user's workouts, newest first
+     */
+    public CursorPage<WorkoutHistoryDTO> getWorkoutHistoryPage(User user, String cursor, int limit) {
+        int pageSize = CursorPage.clampPageSize(limit);
+        PageCursor position = PageCursor.decodeOrStart(cursor);
+        List<WorkoutHistoryDTO> rows = workoutHistoryRepository.findPageBefore(
+            user, position.timestamp(), position.id(), Limit.of(pageSize + 1));
+        CursorPage<WorkoutHistoryDTO> page = CursorPage.of(rows, pageSize,
+            workout -> new PageCursor(workout.workoutDate(), workout.id()));
+        page.setItems(attachExercises(page.getItems()));
+        return page;
+    }
+
+    /**
+     * Fill in per-exercise sets for a list of workouts with one IN query per chunk of ids
+     */
+    public List<WorkoutHistoryDTO> attachExercises(List<WorkoutHistoryDTO> workouts) {
+        if (workouts.isEmpty()) {
+            return workouts;
+        }
+        List<UUID> ids = workouts.stream().map(WorkoutHistoryDTO::id).toList();
+        Map<UUID, Map<String, Integer>> exercisesById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += EXERCISE_FETCH_CHUNK) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + EXERCISE_FETCH_CHUNK, ids.size()));
+            for (WorkoutHistoryDTO.ExerciseSets row : workoutHistoryRepository.findExercisesByHistoryIds(chunk)) {
+                exercisesById.computeIfAbsent(row.historyId(), id -> new HashMap<>())
+                    .put(row.exerciseName(), row.setsCompleted());
+            }
+        }
+        if (exercisesById.isEmpty()) {
+            return workouts;
+        }
+        return workouts.stream()
+            .map(workout -> {
+                Map<String, Integer> exercises = exercisesById.get(workout.id());
+                return exercises != null ? workout.withExercises(exercises) : workout;
+            })
+            .toList();
+    }
+
     /**
      * Get all workouts by user email
      */
@@ -51,89 +278,46 @@ public class WorkoutService {
         return workoutHistoryRepository.findByUserEmailOrderByWorkoutDateDesc(email);
     }
 
+    /**
+     * Get the stored streak state for a user, if they have logged any workouts
+     */
+    public WorkoutStreak getStreak(User user) {
+        return workoutStreakRepository.findById(user.getId()).orElse(null);
+    }
+
     /**
      * Calculate the current workout streak
-     * A streak is consecutive days with at least one completed workout
+     * A streak is consecutive days with at least one completed workout, ending today or yesterday
      */
     public int calculateWorkoutStreak(User user) {
-        // Get all completed workouts ordered by date descending
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<WorkoutHistory> recentWorkouts = workoutHistoryRepository.findCompletedWorkoutsAfterDate(user, thirtyDaysAgo);
-        
-        if (recentWorkouts.isEmpty()) {
-            return 0;
-        }
-        
-        // Group workouts by date
-        Map<LocalDate, Boolean> workoutDays = new HashMap<>();
-        for (WorkoutHistory workout : recentWorkouts) {
-            LocalDate date = workout.getWorkoutDate().toLocalDate();
-            workoutDays.put(date, true);
-        }
-        
-        // Check if there's a workout today
-        LocalDate today = LocalDate.now();
-        if (!workoutDays.containsKey(today)) {
-            // If no workout today, check if there was one yesterday to continue the streak
-            if (!workoutDays.containsKey(today.minusDays(1))) {
-                // No workout yesterday, so streak might be broken
-                // Find the most recent workout date
-                LocalDate lastWorkoutDate = workoutDays.keySet().stream()
-                    .max(LocalDate::compareTo)
-                    .orElse(null);
-                
-                if (lastWorkoutDate == null) {
-                    return 0;
-                }
-                
-                // If the last workout was more than 1 day ago, streak is broken
-                if (ChronoUnit.DAYS.between(lastWorkoutDate, today) > 1) {
-                    return 0;
-                }
-            }
-        }
-        
-        // Calculate streak
-        int streak = 0;
-        LocalDate currentDate = today;
-        
-        // Check if there was a workout today
-        if (workoutDays.containsKey(currentDate)) {
-            streak = 1;
-            currentDate = currentDate.minusDays(1);
-        }
-        
-        // Count consecutive days with workouts going backwards
-        while (workoutDays.containsKey(currentDate)) {
-            streak++;
-            currentDate = currentDate.minusDays(1);
-        }
-        
-        return streak;
+        WorkoutStreak streak = getStreak(user);
+        return streak != null ? streak.getEffectiveStreak(LocalDate.now()) : 0;
     }
     
     /**
      * Count total completed workouts
      */
     public long countCompletedWorkouts(User user) {
-        return workoutHistoryRepository.countCompletedWorkouts(user);
+        WorkoutStreak streak = getStreak(user);
+        return streak != null ? streak.getTotalWorkouts() : 0;
     }
     
     /**
      * Get workout statistics for a user
      */
     public Map<String, Object> getWorkoutStats(User user) {
+        WorkoutSummaryView summary = workoutHistoryRepository.findSummary(user.getId());
+
         Map<String, Object> stats = new HashMap<>();
-        stats.put("streak", calculateWorkoutStreak(user));
-        stats.put("totalWorkouts", countCompletedWorkouts(user));
+        int currentStreak = summary.getCurrentStreak() != null ? summary.getCurrentStreak() : 0;
+        stats.put("streak", WorkoutStreak.effectiveStreak(currentStreak, summary.getLastActiveDay(), LocalDate.now()));
+        stats.put("totalWorkouts", summary.getTotalWorkouts());
         
-        // Get latest workout
-        WorkoutHistory latestWorkout = workoutHistoryRepository.findFirstByUserOrderByWorkoutDateDesc(user);
-        if (latestWorkout != null) {
-            stats.put("lastWorkoutDate", latestWorkout.getWorkoutDate());
-            stats.put("lastWorkoutMuscleGroup", latestWorkout.getMuscleGroup());
+        if (summary.getLastWorkoutDate() != null) {
+            stats.put("lastWorkoutDate", summary.getLastWorkoutDate());
+            stats.put("lastWorkoutMuscleGroup", summary.getLastWorkoutMuscleGroup());
         }
         
         return stats;
     }
-} 
\ No newline at end of file
+}
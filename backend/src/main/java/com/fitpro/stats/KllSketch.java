@@ -0,0 +1,226 @@
+package com.fitpro.stats;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * KLL quantile sketch. Values enter level 0; when the sketch outgrows its capacity the
+ * lowest full level is sorted and every other value, from a random offset, moves up a
+ * level with twice the weight. Level capacities shrink geometrically towards the bottom,
+ * so the sketch keeps O(k) values for any stream length with rank error around 1.7 / k.
+ * Sketches built over disjoint inputs merge into one that summarizes their union.
+ * Not thread-safe; each worker fills its own sketch and merges at the end.
+ */
+public final class KllSketch {
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+    private final SplittableRandom random;
+    private double[][] levels = new double[1][MIN_LEVEL_CAPACITY];
+    private int[] sizes = new int[1];
+    private long count;
+    private int retained;
+
+    public KllSketch(int k) {
+        this(k, new SplittableRandom());
+    }
+
+    public KllSketch(int k, SplittableRandom random) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_CAPACITY);
+        }
+        this.k = k;
+        this.random = random;
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        count++;
+        if (retained > capacity()) {
+            compress();
+        }
+    }
+
+    /**
+     * Fold another sketch into this one; the other sketch is left unchanged
+     */
+    public void merge(KllSketch other) {
+        for (int level = 0; level < other.sizes.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        while (retained > capacity()) {
+            compress();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Values and cumulative weights in ascending order, for rank lookups without the sketch
+     */
+    public QuantileTable toTable() {
+        int size = retained;
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        int position = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[position] = levels[level][i];
+                weights[position] = 1L << level;
+                position++;
+            }
+        }
+        sortTogether(values, weights);
+        long[] cumulative = new long[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        return new QuantileTable(values, cumulative);
+    }
+
+    /**
+     * Immutable sorted view of a sketch. cumulative[i] is the weight of values[0..i].
+     */
+    public record QuantileTable(double[] values, long[] cumulative) {
+        public long count() {
+            return cumulative.length > 0 ? cumulative[cumulative.length - 1] : 0;
+        }
+
+        /**
+         * Percentage of the population below the value, counting ties as half below, or
+         * null for an empty table
+         */
+        public Double percentile(double value) {
+            long total = count();
+            if (total == 0) {
+                return null;
+            }
+            long below = weightBefore(lowerBound(value));
+            long atOrBelow = weightBefore(upperBound(value));
+            return 100.0 * (below + (atOrBelow - below) / 2.0) / total;
+        }
+
+        private long weightBefore(int index) {
+            return index > 0 ? cumulative[index - 1] : 0;
+        }
+
+        private int lowerBound(double value) {
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int upperBound(double value) {
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private int capacity() {
+        int total = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            total += levelCapacity(level);
+        }
+        return total;
+    }
+
+    // The top level gets k; each level below it two thirds of the one above
+    private int levelCapacity(int level) {
+        int depth = sizes.length - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    // Compact the lowest level at or over its capacity, promoting half of it one level up
+    private void compress() {
+        for (int level = 0; level < sizes.length; level++) {
+            if (sizes[level] < levelCapacity(level)) {
+                continue;
+            }
+            if (level + 1 == sizes.length) {
+                levels = Arrays.copyOf(levels, level + 2);
+                sizes = Arrays.copyOf(sizes, level + 2);
+                levels[level + 1] = new double[MIN_LEVEL_CAPACITY];
+            }
+            double[] values = levels[level];
+            int size = sizes[level];
+            Arrays.sort(values, 0, size);
+            // An odd value out stays behind, so only pairs are halved
+            int paired = size & ~1;
+            int offset = random.nextBoolean() ? 1 : 0;
+            for (int i = offset; i < paired; i += 2) {
+                append(level + 1, values[i]);
+            }
+            if (paired < size) {
+                values[0] = values[size - 1];
+                sizes[level] = 1;
+            } else {
+                sizes[level] = 0;
+            }
+            // The promoted half was counted again by append
+            retained -= paired;
+            return;
+        }
+    }
+
+    private void append(int level, double value) {
+        if (level >= sizes.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int i = 0; i < levels.length; i++) {
+                if (levels[i] == null) {
+                    levels[i] = new double[MIN_LEVEL_CAPACITY];
+                }
+            }
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    // Sort values ascending, carrying each value's weight along
+    private static void sortTogether(double[] values, long[] weights) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] sortedValues = new double[values.length];
+        long[] sortedWeights = new long[values.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedValues[i] = values[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, values.length);
+        System.arraycopy(sortedWeights, 0, weights, 0, weights.length);
+    }
+}
@@ -0,0 +1,384 @@
+package com.fitpro.stats;
+
+import com.fitpro.dto.UserStatsDTO;
+import com.fitpro.repositories.UserStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user windows of the newest measurements, kept as primitive columns and evicted least
+ * recently used once their combined footprint passes the byte budget. Windows are loaded on
+ * the first read and on the first recorded measurement, and kept current by applying each
+ * committed recordStats; other writers invalidate the user's window.
+ * <p>
+ * A load races with commits that land after its query ran, so every write bumps a stamp
+ * for the user's stripe and a loaded window is only installed if the stamp has not moved.
+ * <p>
+ * Writes through other instances, sync or plain SQL never reach this instance, so each
+ * window remembers the user's user_stats_versions counter it reflects. While
+ * {@link StatsVersionListener} is connected, a committed counter change past a window drops
+ * it, and the counter is only compared with the database once a window has gone unchecked
+ * for listen-recheck-ms. Without the listener a window is compared every recheck-ms.
+ */
+@Component
+public class MeasurementCache {
+    private static final Logger logger = LoggerFactory.getLogger(MeasurementCache.class);
+    private static final int STRIPES = 1024;
+
+    private final UserStatsRepository userStatsRepository;
+    private final long maxBytes;
+    private final int maxRowsPerUser;
+    private final long recheckMillis;
+    private final long listenRecheckMillis;
+    private volatile boolean listening;
+
+    // Guarded by windows: the LRU order, the byte total and the stripe stamps
+    private final LinkedHashMap<UUID, MeasurementWindow> windows = new LinkedHashMap<>(256, 0.75f, true);
+    private final long[] stamps = new long[STRIPES];
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder notifiedInvalidations = new LongAdder();
+
+    public MeasurementCache(UserStatsRepository userStatsRepository,
+                            @Value("${stats.cache.max-bytes:33554432}") long maxBytes,
+                            @Value("${stats.cache.max-rows-per-user:1000}") int maxRowsPerUser,
+                            @Value("${stats.cache.recheck-ms:1000}") long recheckMillis,
+                            @Value("${stats.cache.listen-recheck-ms:300000}") long listenRecheckMillis) {
+        this.userStatsRepository = userStatsRepository;
+        this.maxBytes = maxBytes;
+        this.maxRowsPerUser = Math.max(1, maxRowsPerUser);
+        this.recheckMillis = Math.max(0, recheckMillis);
+        this.listenRecheckMillis = Math.max(0, listenRecheckMillis);
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Newest measurement of a user
+     */
+    public Optional<UserStatsDTO> latest(UUID userId) {
+        if (maxBytes <= 0) {
+            return userStatsRepository.findNewest(userId, Limit.of(1)).stream().findFirst();
+        }
+        return Optional.ofNullable(window(userId).latest());
+    }
+
+    /**
+     * Measurements within [start, end], newest first, or null when the user's window does
+     * not reach back to start
+     */
+    public List<UserStatsDTO> range(UUID userId, LocalDateTime start, LocalDateTime end) {
+        if (maxBytes <= 0) {
+            return null;
+        }
+        return orFallback(window(userId).range(start, end));
+    }
+
+    /**
+     * One keyset page, newest first, of measurements strictly before (timestamp, id), or null
+     * when the page reaches past the user's window
+     */
+    public List<UserStatsDTO> pageBefore(UUID userId, MeasurementFilter filter, LocalDateTime timestamp, UUID id, int limit) {
+        if (maxBytes <= 0) {
+            return null;
+        }
+        return orFallback(window(userId).pageBefore(filter, timestamp, id, limit));
+    }
+
+    /**
+     * Add a measurement saved in the current transaction once it commits. A user without a
+     * window gets one loaded now, which already sees the new row.
+     */
+    public void recordAfterCommit(UUID userId, UserStatsDTO row) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        long stamp;
+        boolean cached;
+        synchronized (windows) {
+            stamp = stamps[stripe(userId)];
+            cached = windows.containsKey(userId);
+        }
+        MeasurementWindow preloaded = cached ? null : load(userId);
+        afterCommit(() -> {
+            synchronized (windows) {
+                int stripe = stripe(userId);
+                boolean unchanged = stamps[stripe] == stamp;
+                stamps[stripe]++;
+                MeasurementWindow window = windows.get(userId);
+                if (window != null) {
+                    window.insert(row, maxRowsPerUser);
+                    // The insert bumped the counter once; any other difference is another writer
+                    window.version++;
+                    charge(window);
+                } else if (preloaded != null && unchanged) {
+                    install(userId, preloaded);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop the user's window once the current transaction commits
+     */
+    public void invalidateAfterCommit(UUID userId) {
+        afterCommit(() -> invalidate(userId));
+    }
+
+    public void invalidate(UUID userId) {
+        synchronized (windows) {
+            stamps[stripe(userId)]++;
+            MeasurementWindow window = windows.remove(userId);
+            if (window != null) {
+                bytes -= window.chargedBytes;
+            }
+        }
+    }
+
+    /**
+     * Drop the user's window if a committed change moved their counter past it. The stamp
+     * moves either way, so a load that read the counter before that commit is not installed.
+     */
+    void versionChanged(UUID userId, long version) {
+        synchronized (windows) {
+            MeasurementWindow window = windows.get(userId);
+            if (window != null && window.version >= version) {
+                return;
+            }
+            stamps[stripe(userId)]++;
+            if (window != null) {
+                windows.remove(userId);
+                bytes -= window.chargedBytes;
+                notifiedInvalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Switch between notified invalidation and polling the counter. Changes committed while
+     * nobody listened were never announced, so starting to listen drops every window.
+     */
+    void setListening(boolean listening) {
+        if (listening) {
+            clear();
+        }
+        this.listening = listening;
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Drop every window, for changes that are not tied to one user
+     */
+    public void clear() {
+        synchronized (windows) {
+            for (int i = 0; i < STRIPES; i++) {
+                stamps[i]++;
+            }
+            windows.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Log how many reads were served from memory without touching the database
+     */
+    @Scheduled(fixedDelayString = "${stats.cache.report-interval-ms:300000}",
+               initialDelayString = "${stats.cache.report-interval-ms:300000}")
+    public void report() {
+        long served = hits.sum();
+        long reads = served + revalidations.sum() + misses.sum() + reloads.sum();
+        if (maxBytes <= 0 || reads == 0) {
+            return;
+        }
+        logger.info("Measurement cache served {}% of {} reads without a query ({} revalidated, {} loaded, {} reloaded, "
+                + "{} notified invalidations, {} fallbacks, {} evictions); {} windows using {} bytes, {}",
+            String.format("%.1f", 100.0 * served / reads), reads, revalidations.sum(), misses.sum(), reloads.sum(),
+            notifiedInvalidations.sum(), fallbacks.sum(), evictions.sum(), size(), getBytes(),
+            listening ? "listening for changes" : "polling for changes");
+    }
+
+    /** Reads served from memory without a query */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** Reads served from memory after comparing the counter with the database */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Reads that reached past a window and went to the database */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /** Windows loaded again because the user's rows changed outside this instance */
+    public long getReloads() {
+        return reloads.sum();
+    }
+
+    /** Windows dropped because another writer's commit was announced */
+    public long getNotifiedInvalidations() {
+        return notifiedInvalidations.sum();
+    }
+
+    public int size() {
+        synchronized (windows) {
+            return windows.size();
+        }
+    }
+
+    public long getBytes() {
+        synchronized (windows) {
+            return bytes;
+        }
+    }
+
+    private MeasurementWindow window(UUID userId) {
+        long stamp;
+        MeasurementWindow cached;
+        long now = System.currentTimeMillis();
+        long recheck = listening ? listenRecheckMillis : recheckMillis;
+        synchronized (windows) {
+            cached = windows.get(userId);
+            if (cached != null && now - cached.checkedAt < recheck) {
+                hits.increment();
+                return cached;
+            }
+            stamp = stamps[stripe(userId)];
+        }
+        if (cached != null) {
+            long version = userStatsRepository.findStatsVersion(userId);
+            synchronized (windows) {
+                if (windows.get(userId) == cached && cached.version == version) {
+                    cached.checkedAt = now;
+                    revalidations.increment();
+                    return cached;
+                }
+            }
+            reloads.increment();
+        } else {
+            misses.increment();
+        }
+        MeasurementWindow loaded = load(userId);
+        synchronized (windows) {
+            MeasurementWindow window = windows.get(userId);
+            if (window != null && window != cached) {
+                return window;
+            }
+            if (stamps[stripe(userId)] == stamp) {
+                install(userId, loaded);
+            } else if (window != null) {
+                // A local write raced the reload; drop the stale window and let the next read load it
+                windows.remove(userId);
+                bytes -= window.chargedBytes;
+            }
+        }
+        return loaded;
+    }
+
+    // One more row than the window holds tells whether older rows exist. The version is read
+    // first, so a write landing between the two queries shows up as a mismatch on the next check.
+    private MeasurementWindow load(UUID userId) {
+        long version = userStatsRepository.findStatsVersion(userId);
+        List<UserStatsDTO> rows = userStatsRepository.findNewest(userId, Limit.of(maxRowsPerUser + 1));
+        boolean complete = rows.size() <= maxRowsPerUser;
+        MeasurementWindow window = new MeasurementWindow(complete ? rows : rows.subList(0, maxRowsPerUser), complete);
+        window.version = version;
+        window.checkedAt = System.currentTimeMillis();
+        return window;
+    }
+
+    private void install(UUID userId, MeasurementWindow window) {
+        MeasurementWindow previous = windows.remove(userId);
+        if (previous != null) {
+            bytes -= previous.chargedBytes;
+        }
+        if (window.footprint() > maxBytes) {
+            return;
+        }
+        window.chargedBytes = 0;
+        windows.put(userId, window);
+        charge(window);
+    }
+
+    // Re-charge a window after it changed, then evict least recently used windows over budget
+    private void charge(MeasurementWindow window) {
+        long footprint = window.footprint();
+        bytes += footprint - window.chargedBytes;
+        window.chargedBytes = footprint;
+        Iterator<Map.Entry<UUID, MeasurementWindow>> eldest = windows.entrySet().iterator();
+        int evicted = 0;
+        while (bytes > maxBytes && eldest.hasNext()) {
+            MeasurementWindow candidate = eldest.next().getValue();
+            if (candidate == window) {
+                continue;
+            }
+            bytes -= candidate.chargedBytes;
+            eldest.remove();
+            evicted++;
+        }
+        if (evicted > 0) {
+            evictions.add(evicted);
+            logger.debug("Evicted {} measurement windows; {} cached using {} bytes", evicted, windows.size(), bytes);
+        }
+    }
+
+    private List<UserStatsDTO> orFallback(List<UserStatsDTO> rows) {
+        if (rows == null) {
+            fallbacks.increment();
+        }
+        return rows;
+    }
+
+    private static int stripe(UUID userId) {
+        return (userId.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
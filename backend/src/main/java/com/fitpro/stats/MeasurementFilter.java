@@ -0,0 +1,18 @@
+package com.fitpro.stats;
+
+/**
+ * Which measurements a stats listing includes
+ */
+public enum MeasurementFilter {
+    ALL,
+    WEIGHT,
+    BODY_FAT;
+
+    boolean accepts(double weight, double bodyFat) {
+        return switch (this) {
+            case ALL -> true;
+            case WEIGHT -> !Double.isNaN(weight);
+            case BODY_FAT -> !Double.isNaN(bodyFat);
+        };
+    }
+}
@@ -0,0 +1,230 @@
+package com.fitpro.stats;
+
+import com.fitpro.dto.UserStatsDTO;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A user's newest measurements as parallel primitive columns, oldest first and ordered by
+ * (measurement time, id) the way Postgres orders them. Missing values are stored as NaN.
+ * The window holds the newest rows of the user, so every row whose key is at or above the
+ * first one is present; older rows are only known to be absent when the window is complete.
+ */
+final class MeasurementWindow {
+    /** Bytes per row across the six columns */
+    static final int BYTES_PER_ROW = 6 * Long.BYTES;
+    /** Window object, six array headers, map entry and key, measured on a 64-bit JVM with compressed oops */
+    static final int FIXED_BYTES = 256;
+
+    private long[] micros;
+    private long[] idHigh;
+    private long[] idLow;
+    private double[] weights;
+    private double[] heights;
+    private double[] bodyFats;
+    private int size;
+    private boolean complete;
+    // Footprint last charged against the cache budget; maintained by MeasurementCache
+    long chargedBytes;
+    // user_stats_versions value the rows reflect and when it was last compared; maintained by MeasurementCache
+    long version;
+    long checkedAt;
+
+    /**
+     * @param newestFirst rows in (measurementDate, id) descending order, as loaded
+     * @param complete    whether these are all of the user's rows
+     */
+    MeasurementWindow(List<UserStatsDTO> newestFirst, boolean complete) {
+        int rows = newestFirst.size();
+        allocate(rows);
+        for (int i = 0; i < rows; i++) {
+            set(rows - 1 - i, newestFirst.get(i));
+        }
+        this.size = rows;
+        this.complete = complete;
+    }
+
+    synchronized long footprint() {
+        return FIXED_BYTES + (long) micros.length * BYTES_PER_ROW;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Insert a committed row at its position, dropping the oldest row once the window holds
+     * maxRows. Rows older than the window's first row are ignored when it is incomplete.
+     */
+    synchronized void insert(UserStatsDTO row, int maxRows) {
+        long time = toMicros(row.measurementDate());
+        UUID id = row.id();
+        if (!complete && size > 0 && compare(0, time, id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0) {
+            return;
+        }
+        int position = upperBound(time, id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (size >= maxRows) {
+            // Full: drop the oldest row, and with it the guarantee that nothing older exists
+            complete = false;
+            if (position > 0) {
+                shift(1, 0, position - 1);
+                set(position - 1, row);
+            }
+            return;
+        }
+        if (size == micros.length) {
+            grow(Math.min(maxRows, size + Math.max(4, size / 4)));
+        }
+        shift(position, position + 1, size - position);
+        set(position, row);
+        size++;
+    }
+
+    /**
+     * Newest row, or null when the user has no measurements
+     */
+    synchronized UserStatsDTO latest() {
+        return size > 0 ? get(size - 1) : null;
+    }
+
+    /**
+     * Rows measured within [start, end], newest first, or null when rows before the window
+     * could fall in the range
+     */
+    synchronized List<UserStatsDTO> range(LocalDateTime start, LocalDateTime end) {
+        long from = toMicros(start);
+        long to = toMicros(end);
+        if (!complete && (size == 0 || from <= micros[0])) {
+            return null;
+        }
+        List<UserStatsDTO> rows = new ArrayList<>();
+        for (int i = upperBound(to, -1L, -1L) - 1; i >= 0 && micros[i] >= from; i--) {
+            rows.add(get(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Up to limit rows strictly before (timestamp, id) in descending order that pass the
+     * filter, or null when the window runs out before the page is full and older rows
+     * could exist
+     */
+    synchronized List<UserStatsDTO> pageBefore(MeasurementFilter filter, LocalDateTime timestamp, UUID id, int limit) {
+        List<UserStatsDTO> rows = new ArrayList<>(Math.min(limit, size));
+        int i = lowerBound(toMicros(timestamp), id.getMostSignificantBits(), id.getLeastSignificantBits()) - 1;
+        for (; i >= 0 && rows.size() < limit; i--) {
+            if (filter.accepts(weights[i], bodyFats[i])) {
+                rows.add(get(i));
+            }
+        }
+        if (rows.size() < limit && !complete) {
+            return null;
+        }
+        return rows;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000L), time.getNano() / 1_000);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    // First index whose key is at or above the given one
+    private int lowerBound(long time, long high, long low) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, time, high, low) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First index whose key is above the given one
+    private int upperBound(long time, long high, long low) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, time, high, low) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Postgres compares uuids bytewise, which is an unsigned comparison of the two halves
+    private int compare(int index, long time, long high, long low) {
+        int result = Long.compare(micros[index], time);
+        if (result == 0) {
+            result = Long.compareUnsigned(idHigh[index], high);
+        }
+        if (result == 0) {
+            result = Long.compareUnsigned(idLow[index], low);
+        }
+        return result;
+    }
+
+    private UserStatsDTO get(int index) {
+        return new UserStatsDTO(new UUID(idHigh[index], idLow[index]), boxed(weights[index]),
+            boxed(heights[index]), boxed(bodyFats[index]), fromMicros(micros[index]));
+    }
+
+    private void set(int index, UserStatsDTO row) {
+        micros[index] = toMicros(row.measurementDate());
+        idHigh[index] = row.id().getMostSignificantBits();
+        idLow[index] = row.id().getLeastSignificantBits();
+        weights[index] = unboxed(row.weight());
+        heights[index] = unboxed(row.height());
+        bodyFats[index] = unboxed(row.bodyFatPercentage());
+    }
+
+    private void allocate(int capacity) {
+        micros = new long[capacity];
+        idHigh = new long[capacity];
+        idLow = new long[capacity];
+        weights = new double[capacity];
+        heights = new double[capacity];
+        bodyFats = new double[capacity];
+    }
+
+    private void grow(int capacity) {
+        micros = Arrays.copyOf(micros, capacity);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        bodyFats = Arrays.copyOf(bodyFats, capacity);
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(micros, from, micros, to, length);
+        System.arraycopy(idHigh, from, idHigh, to, length);
+        System.arraycopy(idLow, from, idLow, to, length);
+        System.arraycopy(weights, from, weights, to, length);
+        System.arraycopy(heights, from, heights, to, length);
+        System.arraycopy(bodyFats, from, bodyFats, to, length);
+    }
+
+    private static double unboxed(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
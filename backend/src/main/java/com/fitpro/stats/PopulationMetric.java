@@ -0,0 +1,20 @@
+package com.fitpro.stats;
+
+/**
+ * Per-user values summarized across the population
+ */
+public enum PopulationMetric {
+    WEEKLY_MINUTES("weeklyMinutes"),
+    WEEKLY_WORKOUTS("weeklyWorkouts"),
+    BMI("bmi");
+
+    private final String key;
+
+    PopulationMetric(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
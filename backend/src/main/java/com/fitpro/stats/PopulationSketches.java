@@ -0,0 +1,23 @@
+package com.fitpro.stats;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the latest population snapshot. Readers get whichever snapshot was published last
+ * and never wait for a build.
+ */
+@Component
+public class PopulationSketches {
+    private volatile PopulationSnapshot snapshot;
+
+    /**
+     * The latest snapshot, or null before the first build has finished
+     */
+    public PopulationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void publish(PopulationSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+}
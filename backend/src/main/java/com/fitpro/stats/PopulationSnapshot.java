@@ -0,0 +1,38 @@
+package com.fitpro.stats;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Quantile tables of every population metric per cohort, as of one build. Training metrics
+ * cover the complete weeks in [windowStart, windowEnd) and only users who trained in them.
+ *
+ * @param cohorts tables indexed by PopulationMetric ordinal, keyed by cohortKey and ALL
+ */
+public record PopulationSnapshot(
+    LocalDateTime builtAt,
+    LocalDate windowStart,
+    LocalDate windowEnd,
+    Map<String, KllSketch.QuantileTable[]> cohorts
+) {
+    public static final String ALL = "all";
+    private static final String UNKNOWN = "unknown";
+
+    /**
+     * Cohort of a user by fitness level and gender, e.g. "beginner/female"
+     */
+    public static String cohortKey(String fitnessLevel, String gender) {
+        return normalize(fitnessLevel) + "/" + normalize(gender);
+    }
+
+    public KllSketch.QuantileTable table(String cohort, PopulationMetric metric) {
+        KllSketch.QuantileTable[] tables = cohorts.get(cohort);
+        return tables != null ? tables[metric.ordinal()] : null;
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
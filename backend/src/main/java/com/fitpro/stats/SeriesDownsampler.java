@@ -0,0 +1,151 @@
+package com.fitpro.stats;
+
+import java.util.Arrays;
+
+/**
+ * Streaming Largest-Triangle-Three-Buckets downsampling. Points are fed in time order and
+ * the total count must be known up front; only the two buckets around the current position
+ * are buffered, so memory is bounded by the bucket width rather than the series length.
+ * The first and last points are always kept, and each bucket in between contributes the
+ * point that forms the largest triangle with the previously kept point and the average of
+ * the next bucket, which preserves peaks and troughs that plain averaging flattens.
+ */
+public final class SeriesDownsampler {
+    public static final int MIN_POINTS = 3;
+
+    private final int total;
+    private final int maxPoints;
+    private final boolean downsampling;
+    private final long[] times;
+    private final double[] values;
+    private int size;
+    private int index;
+
+    // Last kept point, the "A" corner of every triangle
+    private long anchorTime;
+    private double anchorValue;
+    // Bucket waiting for the next one to complete, and the bucket being filled
+    private Bucket pending;
+    private Bucket filling;
+
+    /**
+     * Sampled series as parallel arrays of epoch millis and values
+     */
+    public record Series(long[] times, double[] values) {
+    }
+
+    public SeriesDownsampler(int total, int maxPoints) {
+        if (maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be at least " + MIN_POINTS);
+        }
+        this.total = Math.max(total, 0);
+        this.maxPoints = maxPoints;
+        this.downsampling = this.total > maxPoints;
+        int capacity = Math.min(this.total, maxPoints);
+        this.times = new long[capacity];
+        this.values = new double[capacity];
+        if (downsampling) {
+            // Buckets hold (total - 2) / (maxPoints - 2) points, rounded up
+            int width = (this.total - 2 + maxPoints - 3) / (maxPoints - 2);
+            this.filling = new Bucket(0, width);
+            this.pending = new Bucket(-1, width);
+        }
+    }
+
+    public void add(long time, double value) {
+        int position = index++;
+        if (position >= total) {
+            throw new IllegalStateException("More points than the " + total + " announced");
+        }
+        if (!downsampling || position == 0) {
+            append(time, value);
+            anchorTime = time;
+            anchorValue = value;
+            return;
+        }
+        while (position >= bucketStart(filling.id + 1)) {
+            // The filling bucket is complete: it supplies the average for the pending one
+            if (pending.id >= 0) {
+                selectFrom(pending, filling);
+            }
+            Bucket completed = filling;
+            filling = pending;
+            filling.reset(completed.id + 1);
+            pending = completed;
+        }
+        filling.add(time, value);
+    }
+
+    public Series finish() {
+        if (index != total) {
+            throw new IllegalStateException("Expected " + total + " points but got " + index);
+        }
+        if (downsampling) {
+            // The last bucket holds only the final point, which is always kept
+            selectFrom(pending, filling);
+            append(filling.times[0], filling.values[0]);
+        }
+        return new Series(size == times.length ? times : Arrays.copyOf(times, size),
+            size == values.length ? values : Arrays.copyOf(values, size));
+    }
+
+    // Middle bucket b covers positions [bucketStart(b), bucketStart(b + 1)); bucket
+    // maxPoints - 2 starts at the final point. Integer math keeps the edges exact.
+    private int bucketStart(int bucket) {
+        return (int) ((long) bucket * (total - 2) / (maxPoints - 2)) + 1;
+    }
+
+    private void selectFrom(Bucket bucket, Bucket next) {
+        double averageTime = next.timeSum / next.count;
+        double averageValue = next.valueSum / next.count;
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < bucket.count; i++) {
+            double area = Math.abs((anchorTime - averageTime) * (bucket.values[i] - anchorValue)
+                - (anchorTime - bucket.times[i]) * (averageValue - anchorValue));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        append(bucket.times[best], bucket.values[best]);
+        anchorTime = bucket.times[best];
+        anchorValue = bucket.values[best];
+    }
+
+    private void append(long time, double value) {
+        times[size] = time;
+        values[size] = value;
+        size++;
+    }
+
+    private static final class Bucket {
+        private final long[] times;
+        private final double[] values;
+        private int id;
+        private int count;
+        private double timeSum;
+        private double valueSum;
+
+        Bucket(int id, int capacity) {
+            this.times = new long[capacity];
+            this.values = new double[capacity];
+            this.id = id;
+        }
+
+        void add(long time, double value) {
+            times[count] = time;
+            values[count] = value;
+            count++;
+            timeSum += time;
+            valueSum += value;
+        }
+
+        void reset(int newId) {
+            id = newId;
+            count = 0;
+            timeSum = 0;
+            valueSum = 0;
+        }
+    }
+}
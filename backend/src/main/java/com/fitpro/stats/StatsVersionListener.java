@@ -0,0 +1,119 @@
+package com.fitpro.stats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Listens for user_stats_versions changes announced by the database and passes them to
+ * {@link MeasurementCache}, so windows other writers made stale are dropped without reads
+ * querying the counter. Holds one connection of its own outside the pool; while it is down
+ * the cache goes back to comparing counters every recheck-ms.
+ */
+@Component
+public class StatsVersionListener {
+    private static final Logger logger = LoggerFactory.getLogger(StatsVersionListener.class);
+    static final String CHANNEL = "user_stats_versions";
+
+    private final MeasurementCache measurementCache;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+    private final long reconnectMillis;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public StatsVersionListener(MeasurementCache measurementCache,
+                                @Value("${spring.datasource.url}") String url,
+                                @Value("${spring.datasource.username}") String username,
+                                @Value("${spring.datasource.password}") String password,
+                                @Value("${stats.cache.listen.enabled:true}") boolean enabled,
+                                @Value("${stats.cache.listen.reconnect-ms:5000}") long reconnectMillis) {
+        this.measurementCache = measurementCache;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled;
+        this.reconnectMillis = Math.max(100, reconnectMillis);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled || !measurementCache.isEnabled()) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "stats-version-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(2000);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                measurementCache.setListening(true);
+                logger.info("Listening for measurement changes on {}", CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    // Waits up to a second, so stop() is noticed without closing the socket under it
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    logger.warn("Lost the measurement change listener, polling versions until it reconnects", e);
+                }
+            } finally {
+                measurementCache.setListening(false);
+            }
+            if (running) {
+                try {
+                    Thread.sleep(reconnectMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Payload is '<user id>:<version>'
+    private void apply(String payload) {
+        int separator = payload.lastIndexOf(':');
+        try {
+            measurementCache.versionChanged(UUID.fromString(payload.substring(0, separator)),
+                Long.parseLong(payload.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed measurement change '{}'", payload);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- workout_history.muscle_group is now written with each row instead of being derived from
+-- the workout name on every read.
+
+-- findPageBefore, findSummary and the other DTO projections read muscle_group in place of
+-- joining workouts; replaces the V6 index of the same name so they stay index-only
+DROP INDEX IF EXISTS idx_workout_history_user_completed;
+CREATE INDEX IF NOT EXISTS idx_workout_history_user_completed
+    ON workout_history (user_id, completed_at DESC, history_id DESC)
+    INCLUDE (muscle_group, duration_minutes, calories_burned);
+
+-- MuscleGroupBackfillJob walks this in history_id order; it empties as rows are classified,
+-- so the startup check is free once the backfill has finished
+CREATE INDEX IF NOT EXISTS idx_workout_history_unclassified
+    ON workout_history (history_id)
+    WHERE muscle_group IS NULL AND workout_id IS NOT NULL;
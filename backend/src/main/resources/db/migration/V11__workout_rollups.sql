@@ -0,0 +1,22 @@
+-- Per-user training totals at day, week (ISO, starting Monday) and month grain, maintained
+-- incrementally as workouts are saved. Archived workouts stay counted.
+CREATE TABLE IF NOT EXISTS workout_rollups (
+    user_id UUID NOT NULL REFERENCES users(user_id),
+    grain VARCHAR(5) NOT NULL,
+    period_start DATE NOT NULL,
+    workouts INTEGER NOT NULL DEFAULT 0,
+    duration_minutes BIGINT NOT NULL DEFAULT 0,
+    calories_burned BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, grain, period_start)
+);
+
+-- Workout count per muscle group for the same periods; workouts without a muscle group
+-- only appear in workout_rollups
+CREATE TABLE IF NOT EXISTS workout_rollup_muscle_groups (
+    user_id UUID NOT NULL REFERENCES users(user_id),
+    grain VARCHAR(5) NOT NULL,
+    period_start DATE NOT NULL,
+    muscle_group VARCHAR(50) NOT NULL,
+    workouts INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, grain, period_start, muscle_group)
+);
@@ -0,0 +1,26 @@
+-- Rolling body composition state per user, advanced on every recorded measurement so
+-- insights are read without scanning user_stats. EMA columns hold the time-decayed mean
+-- and the total decayed weight behind it; the trend columns are the decayed least squares
+-- sums of (days before the last weigh-in, weight).
+CREATE TABLE IF NOT EXISTS stats_insights (
+    user_id UUID PRIMARY KEY REFERENCES users(user_id),
+    weight_samples BIGINT NOT NULL DEFAULT 0,
+    last_weight DOUBLE PRECISION,
+    last_weight_at TIMESTAMP,
+    ema_7 DOUBLE PRECISION,
+    ema_7_weight DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ema_30 DOUBLE PRECISION,
+    ema_30_weight DOUBLE PRECISION NOT NULL DEFAULT 0,
+    trend_n DOUBLE PRECISION NOT NULL DEFAULT 0,
+    trend_t DOUBLE PRECISION NOT NULL DEFAULT 0,
+    trend_y DOUBLE PRECISION NOT NULL DEFAULT 0,
+    trend_tt DOUBLE PRECISION NOT NULL DEFAULT 0,
+    trend_ty DOUBLE PRECISION NOT NULL DEFAULT 0,
+    last_height DOUBLE PRECISION,
+    last_height_at TIMESTAMP,
+    last_body_fat DOUBLE PRECISION,
+    last_body_fat_at TIMESTAMP
+);
+
+-- Active goal lookup for the goal projection
+CREATE INDEX IF NOT EXISTS idx_goals_user_active ON goals (user_id) WHERE completed IS NOT TRUE;
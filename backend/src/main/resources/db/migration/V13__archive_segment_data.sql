@@ -0,0 +1,5 @@
+-- Segments are stored in the database, so every instance can read them and they survive
+-- redeploys. file_name is only set on segments written as files by earlier versions; the
+-- archive job copies those into data while the files are still readable.
+ALTER TABLE workout_archive_segments ADD COLUMN IF NOT EXISTS data BYTEA;
+ALTER TABLE workout_archive_segments ALTER COLUMN file_name DROP NOT NULL;
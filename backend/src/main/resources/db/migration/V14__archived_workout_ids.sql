@@ -0,0 +1,8 @@
+-- Ids of workouts moved into archive segments. Segments do not keep ids, and archival
+-- writes no tombstones, so sync pushes are checked against this table to keep a client
+-- from re-inserting a workout that is already counted in the archive.
+CREATE TABLE IF NOT EXISTS workout_archive_ids (
+    history_id UUID PRIMARY KEY,
+    user_id UUID REFERENCES users(user_id) NOT NULL,
+    segment_id UUID REFERENCES workout_archive_segments(segment_id) NOT NULL
+);
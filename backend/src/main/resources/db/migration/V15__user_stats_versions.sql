@@ -0,0 +1,29 @@
+-- Per-user change counter for user_stats. Instances cache each user's newest measurements
+-- in memory and compare the counter they loaded with this one before serving them, so a
+-- write through any instance, sync or SQL is seen everywhere. Users without a row have
+-- version 0.
+CREATE TABLE IF NOT EXISTS user_stats_versions (
+    user_id UUID PRIMARY KEY REFERENCES users(user_id) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- One bump per row, so an instance that inserted a single row can advance its own copy by one
+CREATE OR REPLACE FUNCTION bump_user_stats_version() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.user_id IS NOT NULL THEN
+        INSERT INTO user_stats_versions (user_id, version) VALUES (OLD.user_id, 1)
+        ON CONFLICT (user_id) DO UPDATE SET version = user_stats_versions.version + 1;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.user_id IS DISTINCT FROM OLD.user_id) THEN
+        IF NEW.user_id IS NOT NULL THEN
+            INSERT INTO user_stats_versions (user_id, version) VALUES (NEW.user_id, 1)
+            ON CONFLICT (user_id) DO UPDATE SET version = user_stats_versions.version + 1;
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS user_stats_version ON user_stats;
+CREATE TRIGGER user_stats_version AFTER INSERT OR UPDATE OR DELETE ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION bump_user_stats_version();
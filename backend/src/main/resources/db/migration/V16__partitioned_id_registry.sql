@@ -0,0 +1,92 @@
+-- Partitioned tables can only enforce keys that include the partition column, so since V7 a
+-- workout or measurement id could exist twice with different dates, and exercise rows lost
+-- their foreign key to workout_history. This registry holds one row per id and its primary
+-- key is what rejects a duplicate; concurrent inserts of the same id wait on each other
+-- through it. Rows moved by ensure_monthly_partition() or archival run with
+-- fitpro.skip_tombstones on and keep their registry entry.
+CREATE TABLE IF NOT EXISTS partitioned_row_ids (
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id UUID NOT NULL,
+    PRIMARY KEY (entity_type, entity_id)
+);
+
+INSERT INTO partitioned_row_ids (entity_type, entity_id)
+SELECT DISTINCT 'workout', history_id FROM workout_history
+ON CONFLICT DO NOTHING;
+INSERT INTO partitioned_row_ids (entity_type, entity_id)
+SELECT DISTINCT 'stats', stat_id FROM user_stats
+ON CONFLICT DO NOTHING;
+
+-- Arguments: entity type, partitioned parent table, id column. Row triggers fire on the
+-- partition, so lookups go through the parent named in the arguments. An existing entry is
+-- only a duplicate if another row still carries the id; an update moving a row across
+-- partitions, or an id left behind by archival, is not.
+CREATE OR REPLACE FUNCTION claim_partitioned_id() RETURNS trigger AS $$
+DECLARE
+    id uuid := (to_jsonb(NEW) ->> TG_ARGV[2])::uuid;
+    live bigint;
+BEGIN
+    INSERT INTO partitioned_row_ids (entity_type, entity_id) VALUES (TG_ARGV[0], id)
+    ON CONFLICT DO NOTHING;
+    IF NOT FOUND THEN
+        EXECUTE format('SELECT count(*) FROM %I WHERE %I = $1', TG_ARGV[1], TG_ARGV[2])
+            INTO live USING id;
+        IF live > 1 THEN
+            RAISE EXCEPTION 'duplicate % id %', TG_ARGV[0], id USING ERRCODE = 'unique_violation';
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION release_partitioned_id() RETURNS trigger AS $$
+DECLARE
+    id uuid := (to_jsonb(OLD) ->> TG_ARGV[2])::uuid;
+    live boolean;
+BEGIN
+    IF current_setting('fitpro.skip_tombstones', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I = $1)', TG_ARGV[1], TG_ARGV[2])
+        INTO live USING id;
+    IF NOT live THEN
+        DELETE FROM partitioned_row_ids WHERE entity_type = TG_ARGV[0] AND entity_id = id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Stands in for the ON DELETE CASCADE exercise rows had before V7, so no code path can leave
+-- them behind. Archival deletes the exercises it copied into a segment itself.
+CREATE OR REPLACE FUNCTION delete_workout_exercises() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('fitpro.skip_tombstones', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM workout_history WHERE history_id = OLD.history_id) THEN
+        DELETE FROM workout_history_exercises WHERE history_id = OLD.history_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS workout_history_claim_id ON workout_history;
+CREATE TRIGGER workout_history_claim_id AFTER INSERT ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION claim_partitioned_id('workout', 'workout_history', 'history_id');
+DROP TRIGGER IF EXISTS workout_history_release_id ON workout_history;
+CREATE TRIGGER workout_history_release_id AFTER DELETE ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION release_partitioned_id('workout', 'workout_history', 'history_id');
+DROP TRIGGER IF EXISTS workout_history_delete_exercises ON workout_history;
+CREATE TRIGGER workout_history_delete_exercises AFTER DELETE ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION delete_workout_exercises();
+
+DROP TRIGGER IF EXISTS user_stats_claim_id ON user_stats;
+CREATE TRIGGER user_stats_claim_id AFTER INSERT ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION claim_partitioned_id('stats', 'user_stats', 'stat_id');
+DROP TRIGGER IF EXISTS user_stats_release_id ON user_stats;
+CREATE TRIGGER user_stats_release_id AFTER DELETE ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION release_partitioned_id('stats', 'user_stats', 'stat_id');
+
+-- Exercise rows whose workout was deleted before this migration
+DELETE FROM workout_history_exercises e
+WHERE NOT EXISTS (SELECT 1 FROM workout_history h WHERE h.history_id = e.history_id);
@@ -0,0 +1,5 @@
+-- Segments are files again, read through memory mappings from archive.directory, which
+-- must be shared by every instance. The NOT NULL check runs first, so a database holding
+-- segments that only exist in the data column fails here instead of losing them.
+ALTER TABLE workout_archive_segments ALTER COLUMN file_name SET NOT NULL;
+ALTER TABLE workout_archive_segments DROP COLUMN IF EXISTS data;
@@ -0,0 +1,14 @@
+-- Announce every user_stats_versions change as '<user id>:<version>' on the
+-- user_stats_versions channel. Instances listening there drop a cached measurement window
+-- as soon as another writer's commit moves the counter past it, instead of querying the
+-- counter on reads. Notifications are only delivered once the writing transaction commits.
+CREATE OR REPLACE FUNCTION notify_user_stats_version() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('user_stats_versions', NEW.user_id::text || ':' || NEW.version);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS user_stats_versions_notify ON user_stats_versions;
+CREATE TRIGGER user_stats_versions_notify AFTER INSERT OR UPDATE ON user_stats_versions
+    FOR EACH ROW EXECUTE FUNCTION notify_user_stats_version();
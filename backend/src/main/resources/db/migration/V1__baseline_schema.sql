@@ -122,4 +122,4 @@ CREATE TABLE IF NOT EXISTS social_connections (
     status VARCHAR(20),
     connected_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (user_id, friend_id)
-);
\ No newline at end of file
+);
@@ -0,0 +1,2 @@
+-- Bumped on every profile change so self-contained access tokens can be checked for staleness
+ALTER TABLE users ADD COLUMN IF NOT EXISTS profile_version BIGINT NOT NULL DEFAULT 0;
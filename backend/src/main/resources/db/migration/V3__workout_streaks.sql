@@ -0,0 +1,8 @@
+-- Per-user streak state and workout count maintained on every saved workout
+CREATE TABLE IF NOT EXISTS workout_streaks (
+    user_id UUID PRIMARY KEY REFERENCES users(user_id),
+    current_streak INTEGER NOT NULL DEFAULT 0,
+    longest_streak INTEGER NOT NULL DEFAULT 0,
+    last_active_day DATE,
+    total_workouts BIGINT NOT NULL DEFAULT 0
+);
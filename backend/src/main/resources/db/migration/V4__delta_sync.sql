@@ -0,0 +1,75 @@
+-- Delta sync: rows are stamped with the id of the transaction that last wrote them, and
+-- deletes leave a tombstone, so clients can fetch everything changed since a snapshot
+ALTER TABLE workout_history ADD COLUMN IF NOT EXISTS change_xid BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_stats ADD COLUMN IF NOT EXISTS change_xid BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS sync_tombstones (
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    change_xid BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (entity_type, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_tombstones_user_change ON sync_tombstones (user_id, change_xid);
+
+CREATE OR REPLACE FUNCTION stamp_change_xid() RETURNS trigger AS $$
+BEGIN
+    NEW.change_xid := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- TG_ARGV: entity type, primary key column
+CREATE OR REPLACE FUNCTION record_sync_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO sync_tombstones (entity_type, entity_id, user_id, change_xid)
+    VALUES (TG_ARGV[0], (to_jsonb(OLD) ->> TG_ARGV[1])::uuid, OLD.user_id, pg_current_xact_id()::text::bigint)
+    ON CONFLICT (entity_type, entity_id) DO UPDATE
+        SET user_id = EXCLUDED.user_id, change_xid = EXCLUDED.change_xid, deleted_at = CURRENT_TIMESTAMP;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION clear_sync_tombstone() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM sync_tombstones
+    WHERE entity_type = TG_ARGV[0] AND entity_id = (to_jsonb(NEW) ->> TG_ARGV[1])::uuid AND user_id = NEW.user_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS workout_history_stamp_change ON workout_history;
+CREATE TRIGGER workout_history_stamp_change BEFORE INSERT OR UPDATE ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_xid();
+DROP TRIGGER IF EXISTS workout_history_tombstone ON workout_history;
+CREATE TRIGGER workout_history_tombstone AFTER DELETE ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone('workout', 'history_id');
+DROP TRIGGER IF EXISTS workout_history_untombstone ON workout_history;
+CREATE TRIGGER workout_history_untombstone AFTER INSERT ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION clear_sync_tombstone('workout', 'history_id');
+
+-- Exercise rows belong to their workout for sync purposes, so changing them re-stamps the parent
+CREATE OR REPLACE FUNCTION stamp_parent_workout_change() RETURNS trigger AS $$
+BEGIN
+    UPDATE workout_history SET change_xid = pg_current_xact_id()::text::bigint
+    WHERE history_id = COALESCE(NEW.history_id, OLD.history_id)
+      AND change_xid <> pg_current_xact_id()::text::bigint;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS workout_history_exercises_stamp_parent ON workout_history_exercises;
+CREATE TRIGGER workout_history_exercises_stamp_parent AFTER INSERT OR UPDATE OR DELETE ON workout_history_exercises
+    FOR EACH ROW EXECUTE FUNCTION stamp_parent_workout_change();
+
+DROP TRIGGER IF EXISTS user_stats_stamp_change ON user_stats;
+CREATE TRIGGER user_stats_stamp_change BEFORE INSERT OR UPDATE ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_xid();
+DROP TRIGGER IF EXISTS user_stats_tombstone ON user_stats;
+CREATE TRIGGER user_stats_tombstone AFTER DELETE ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone('stats', 'stat_id');
+DROP TRIGGER IF EXISTS user_stats_untombstone ON user_stats;
+CREATE TRIGGER user_stats_untombstone AFTER INSERT ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION clear_sync_tombstone('stats', 'stat_id');
@@ -0,0 +1,19 @@
+-- Time-ordered (version 7) UUIDs: 48-bit millisecond timestamp followed by random bits, so
+-- new keys append to the right edge of primary key indexes. Existing v4 keys remain valid.
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS uuid AS $$
+    SELECT encode(
+        set_bit(set_bit(
+            overlay(uuid_send(gen_random_uuid())
+                    PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                    FROM 1 FOR 6),
+            52, 1), 53, 1),
+        'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
+
+ALTER TABLE users ALTER COLUMN user_id SET DEFAULT uuid_generate_v7();
+ALTER TABLE user_stats ALTER COLUMN stat_id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workouts ALTER COLUMN workout_id SET DEFAULT uuid_generate_v7();
+ALTER TABLE exercises ALTER COLUMN exercise_id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workout_history ALTER COLUMN history_id SET DEFAULT uuid_generate_v7();
+ALTER TABLE goals ALTER COLUMN goal_id SET DEFAULT uuid_generate_v7();
+ALTER TABLE achievements ALTER COLUMN achievement_id SET DEFAULT uuid_generate_v7();
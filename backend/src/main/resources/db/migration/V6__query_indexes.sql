@@ -0,0 +1,40 @@
+-- Composite and partial indexes behind every WorkoutHistoryRepository and UserStatsRepository
+-- query. Each list, page, range, latest and count query is a range scan on (user, date, id);
+-- the INCLUDE columns let the DTO projections run as index-only scans.
+
+-- Replaces the earlier non-covering keyset indexes of the same name
+DROP INDEX IF EXISTS idx_workout_history_user_completed;
+DROP INDEX IF EXISTS idx_user_stats_user_measured;
+
+-- findByUserOrderByWorkoutDateDesc, findCompletedWorkoutsAfterDate, findPageBefore,
+-- findByUserAndWorkoutDateBetween..., findFirstByUserOrderByWorkoutDateDesc, findSummary,
+-- findActiveDays, countCompletedWorkouts, findUserIdsWithHistory
+CREATE INDEX IF NOT EXISTS idx_workout_history_user_completed
+    ON workout_history (user_id, completed_at DESC, history_id DESC)
+    INCLUDE (workout_id, duration_minutes, calories_burned);
+
+-- findChangedSince (delta sync)
+CREATE INDEX IF NOT EXISTS idx_workout_history_user_change
+    ON workout_history (user_id, change_xid);
+
+-- findFirstByUserOrderByMeasurementDateDesc, findByUserOrderByMeasurementDateDesc,
+-- findPageBefore, findByUserAndMeasurementDateBetween..., findRangeViews, findByUserAndMeasurementDate
+CREATE INDEX IF NOT EXISTS idx_user_stats_user_measured
+    ON user_stats (user_id, measurement_date DESC, stat_id DESC)
+    INCLUDE (weight, height, body_fat_percentage);
+
+-- findUserWeightProgress, findWeightProgressPageBefore
+CREATE INDEX IF NOT EXISTS idx_user_stats_user_weight
+    ON user_stats (user_id, measurement_date DESC, stat_id DESC)
+    INCLUDE (weight, height, body_fat_percentage)
+    WHERE weight IS NOT NULL;
+
+-- findUserBodyFatProgress, findBodyFatProgressPageBefore
+CREATE INDEX IF NOT EXISTS idx_user_stats_user_body_fat
+    ON user_stats (user_id, measurement_date DESC, stat_id DESC)
+    INCLUDE (weight, height, body_fat_percentage)
+    WHERE body_fat_percentage IS NOT NULL;
+
+-- findChangedSince (delta sync)
+CREATE INDEX IF NOT EXISTS idx_user_stats_user_change
+    ON user_stats (user_id, change_xid);
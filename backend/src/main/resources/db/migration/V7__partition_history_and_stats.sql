@@ -0,0 +1,177 @@
+-- Monthly range partitioning of workout_history (by completed_at) and user_stats (by
+-- measurement_date). Each table gets a default partition for out-of-range rows; monthly
+-- partitions are created ahead of time by PartitionMaintenanceJob through
+-- ensure_monthly_partition(). Primary keys must include the partition key, so ids are
+-- unique per (id, date) at the database level and the application serialises writes by id.
+
+-- Deletes that only move rows between partitions set fitpro.skip_tombstones so clients are
+-- not told to drop rows that still exist
+CREATE OR REPLACE FUNCTION record_sync_tombstone() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('fitpro.skip_tombstones', true) = 'on' THEN
+        RETURN OLD;
+    END IF;
+    INSERT INTO sync_tombstones (entity_type, entity_id, user_id, change_xid)
+    VALUES (TG_ARGV[0], (to_jsonb(OLD) ->> TG_ARGV[1])::uuid, OLD.user_id, pg_current_xact_id()::text::bigint)
+    ON CONFLICT (entity_type, entity_id) DO UPDATE
+        SET user_id = EXCLUDED.user_id, change_xid = EXCLUDED.change_xid, deleted_at = CURRENT_TIMESTAMP;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Create the partition of `parent` for the month starting at `month_start` unless it exists.
+-- Rows for that month already sitting in the default partition are moved into it first.
+CREATE OR REPLACE FUNCTION ensure_monthly_partition(parent text, month_start date) RETURNS boolean AS $$
+DECLARE
+    first_day date := date_trunc('month', month_start)::date;
+    next_month date := (date_trunc('month', month_start) + interval '1 month')::date;
+    part text := format('%s_p%s', parent, to_char(month_start, 'YYYYMM'));
+    key_column text;
+BEGIN
+    IF to_regclass(part) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    SELECT a.attname INTO key_column
+    FROM pg_partitioned_table pt
+    JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE pt.partrelid = parent::regclass;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part, parent);
+
+    IF to_regclass(parent || '_default') IS NOT NULL THEN
+        PERFORM set_config('fitpro.skip_tombstones', 'on', true);
+        EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= $1 AND %I < $2 RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved',
+                       parent || '_default', key_column, key_column, part)
+            USING first_day, next_month;
+        PERFORM set_config('fitpro.skip_tombstones', 'off', true);
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, part, first_day, next_month);
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- workout_history ------------------------------------------------------------------------
+
+ALTER TABLE workout_history RENAME TO workout_history_unpartitioned;
+ALTER TABLE workout_history_unpartitioned RENAME CONSTRAINT workout_history_pkey TO workout_history_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_workout_history_user_completed;
+DROP INDEX IF EXISTS idx_workout_history_user_change;
+
+CREATE TABLE workout_history (
+    history_id UUID NOT NULL DEFAULT uuid_generate_v7(),
+    workout_id UUID REFERENCES workouts(workout_id),
+    user_id UUID REFERENCES users(user_id) NOT NULL,
+    workout_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP NOT NULL,
+    muscle_group VARCHAR(50),
+    duration_minutes INTEGER,
+    calories_burned INTEGER,
+    is_completed BOOLEAN DEFAULT true,
+    change_xid BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (history_id, completed_at)
+) PARTITION BY RANGE (completed_at);
+
+CREATE TABLE workout_history_default PARTITION OF workout_history DEFAULT;
+
+DO $$
+DECLARE
+    month_start date;
+BEGIN
+    SELECT date_trunc('month', LEAST(MIN(COALESCE(completed_at, workout_date)), LOCALTIMESTAMP))::date
+    INTO month_start FROM workout_history_unpartitioned;
+    month_start := COALESCE(month_start, date_trunc('month', LOCALTIMESTAMP)::date);
+    WHILE month_start <= (date_trunc('month', LOCALTIMESTAMP) + interval '3 months')::date LOOP
+        PERFORM ensure_monthly_partition('workout_history', month_start);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO workout_history (history_id, workout_id, user_id, workout_date, completed_at, muscle_group,
+                             duration_minutes, calories_burned, is_completed, change_xid)
+SELECT history_id, workout_id, user_id, workout_date, COALESCE(completed_at, workout_date), muscle_group,
+       duration_minutes, calories_burned, is_completed, change_xid
+FROM workout_history_unpartitioned;
+
+-- A foreign key to a partitioned table would have to include completed_at; exercise rows are
+-- removed by the application together with their workout instead
+ALTER TABLE workout_history_exercises DROP CONSTRAINT IF EXISTS workout_history_exercises_history_id_fkey;
+DROP TABLE workout_history_unpartitioned;
+
+CREATE INDEX idx_workout_history_user_completed
+    ON workout_history (user_id, completed_at DESC, history_id DESC)
+    INCLUDE (workout_id, duration_minutes, calories_burned);
+CREATE INDEX idx_workout_history_user_change ON workout_history (user_id, change_xid);
+
+CREATE TRIGGER workout_history_stamp_change BEFORE INSERT OR UPDATE ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_xid();
+CREATE TRIGGER workout_history_tombstone AFTER DELETE ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone('workout', 'history_id');
+CREATE TRIGGER workout_history_untombstone AFTER INSERT ON workout_history
+    FOR EACH ROW EXECUTE FUNCTION clear_sync_tombstone('workout', 'history_id');
+
+-- user_stats -----------------------------------------------------------------------------
+
+ALTER TABLE user_stats RENAME TO user_stats_unpartitioned;
+ALTER TABLE user_stats_unpartitioned RENAME CONSTRAINT user_stats_pkey TO user_stats_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_user_stats_user_measured;
+DROP INDEX IF EXISTS idx_user_stats_user_weight;
+DROP INDEX IF EXISTS idx_user_stats_user_body_fat;
+DROP INDEX IF EXISTS idx_user_stats_user_change;
+
+CREATE TABLE user_stats (
+    stat_id UUID NOT NULL DEFAULT uuid_generate_v7(),
+    user_id UUID REFERENCES users(user_id),
+    weight FLOAT,
+    height FLOAT,
+    body_fat_percentage FLOAT,
+    measurement_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    change_xid BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (stat_id, measurement_date)
+) PARTITION BY RANGE (measurement_date);
+
+CREATE TABLE user_stats_default PARTITION OF user_stats DEFAULT;
+
+DO $$
+DECLARE
+    month_start date;
+BEGIN
+    SELECT date_trunc('month', LEAST(MIN(measurement_date), LOCALTIMESTAMP))::date
+    INTO month_start FROM user_stats_unpartitioned;
+    month_start := COALESCE(month_start, date_trunc('month', LOCALTIMESTAMP)::date);
+    WHILE month_start <= (date_trunc('month', LOCALTIMESTAMP) + interval '3 months')::date LOOP
+        PERFORM ensure_monthly_partition('user_stats', month_start);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO user_stats (stat_id, user_id, weight, height, body_fat_percentage, measurement_date, change_xid)
+SELECT stat_id, user_id, weight, height, body_fat_percentage, COALESCE(measurement_date, LOCALTIMESTAMP), change_xid
+FROM user_stats_unpartitioned;
+
+DROP TABLE user_stats_unpartitioned;
+
+CREATE INDEX idx_user_stats_user_measured
+    ON user_stats (user_id, measurement_date DESC, stat_id DESC)
+    INCLUDE (weight, height, body_fat_percentage);
+CREATE INDEX idx_user_stats_user_weight
+    ON user_stats (user_id, measurement_date DESC, stat_id DESC)
+    INCLUDE (weight, height, body_fat_percentage)
+    WHERE weight IS NOT NULL;
+CREATE INDEX idx_user_stats_user_body_fat
+    ON user_stats (user_id, measurement_date DESC, stat_id DESC)
+    INCLUDE (weight, height, body_fat_percentage)
+    WHERE body_fat_percentage IS NOT NULL;
+CREATE INDEX idx_user_stats_user_change ON user_stats (user_id, change_xid);
+
+CREATE TRIGGER user_stats_stamp_change BEFORE INSERT OR UPDATE ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_xid();
+CREATE TRIGGER user_stats_tombstone AFTER DELETE ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION record_sync_tombstone('stats', 'stat_id');
+CREATE TRIGGER user_stats_untombstone AFTER INSERT ON user_stats
+    FOR EACH ROW EXECUTE FUNCTION clear_sync_tombstone('stats', 'stat_id');
@@ -0,0 +1,14 @@
+-- Segment files holding workout history moved to cold storage, one row per file
+CREATE TABLE IF NOT EXISTS workout_archive_segments (
+    segment_id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
+    user_id UUID REFERENCES users(user_id) NOT NULL,
+    file_name VARCHAR(200) NOT NULL,
+    row_count INTEGER NOT NULL,
+    first_workout_at TIMESTAMP NOT NULL,
+    last_workout_at TIMESTAMP NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_workout_archive_segments_user
+    ON workout_archive_segments (user_id, first_workout_at);
@@ -0,0 +1,22 @@
+-- Version counters for reference catalogs that application instances hold in memory. Every
+-- statement that changes a catalog table bumps its counter, and instances reload when the
+-- counter they loaded differs from the current one.
+CREATE TABLE IF NOT EXISTS catalog_versions (
+    catalog VARCHAR(50) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO catalog_versions (catalog) VALUES ('exercises') ON CONFLICT (catalog) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_catalog_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE catalog_versions SET version = version + 1, updated_at = CURRENT_TIMESTAMP
+    WHERE catalog = TG_ARGV[0];
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS exercises_catalog_version ON exercises;
+CREATE TRIGGER exercises_catalog_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON exercises
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_catalog_version('exercises');
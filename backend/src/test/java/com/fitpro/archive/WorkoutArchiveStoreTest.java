@@ -0,0 +1,49 @@
+package com.fitpro.archive;
+
+import com.fitpro.models.WorkoutArchiveSegment;
+import com.fitpro.repositories.WorkoutArchiveSegmentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WorkoutArchiveStoreTest {
+    private final WorkoutArchiveSegmentRepository segmentRepository = mock(WorkoutArchiveSegmentRepository.class);
+
+    @Test
+    void rejectsRelativeDirectory() {
+        assertThatThrownBy(() -> new WorkoutArchiveStore(segmentRepository, "data/archive"))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refusesToArchiveWithoutDirectory() {
+        WorkoutArchiveStore store = new WorkoutArchiveStore(segmentRepository, "");
+        List<ArchivedWorkout> rows = List.of(new ArchivedWorkout(LocalDateTime.of(2020, 1, 1, 8, 0), 30, 200, null, Map.of()));
+
+        assertThat(store.isConfigured()).isFalse();
+        assertThatThrownBy(() -> store.write(UUID.randomUUID(), rows)).isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(segmentRepository);
+    }
+
+    @Test
+    void skipsSegmentsWithoutDirectory() {
+        UUID userId = UUID.randomUUID();
+        WorkoutArchiveSegment segment = new WorkoutArchiveSegment();
+        segment.setUserId(userId);
+        segment.setFileName("segment.seg");
+        when(segmentRepository.findByUserIdOrderByFirstWorkoutAtAsc(userId)).thenReturn(List.of(segment));
+        WorkoutArchiveStore store = new WorkoutArchiveStore(segmentRepository, "");
+
+        assertThat(store.readWorkouts(userId)).isEmpty();
+        assertThat(store.findActiveDays(userId)).isEmpty();
+    }
+}
@@ -0,0 +1,109 @@
+package com.fitpro.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkoutSegmentReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsRandomRows() throws IOException {
+        List<ArchivedWorkout> rows = randomRows(20_000, new Random(1));
+
+        WorkoutSegmentReader reader = map(WorkoutSegmentWriter.encode(rows));
+
+        assertThat(reader.rowCount()).isEqualTo(rows.size());
+        assertThat(reader.readAll()).isEqualTo(rows);
+    }
+
+    @Test
+    void readsDatesWithoutDecodingRows() throws IOException {
+        List<ArchivedWorkout> rows = randomRows(1_000, new Random(2));
+
+        long[] epochSeconds = map(WorkoutSegmentWriter.encode(rows)).epochSeconds();
+
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(epochSeconds[i]).isEqualTo(rows.get(i).workoutDate().toEpochSecond(ZoneOffset.UTC));
+        }
+    }
+
+    @Test
+    void keepsNullsAndNonAsciiNames() throws IOException {
+        Map<String, Integer> exercises = new HashMap<>();
+        exercises.put("Übung", null);
+        exercises.put("Squat", 0);
+        List<ArchivedWorkout> rows = List.of(
+            new ArchivedWorkout(LocalDateTime.of(1969, 12, 31, 23, 59), null, null, null, Map.of()),
+            new ArchivedWorkout(LocalDateTime.of(1969, 12, 31, 23, 59), 30, 0, "Jambes", exercises),
+            new ArchivedWorkout(LocalDateTime.of(2024, 2, 29, 6, 0), 0, 1_000_000, "Jambes", Map.of("Squat", 5)));
+
+        assertThat(map(WorkoutSegmentWriter.encode(rows)).readAll()).isEqualTo(rows);
+    }
+
+    @Test
+    void rejectsUnsortedRows() {
+        List<ArchivedWorkout> rows = List.of(
+            new ArchivedWorkout(LocalDateTime.of(2024, 1, 2, 0, 0), 30, 200, null, Map.of()),
+            new ArchivedWorkout(LocalDateTime.of(2024, 1, 1, 0, 0), 30, 200, null, Map.of()));
+
+        assertThatThrownBy(() -> WorkoutSegmentWriter.encode(rows)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void detectsCorruption() {
+        byte[] encoded = WorkoutSegmentWriter.encode(randomRows(1_000, new Random(4)));
+        encoded[100] ^= 1;
+
+        assertThatThrownBy(() -> map(encoded)).isInstanceOf(IOException.class)
+            .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void detectsTruncation() {
+        byte[] encoded = WorkoutSegmentWriter.encode(randomRows(1_000, new Random(5)));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 10);
+
+        assertThatThrownBy(() -> map(truncated)).isInstanceOf(IOException.class);
+    }
+
+    private WorkoutSegmentReader map(byte[] encoded) throws IOException {
+        return WorkoutSegmentReader.open(Files.write(Files.createTempFile(directory, "segment", ".seg"), encoded));
+    }
+
+    private static List<ArchivedWorkout> randomRows(int count, Random random) {
+        String[] groups = {"Chest", "Legs", null, "Back", "Ünïcode"};
+        LocalDateTime time = LocalDateTime.of(2019, 1, 1, 0, 0);
+        List<ArchivedWorkout> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Zero gaps included, so several workouts can share a timestamp
+            time = time.plusSeconds(random.nextInt(200_000));
+            Map<String, Integer> exercises = new HashMap<>();
+            int exerciseCount = random.nextInt(4);
+            for (int e = 0; e < exerciseCount; e++) {
+                exercises.put("Exercise " + random.nextInt(40), random.nextInt(10) == 0 ? null : random.nextInt(8));
+            }
+            rows.add(new ArchivedWorkout(time,
+                random.nextInt(10) == 0 ? null : random.nextInt(200),
+                random.nextInt(10) == 0 ? null : random.nextInt(2000),
+                groups[random.nextInt(groups.length)],
+                exercises));
+        }
+        return rows;
+    }
+}
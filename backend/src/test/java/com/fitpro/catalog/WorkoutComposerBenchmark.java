@@ -0,0 +1,65 @@
+package com.fitpro.catalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workouts generated per second from catalogs of the seeded size and a large one, for a
+ * spec that exercises every filter: level, equipment, recent exercises and recent groups.
+ *
+ * Run with mvn -Pbenchmarks test -Djmh.args=WorkoutComposerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+public class WorkoutComposerBenchmark {
+    private static final String[] MUSCLE_GROUPS = {"Chest", "Back", "Legs", "Arms", "Shoulders", "Core", "Cardio", "Glutes"};
+    private static final String[] EQUIPMENT = {"None", "Dumbbells", "Barbell, Bench", "Cable Machine", "Kettlebell"};
+    private static final String[] LEVELS = {"beginner", "intermediate", "advanced"};
+
+    @Param({"150", "5000"})
+    public int catalogSize;
+
+    private ExerciseIndex index;
+    private WorkoutComposer.Spec spec;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<CatalogExercise> exercises = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            exercises.add(new CatalogExercise(UUID.randomUUID(), "Exercise " + i, null,
+                MUSCLE_GROUPS[i % MUSCLE_GROUPS.length], EQUIPMENT[i % EQUIPMENT.length], LEVELS[i % LEVELS.length]));
+        }
+        index = ExerciseIndex.build(exercises);
+        spec = new WorkoutComposer.Spec(FitnessLevel.INTERMEDIATE, 60, null,
+            List.of("Dumbbells", "Barbell", "Bench"),
+            List.of("Exercise 1", "Exercise 9", "Exercise 17", "Exercise 40"),
+            List.of("Legs"));
+    }
+
+    @Benchmark
+    public WorkoutPlan compose() {
+        return WorkoutComposer.compose(index, spec, ThreadLocalRandom.current());
+    }
+}
@@ -0,0 +1,81 @@
+package com.fitpro.classification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordAutomatonTest {
+    @Test
+    void findsLowestLabelAnywhereInText() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(List.of("she"), List.of("he", "hers"), List.of("his")));
+
+        assertThat(automaton.lowestMatch("ushers")).isEqualTo(0);
+        assertThat(automaton.lowestMatch("xhisx")).isEqualTo(2);
+        assertThat(automaton.lowestMatch("thhers")).isEqualTo(1);
+        assertThat(automaton.lowestMatch("sh")).isEqualTo(KeywordAutomaton.NO_MATCH);
+        assertThat(automaton.lowestMatch("")).isEqualTo(KeywordAutomaton.NO_MATCH);
+    }
+
+    @Test
+    void followsFailureLinksIntoShorterKeywords() {
+        // "abd" only matches after falling back from the "abc" branch at 'd'
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(List.of("abcx"), List.of("bd")));
+
+        assertThat(automaton.lowestMatch("abd")).isEqualTo(1);
+        assertThat(automaton.lowestMatch("ababcx")).isEqualTo(0);
+    }
+
+    @Test
+    void ignoresCaseIncludingNonAscii() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(List.of(" Übung "), List.of("LEG")));
+
+        assertThat(automaton.lowestMatch("ÜBUNG day")).isEqualTo(0);
+        assertThat(automaton.lowestMatch("Leg Day")).isEqualTo(1);
+        assertThat(automaton.lowestMatch("übun")).isEqualTo(KeywordAutomaton.NO_MATCH);
+    }
+
+    @Test
+    void skipsBlankKeywords() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(List.of("", " "), List.of("abs")));
+
+        assertThat(automaton.lowestMatch("anything")).isEqualTo(KeywordAutomaton.NO_MATCH);
+        assertThat(automaton.lowestMatch("Absolute")).isEqualTo(1);
+    }
+
+    @Test
+    void agreesWithSubstringSearch() {
+        List<List<String>> keywords = List.of(List.of("chest"), List.of("back"), List.of("leg"), List.of("arm"),
+            List.of("shoulder"), List.of("core", "abs"), List.of("cardio"), List.of("full body"));
+        KeywordAutomaton automaton = new KeywordAutomaton(keywords);
+        String[] parts = {"chest", "back", "leg", "arm", "shoulder", "core", "abs", "cardio", "full body", "full",
+            "body", "Day", "HIIT", "Upper", "ar", "che", "sho", "ulder", "cor", "é", "Ω", " ", "-", "LEGS", "Absolute"};
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int count = 1 + random.nextInt(5);
+            for (int p = 0; p < count; p++) {
+                text.append(parts[random.nextInt(parts.length)]);
+                if (random.nextBoolean()) {
+                    text.append(' ');
+                }
+            }
+            assertThat(automaton.lowestMatch(text)).as(text.toString()).isEqualTo(naiveLowestMatch(keywords, text.toString()));
+        }
+    }
+
+    private static int naiveLowestMatch(List<List<String>> keywords, String text) {
+        String lower = text.toLowerCase();
+        for (int label = 0; label < keywords.size(); label++) {
+            for (String keyword : keywords.get(label)) {
+                if (lower.contains(keyword)) {
+                    return label;
+                }
+            }
+        }
+        return KeywordAutomaton.NO_MATCH;
+    }
+}
@@ -0,0 +1,63 @@
+package com.fitpro.classification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MuscleGroupClassifierTest {
+    private final MuscleGroupClassifier classifier = new MuscleGroupClassifier(new MuscleGroupProperties());
+
+    @Test
+    void defaultsMatchTheOldContainsChain() {
+        String[] parts = {"chest", "back", "leg", "arm", "shoulder", "core", "abs", "cardio", "full body", "full", "body",
+            "Day", "HIIT", "Upper", "Push", "PULL", "ar", "che", "sho", "ulder", "cor", "é", "Ω", " ", "-", "x", "LEGS",
+            "Warm", "Absolute"};
+        Random random = new Random(1);
+
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder name = new StringBuilder();
+            int count = 1 + random.nextInt(5);
+            for (int p = 0; p < count; p++) {
+                name.append(parts[random.nextInt(parts.length)]);
+                if (random.nextBoolean()) {
+                    name.append(' ');
+                }
+            }
+            assertThat(classifier.classify(name.toString())).as(name.toString()).isEqualTo(containsChain(name.toString()));
+        }
+    }
+
+    @Test
+    void usesPriorityOrderAndFallback() {
+        assertThat(classifier.classify("Arm and Chest Day")).isEqualTo("Chest");
+        assertThat(classifier.classify("Upper Back Shoulders")).isEqualTo("Back");
+        assertThat(classifier.classify("Morning Run")).isEqualTo("Other");
+        assertThat(classifier.classify(null)).isEqualTo("Other");
+    }
+
+    @Test
+    void rejectsBlankGroupNames() {
+        MuscleGroupProperties properties = new MuscleGroupProperties();
+        properties.setGroups(List.of(new MuscleGroupProperties.Group(" ", List.of("x"))));
+
+        assertThatThrownBy(() -> new MuscleGroupClassifier(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // The rules classification replaced, kept as the reference for the default keyword lists
+    private static String containsChain(String name) {
+        String nameLower = name.toLowerCase();
+        if (nameLower.contains("chest")) return "Chest";
+        if (nameLower.contains("back")) return "Back";
+        if (nameLower.contains("leg")) return "Legs";
+        if (nameLower.contains("arm")) return "Arms";
+        if (nameLower.contains("shoulder")) return "Shoulders";
+        if (nameLower.contains("core") || nameLower.contains("abs")) return "Core";
+        if (nameLower.contains("cardio")) return "Cardio";
+        if (nameLower.contains("full body")) return "Full Body";
+        return "Other";
+    }
+}
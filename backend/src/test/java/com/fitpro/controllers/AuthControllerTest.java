@@ -0,0 +1,57 @@
+package com.fitpro.controllers;
+
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerTest extends IntegrationTest {
+
+    @Test
+    void loginUpgradesHashesWithAnOutdatedCost() throws Exception {
+        TestUser user = signUp();
+        String outdated = new BCryptPasswordEncoder(4).encode("password123");
+        jdbcTemplate.update("UPDATE users SET password_hash = ? WHERE user_id = ?", outdated, user.id());
+
+        login(user.email(), "password123")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.token").isNotEmpty());
+
+        String upgraded = passwordHash(user);
+        assertThat(upgraded).isNotEqualTo(outdated).startsWith("$2a$10$");
+        login(user.email(), "password123").andExpect(status().isOk());
+        assertThat(passwordHash(user)).isEqualTo(upgraded);
+    }
+
+    @Test
+    void rejectsWrongPasswordAndUnknownEmailAlike() throws Exception {
+        TestUser user = signUp();
+        String hash = passwordHash(user);
+
+        login(user.email(), "wrong-password")
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.code").value("INVALID_CREDENTIALS"));
+        login("missing-" + user.email(), "password123")
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.code").value("INVALID_CREDENTIALS"));
+        assertThat(passwordHash(user)).isEqualTo(hash);
+    }
+
+    private ResultActions login(String email, String password) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of("email", email, "password", password))));
+    }
+
+    private String passwordHash(TestUser user) {
+        return jdbcTemplate.queryForObject("SELECT password_hash FROM users WHERE user_id = ?", String.class, user.id());
+    }
+}
@@ -0,0 +1,94 @@
+package com.fitpro.controllers;
+
+import com.fitpro.catalog.ExerciseCatalog;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class ExerciseControllerTest extends IntegrationTest {
+    @Autowired
+    private ExerciseCatalog exerciseCatalog;
+
+    @Test
+    void servesJsonWithAStrongTag() throws Exception {
+        TestUser user = signUp();
+
+        MockHttpServletResponse response = fetch(user, exercises());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("ETag")).matches("\"[0-9a-f]{32}\"");
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getHeaders("Vary")).contains("Accept-Encoding");
+        assertThat(response.getHeader("Cache-Control")).contains("no-cache").contains("private");
+        assertThat(response.getContentAsByteArray()).isEqualTo(exerciseCatalog.getSnapshot().payload().json());
+    }
+
+    @Test
+    void servesGzipOnlyWhenAccepted() throws Exception {
+        TestUser user = signUp();
+        MockHttpServletResponse plain = fetch(user, exercises());
+
+        MockHttpServletResponse gzipped = fetch(user, exercises().header("Accept-Encoding", "deflate, gzip;q=0.8"));
+        assertThat(gzipped.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(gzipped.getHeader("ETag")).isEqualTo(plain.getHeader("ETag").replaceAll("\"$", "-gzip\""));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.getContentAsByteArray());
+        }
+
+        MockHttpServletResponse refused = fetch(user, exercises().header("Accept-Encoding", "gzip;q=0, br"));
+        assertThat(refused.getHeader("Content-Encoding")).isNull();
+        assertThat(refused.getContentAsByteArray()).isEqualTo(plain.getContentAsByteArray());
+    }
+
+    @Test
+    void answersNotModifiedForEitherRepresentation() throws Exception {
+        TestUser user = signUp();
+        String plainTag = fetch(user, exercises()).getHeader("ETag");
+        String gzipTag = fetch(user, exercises().header("Accept-Encoding", "gzip")).getHeader("ETag");
+
+        for (String ifNoneMatch : new String[]{plainTag, gzipTag, "W/" + plainTag, "\"other\", " + gzipTag, "*"}) {
+            MockHttpServletResponse response = fetch(user, exercises().header("If-None-Match", ifNoneMatch));
+            assertThat(response.getStatus()).as(ifNoneMatch).isEqualTo(304);
+            assertThat(response.getContentAsByteArray()).isEmpty();
+            assertThat(response.getHeader("ETag")).isEqualTo(plainTag);
+        }
+        assertThat(fetch(user, exercises().header("If-None-Match", "\"other\"")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void changesTagWhenTheCatalogChanges() throws Exception {
+        TestUser user = signUp();
+        String before = fetch(user, exercises()).getHeader("ETag");
+        UUID id = UUID.randomUUID();
+
+        try {
+            jdbcTemplate.update("INSERT INTO exercises (exercise_id, name, muscle_group) VALUES (?, 'Tag Test Row', 'Legs')", id);
+            exerciseCatalog.refreshIfChanged();
+
+            MockHttpServletResponse response = fetch(user, exercises().header("If-None-Match", before));
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader("ETag")).isNotEqualTo(before);
+            assertThat(response.getContentAsString()).contains("Tag Test Row");
+        } finally {
+            jdbcTemplate.update("DELETE FROM exercises WHERE exercise_id = ?", id);
+            exerciseCatalog.refreshIfChanged();
+        }
+    }
+
+    private MockHttpServletRequestBuilder exercises() {
+        return get("/api/exercises");
+    }
+
+    private MockHttpServletResponse fetch(TestUser user, MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.header("Authorization", user.authorization())).andReturn().getResponse();
+    }
+}
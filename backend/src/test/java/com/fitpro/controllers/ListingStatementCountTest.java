@@ -0,0 +1,100 @@
+package com.fitpro.controllers;
+
+import com.fitpro.support.IntegrationTest;
+import com.fitpro.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements per request for the listing endpoints. Each must take a fixed number of
+ * queries however many rows the page holds, so a lazy association or a per-row lookup
+ * shows up here as a count that grows with the data.
+ */
+// The measurement cache would serve the stats listings without touching the database
+@TestPropertySource(properties = "stats.cache.max-bytes=0")
+class ListingStatementCountTest extends IntegrationTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Test
+    void workoutHistoryTakesPageAndExerciseQueries() throws Exception {
+        TestUser small = userWith(3);
+        TestUser large = userWith(60);
+
+        // One for the page, one for the exercises of every workout on it
+        assertThat(statements(get("/api/workouts"), small)).isEqualTo(2);
+        assertThat(statements(get("/api/workouts").param("limit", "50"), large)).isEqualTo(2);
+    }
+
+    @Test
+    void statsListingsTakeOneQuery() throws Exception {
+        TestUser small = userWith(3);
+        TestUser large = userWith(60);
+
+        for (TestUser user : List.of(small, large)) {
+            assertThat(statements(get("/api/stats/history"), user)).isEqualTo(1);
+            assertThat(statements(get("/api/stats/progress/weight"), user)).isEqualTo(1);
+            assertThat(statements(get("/api/stats/progress/bodyfat"), user)).isEqualTo(1);
+            assertThat(statements(get("/api/stats/range")
+                .param("startDate", START.toString())
+                .param("endDate", START.plusDays(90).toString()), user)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void nextPageTakesTheSameQueries() throws Exception {
+        TestUser user = userWith(60);
+        String response = mockMvc.perform(get("/api/workouts").param("limit", "20")
+                .header("Authorization", user.authorization()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(response).get("nextCursor").asText();
+
+        assertThat(statements(get("/api/workouts").param("limit", "20").param("cursor", cursor), user)).isEqualTo(2);
+    }
+
+    /**
+     * Statements Hibernate prepared for a request, after one untimed request that loads the
+     * principal's profile version into the cache
+     */
+    private int statements(MockHttpServletRequestBuilder request, TestUser user) throws Exception {
+        request.header("Authorization", user.authorization());
+        mockMvc.perform(request).andExpect(status().isOk());
+        SqlStatementCounter.reset();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return SqlStatementCounter.get();
+    }
+
+    private TestUser userWith(int rows) throws Exception {
+        TestUser user = signUp();
+        List<Map<String, Object>> workouts = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            workouts.add(Map.of(
+                "workoutDate", START.plusDays(i).toString(),
+                "durationMinutes", 45,
+                "caloriesBurned", 300,
+                "muscleGroup", "Chest",
+                "exercises", Map.of("Bench Press", 4, "Push Up", 3)));
+        }
+        mockMvc.perform(post("/api/workouts/batch")
+                .header("Authorization", user.authorization())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("workouts", workouts))))
+            .andExpect(status().isOk());
+        jdbcTemplate.update("INSERT INTO user_stats (user_id, weight, height, body_fat_percentage, measurement_date) "
+            + "SELECT ?, 80 - i * 0.1, 180, 20 - i * 0.05, ?::timestamp + i * interval '1 day' FROM generate_series(0, ? - 1) i",
+            user.id(), START, rows);
+        return user;
+    }
+}
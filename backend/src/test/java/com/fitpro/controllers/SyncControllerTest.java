@@ -0,0 +1,220 @@
+package com.fitpro.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SyncControllerTest extends IntegrationTest {
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void roundTripsMuscleGroup() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+
+        push(user, Map.of("workouts", List.of(workout(id, 45, "Legs"))))
+            .andExpect(jsonPath("$.results[0].status").value("APPLIED"));
+        assertThat(pulledWorkout(user, id).get("muscleGroup").asText()).isEqualTo("Legs");
+
+        push(user, Map.of("workouts", List.of(workout(id, 45, "x".repeat(80)))))
+            .andExpect(jsonPath("$.results[0].status").value("APPLIED"));
+        assertThat(pulledWorkout(user, id).get("muscleGroup").asText()).isEqualTo("x".repeat(50));
+    }
+
+    @Test
+    void retriedPushChangesNothing() throws Exception {
+        TestUser user = signUp();
+        UUID workoutId = UUID.randomUUID();
+        UUID statId = UUID.randomUUID();
+        Map<String, Object> body = Map.of("workouts", List.of(workout(workoutId, 45, "Legs")), "stats", List.of(stat(statId, 80.0)));
+
+        push(user, body)
+            .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+            .andExpect(jsonPath("$.results[1].status").value("APPLIED"));
+        push(user, body)
+            .andExpect(jsonPath("$.results[0].status").value("UNCHANGED"))
+            .andExpect(jsonPath("$.results[1].status").value("UNCHANGED"));
+
+        Map<String, Object> delete = Map.of("deleted", List.of(deleted("workout", workoutId), deleted("stats", statId)));
+        push(user, delete)
+            .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+            .andExpect(jsonPath("$.results[1].status").value("APPLIED"));
+        push(user, delete)
+            .andExpect(jsonPath("$.results[0].status").value("UNCHANGED"))
+            .andExpect(jsonPath("$.results[1].status").value("UNCHANGED"));
+        assertThat(count("workout_history", "history_id", workoutId)).isZero();
+        assertThat(count("user_stats", "stat_id", statId)).isZero();
+    }
+
+    @Test
+    void concurrentRetriesInsertOnce() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        Map<String, Object> body = Map.of("workouts", List.of(workout(id, 45, "Legs")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> statuses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                statuses.add(executor.submit(() -> objectMapper.readTree(push(user, body).andReturn().getResponse().getContentAsString())
+                    .get("results").get(0).get("status").asText()));
+            }
+            List<String> seen = new ArrayList<>();
+            for (Future<String> status : statuses) {
+                seen.add(status.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(seen).containsOnlyOnce("APPLIED").containsOnly("APPLIED", "UNCHANGED");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(count("workout_history", "history_id", id)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAnotherUsersIds() throws Exception {
+        TestUser owner = signUp();
+        TestUser other = signUp();
+        UUID workoutId = UUID.randomUUID();
+        UUID statId = UUID.randomUUID();
+        push(owner, Map.of("workouts", List.of(workout(workoutId, 45, "Legs")), "stats", List.of(stat(statId, 80.0))));
+
+        push(other, Map.of("workouts", List.of(workout(workoutId, 90, "Back")), "stats", List.of(stat(statId, 60.0))))
+            .andExpect(jsonPath("$.results[0].status").value("CONFLICT"))
+            .andExpect(jsonPath("$.results[1].status").value("CONFLICT"));
+        push(other, Map.of("deleted", List.of(deleted("workout", workoutId), deleted("stats", statId))))
+            .andExpect(jsonPath("$.results[0].status").value("CONFLICT"))
+            .andExpect(jsonPath("$.results[1].status").value("CONFLICT"));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT duration_minutes FROM workout_history WHERE history_id = ? AND user_id = ?",
+            Integer.class, workoutId, owner.id())).isEqualTo(45);
+        assertThat(jdbcTemplate.queryForObject("SELECT weight FROM user_stats WHERE stat_id = ? AND user_id = ?",
+            Double.class, statId, owner.id())).isEqualTo(80.0);
+        assertThat(pull(other, null).get("workouts")).isEmpty();
+    }
+
+    @Test
+    void pullsTombstonesUntilTheIdComesBack() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        push(user, Map.of("workouts", List.of(workout(id, 45, "Legs"))));
+        String afterInsert = pull(user, null).get("token").asText();
+
+        push(user, Map.of("deleted", List.of(deleted("workout", id))));
+        JsonNode afterDelete = pull(user, afterInsert);
+        assertThat(afterDelete.get("reset").asBoolean()).isFalse();
+        assertThat(afterDelete.get("workouts")).isEmpty();
+        assertThat(afterDelete.get("deleted")).hasSize(1);
+        assertThat(afterDelete.get("deleted").get(0).get("type").asText()).isEqualTo("workout");
+        assertThat(afterDelete.get("deleted").get(0).get("id").asText()).isEqualTo(id.toString());
+
+        // Re-inserting the id clears its tombstone, so the client sees the row and no delete
+        push(user, Map.of("workouts", List.of(workout(id, 50, "Legs"))))
+            .andExpect(jsonPath("$.results[0].status").value("APPLIED"));
+        JsonNode afterReinsert = pull(user, afterDelete.get("token").asText());
+        assertThat(afterReinsert.get("deleted")).isEmpty();
+        assertThat(afterReinsert.get("workouts")).hasSize(1);
+        assertThat(afterReinsert.get("workouts").get(0).get("durationMinutes").asInt()).isEqualTo(50);
+    }
+
+    @Test
+    void tokenCoversTransactionsStillRunningWhenIssued() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO workout_history (history_id, user_id, completed_at, duration_minutes, calories_burned) VALUES (?, ?, ?, 30, 200)")) {
+                insert.setObject(1, id);
+                insert.setObject(2, user.id());
+                insert.setTimestamp(3, Timestamp.valueOf("2024-05-02 07:30:00"));
+                insert.executeUpdate();
+            }
+
+            // Issued while the insert is uncommitted, so it must not skip past it
+            JsonNode during = pull(user, null);
+            assertThat(during.get("workouts")).isEmpty();
+
+            connection.commit();
+
+            JsonNode after = pull(user, during.get("token").asText());
+            assertThat(after.get("workouts")).extracting(workout -> workout.get("id").asText()).containsExactly(id.toString());
+        }
+    }
+
+    ResultActions push(TestUser user, Map<String, Object> body) throws Exception {
+        return mockMvc.perform(post("/api/sync")
+                .header("Authorization", user.authorization())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+            .andExpect(status().isOk());
+    }
+
+    JsonNode pull(TestUser user, String since) throws Exception {
+        String body = mockMvc.perform(get("/api/sync")
+                .header("Authorization", user.authorization())
+                .param("since", since != null ? since : ""))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode pulledWorkout(TestUser user, UUID id) throws Exception {
+        for (JsonNode workout : pull(user, null).get("workouts")) {
+            if (workout.get("id").asText().equals(id.toString())) {
+                return workout;
+            }
+        }
+        throw new AssertionError("Workout " + id + " not pulled");
+    }
+
+    private long count(String table, String idColumn, UUID id) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE " + idColumn + " = ?", Long.class, id);
+    }
+
+    static Map<String, Object> stat(UUID id, double weight) {
+        Map<String, Object> stat = new HashMap<>();
+        stat.put("id", id);
+        stat.put("weight", weight);
+        stat.put("measurementDate", "2024-05-01T07:00:00");
+        return stat;
+    }
+
+    static Map<String, Object> deleted(String type, UUID id) {
+        return Map.of("type", type, "id", id);
+    }
+
+    static Map<String, Object> workout(UUID id, int durationMinutes, String muscleGroup) {
+        Map<String, Object> workout = new HashMap<>();
+        workout.put("id", id);
+        workout.put("workoutDate", "2024-05-01T07:30:00");
+        workout.put("durationMinutes", durationMinutes);
+        workout.put("caloriesBurned", 300);
+        workout.put("muscleGroup", muscleGroup);
+        return workout;
+    }
+}
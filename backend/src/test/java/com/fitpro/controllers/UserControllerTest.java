@@ -0,0 +1,68 @@
+package com.fitpro.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserControllerTest extends IntegrationTest {
+
+    @Test
+    void profileUpdateReturnsTokenWithCurrentProfileVersion() throws Exception {
+        TestUser user = signUp();
+
+        JsonNode response = updateProfile(user.authorization());
+        String token = response.get("token").asText();
+
+        assertThat(response.get("profile").get("fitnessLevel").asText()).isEqualTo("beginner");
+        assertThat(payload(token).get("pv").asLong()).isEqualTo(profileVersion(user));
+        assertThat(fetch("Bearer " + token).getHeader("Authorization")).isNull();
+    }
+
+    @Test
+    void reissuesStaleTokenWithTheSameExpiry() throws Exception {
+        TestUser user = signUp();
+        String staleToken = user.authorization().substring("Bearer ".length());
+        updateProfile(user.authorization());
+
+        String refreshed = fetch(user.authorization()).getHeader("Authorization");
+
+        assertThat(refreshed).startsWith("Bearer ");
+        JsonNode claims = payload(refreshed.substring("Bearer ".length()));
+        assertThat(claims.get("pv").asLong()).isEqualTo(profileVersion(user));
+        assertThat(claims.get("exp").asLong()).isEqualTo(payload(staleToken).get("exp").asLong());
+        assertThat(fetch(refreshed).getHeader("Authorization")).isNull();
+    }
+
+    private JsonNode updateProfile(String authorization) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("age", 30, "weight", 72.5, "height", 180.0,
+            "gender", "female", "fitnessLevel", "beginner", "fitnessGoals", "strength"));
+        return objectMapper.readTree(mockMvc.perform(post("/api/users/profile").header("Authorization", authorization)
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString());
+    }
+
+    private MockHttpServletResponse fetch(String authorization) throws Exception {
+        return mockMvc.perform(get("/api/stats/history").header("Authorization", authorization))
+            .andExpect(status().isOk())
+            .andReturn().getResponse();
+    }
+
+    private long profileVersion(TestUser user) {
+        return jdbcTemplate.queryForObject("SELECT profile_version FROM users WHERE user_id = ?", Long.class, user.id());
+    }
+
+    private JsonNode payload(String token) throws Exception {
+        return objectMapper.readTree(Base64.getUrlDecoder().decode(token.split("\\.")[1]));
+    }
+}
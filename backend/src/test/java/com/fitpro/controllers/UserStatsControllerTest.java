@@ -0,0 +1,71 @@
+package com.fitpro.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserStatsControllerTest extends IntegrationTest {
+
+    @Test
+    void pagesThroughHistoryAndProgress() throws Exception {
+        TestUser user = signUp();
+        LocalDateTime start = LocalDateTime.now().minusDays(20).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 8; i++) {
+            // Every other row has only a weight, the rest only a body fat reading
+            jdbcTemplate.update("INSERT INTO user_stats (stat_id, user_id, weight, body_fat_percentage, measurement_date) VALUES (?, ?, ?, ?, ?)",
+                UUID.randomUUID(), user.id(), i % 2 == 0 ? 80.0 + i : null, i % 2 == 0 ? null : 20.0 + i,
+                Timestamp.valueOf(start.plusDays(i / 3)));
+        }
+
+        assertThat(readAll(user, "/api/stats/history")).isEqualTo(expected(user, "TRUE"));
+        assertThat(readAll(user, "/api/stats/progress/weight")).isEqualTo(expected(user, "weight IS NOT NULL")).hasSize(4);
+        assertThat(readAll(user, "/api/stats/progress/bodyfat")).isEqualTo(expected(user, "body_fat_percentage IS NOT NULL")).hasSize(4);
+    }
+
+    @Test
+    void rejectsInvalidCursor() throws Exception {
+        TestUser user = signUp();
+
+        for (String path : List.of("/api/stats/history", "/api/stats/progress/weight", "/api/stats/progress/bodyfat")) {
+            mockMvc.perform(get(path).param("cursor", "%%%").header("Authorization", user.authorization()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+        }
+    }
+
+    // Follow nextCursor with pages of three and collect the ids in the order served
+    private List<UUID> readAll(TestUser user, String path) throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get(path).param("limit", "3").header("Authorization", user.authorization());
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(
+                mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+            assertThat(page.get("items").size()).isLessThanOrEqualTo(3);
+            page.get("items").forEach(item -> ids.add(UUID.fromString(item.get("id").asText())));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<UUID> expected(TestUser user, String condition) {
+        return jdbcTemplate.queryForList("SELECT stat_id FROM user_stats WHERE user_id = ? AND " + condition +
+            " ORDER BY measurement_date DESC, stat_id DESC", UUID.class, user.id());
+    }
+}
@@ -0,0 +1,241 @@
+package com.fitpro.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fitpro.support.IntegrationTest;
+import com.fitpro.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WorkoutControllerTest extends IntegrationTest {
+    @Test
+    void savesWorkoutWithExercises() throws Exception {
+        TestUser user = signUp();
+
+        saveWorkout(user, workout(Map.of("Bench Press", 4)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.exercises['Bench Press']").value(4));
+    }
+
+    @Test
+    void rejectsBlankExerciseName() throws Exception {
+        TestUser user = signUp();
+
+        saveWorkout(user, workout(Map.of(" ", 3)))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Exercise names must be 1 to 100 characters")));
+        assertThat(workoutCount(user)).isZero();
+    }
+
+    @Test
+    void rejectsNegativeSets() throws Exception {
+        TestUser user = signUp();
+
+        saveWorkout(user, workout(Map.of("Squat", -1)))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Sets for Squat must be zero or more")));
+        assertThat(workoutCount(user)).isZero();
+    }
+
+    @Test
+    void rejectsFutureDate() throws Exception {
+        TestUser user = signUp();
+        Map<String, Object> workout = workout(Map.of());
+        workout.put("workoutDate", "2999-01-01T10:00:00");
+
+        saveWorkout(user, workout)
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Workout date is in the future")));
+    }
+
+    @Test
+    void truncatesLongMuscleGroup() throws Exception {
+        TestUser user = signUp();
+        Map<String, Object> workout = workout(Map.of());
+        workout.put("muscleGroup", "Posterior chain and hip hinge accessory work, heavy day");
+
+        saveWorkout(user, workout).andExpect(status().isOk());
+        assertThat(jdbcTemplate.queryForObject("SELECT muscle_group FROM workout_history WHERE user_id = ?", String.class, user.id()))
+            .isEqualTo("Posterior chain and hip hinge accessory work, heav");
+    }
+
+    @Test
+    void truncatesLongMuscleGroupInBatch() throws Exception {
+        TestUser user = signUp();
+        Map<String, Object> workout = workout(Map.of());
+        workout.put("muscleGroup", "x".repeat(80));
+
+        mockMvc.perform(post("/api/workouts/batch")
+                .header("Authorization", user.authorization())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("workouts", List.of(workout)))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1));
+        assertThat(jdbcTemplate.queryForObject("SELECT muscle_group FROM workout_history WHERE user_id = ?", String.class, user.id()))
+            .isEqualTo("x".repeat(50));
+    }
+
+    @Test
+    void batchReportsEveryItemInRequestOrder() throws Exception {
+        TestUser user = signUp();
+        Map<String, Object> future = workout(Map.of());
+        future.put("workoutDate", "2999-01-01T10:00:00");
+        Map<String, Object> negative = workout(Map.of());
+        negative.put("durationMinutes", -5);
+
+        JsonNode response = objectMapper.readTree(saveBatch(user, List.of(workout(Map.of("Squat", 5)), future, workout(Map.of()), negative))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(2))
+            .andExpect(jsonPath("$.rejected").value(2))
+            .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+            .andExpect(jsonPath("$.results[1].error").value("Workout date is in the future"))
+            .andExpect(jsonPath("$.results[2].status").value("CREATED"))
+            .andExpect(jsonPath("$.results[3].status").value("REJECTED"))
+            .andExpect(jsonPath("$.results[3].error").value("Duration must be between 0 and 1440 minutes"))
+            .andReturn().getResponse().getContentAsString());
+
+        List<UUID> created = List.of(UUID.fromString(response.get("results").get(0).get("id").asText()),
+            UUID.fromString(response.get("results").get(2).get("id").asText()));
+        assertThat(jdbcTemplate.queryForList("SELECT history_id FROM workout_history WHERE user_id = ?", UUID.class, user.id()))
+            .containsExactlyInAnyOrderElementsOf(created);
+        assertThat(jdbcTemplate.queryForObject("SELECT sets_completed FROM workout_history_exercises WHERE history_id = ? AND exercise_name = 'Squat'",
+            Integer.class, created.get(0))).isEqualTo(5);
+        mockMvc.perform(get("/api/workouts/count").header("Authorization", user.authorization()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(2));
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatches() throws Exception {
+        TestUser user = signUp();
+        List<Map<String, Object>> oversized = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            oversized.add(workout(Map.of()));
+        }
+
+        saveBatch(user, List.of())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Batch contains no workouts")));
+        saveBatch(user, oversized)
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Batch exceeds the maximum of 500 workouts")));
+        assertThat(workoutCount(user)).isZero();
+    }
+
+    @Test
+    void batchInsertsDoNotGrowWithTheBatch() throws Exception {
+        TestUser small = signUp();
+        TestUser large = signUp();
+
+        assertThat(insertStatements(small, 5)).isEqualTo(insertStatements(large, 40)).isPositive();
+        assertThat(workoutCount(large)).isEqualTo(40);
+    }
+
+    // Workout inserts Hibernate prepared for one batch upload; batched rows share a statement
+    private long insertStatements(TestUser user, int size) throws Exception {
+        List<Map<String, Object>> workouts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            workouts.add(workout(Map.of("Row", i)));
+        }
+        SqlStatementCounter.reset();
+        saveBatch(user, workouts).andExpect(status().isOk()).andExpect(jsonPath("$.created").value(size));
+        return SqlStatementCounter.statements().stream()
+            .filter(sql -> sql.toLowerCase().startsWith("insert into workout_history"))
+            .count();
+    }
+
+    @Test
+    void pagesThroughHistoryNewestFirst() throws Exception {
+        TestUser user = signUp();
+        LocalDateTime start = LocalDateTime.now().minusDays(30).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            // Two workouts share each timestamp, so pages must also break ties by id
+            Timestamp date = Timestamp.valueOf(start.plusDays(i / 2));
+            jdbcTemplate.update("""
+                INSERT INTO workout_history (history_id, user_id, workout_date, completed_at, duration_minutes, calories_burned)
+                VALUES (?, ?, ?, ?, 30, 200)
+                """, UUID.randomUUID(), user.id(), date, date);
+        }
+        List<UUID> expected = jdbcTemplate.queryForList(
+            "SELECT history_id FROM workout_history WHERE user_id = ? ORDER BY completed_at DESC, history_id DESC",
+            UUID.class, user.id());
+
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = getPage(user, "/api/workouts", cursor);
+            assertThat(page.get("items").size()).isLessThanOrEqualTo(3);
+            page.get("items").forEach(item -> seen.add(UUID.fromString(item.get("id").asText())));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void rejectsInvalidCursor() throws Exception {
+        TestUser user = signUp();
+
+        mockMvc.perform(get("/api/workouts").param("cursor", "not-a-cursor")
+                .header("Authorization", user.authorization()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+    }
+
+    private JsonNode getPage(TestUser user, String path, String cursor) throws Exception {
+        MockHttpServletRequestBuilder request = get(path).param("limit", "3").header("Authorization", user.authorization());
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private ResultActions saveWorkout(TestUser user, Map<String, Object> workout) throws Exception {
+        return mockMvc.perform(post("/api/workouts")
+            .header("Authorization", user.authorization())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(workout)));
+    }
+
+    private ResultActions saveBatch(TestUser user, List<Map<String, Object>> workouts) throws Exception {
+        return mockMvc.perform(post("/api/workouts/batch")
+            .header("Authorization", user.authorization())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of("workouts", workouts))));
+    }
+
+    private static Map<String, Object> workout(Map<String, Integer> exercises) {
+        Map<String, Object> workout = new HashMap<>();
+        workout.put("durationMinutes", 45);
+        workout.put("caloriesBurned", 300);
+        workout.put("exercises", exercises);
+        return workout;
+    }
+
+    private int workoutCount(TestUser user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM workout_history WHERE user_id = ?", Integer.class, user.id());
+    }
+}
@@ -0,0 +1,118 @@
+package com.fitpro.jobs;
+
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.services.StatsInsightService;
+import com.fitpro.services.WorkoutArchiveService;
+import com.fitpro.stats.MeasurementCache;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionMaintenanceJobTest extends IntegrationTest {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WorkoutArchiveService archiveService;
+
+    @Autowired
+    private WorkoutArchiveStore archiveStore;
+
+    @Autowired
+    private StatsInsightService statsInsightService;
+
+    @Autowired
+    private MeasurementCache measurementCache;
+
+    @Test
+    void archivesWorkoutsBeforeDetachingTheirMonth() throws Exception {
+        TestUser user = signUp();
+        List<UUID> expired = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        for (int i = 0; i < expired.size(); i++) {
+            insertWorkout(user, expired.get(i), LocalDateTime.of(2012, 3, 5 + i, 7, 30));
+        }
+        jdbcTemplate.update("INSERT INTO workout_history_exercises (history_id, exercise_name, sets_completed) VALUES (?, 'Squat', 5)",
+            expired.get(0));
+        insertWorkout(user, UUID.randomUUID(), LocalDateTime.now().minusDays(1));
+        createPartition("workout_history", LocalDate.of(2012, 3, 1));
+
+        assertThat(job().detachExpired("workout_history", YearMonth.of(2012, 4))).isEqualTo(1);
+
+        assertThat(isAttached("workout_history_p201203")).isFalse();
+        assertThat(count("SELECT count(*) FROM workout_history WHERE user_id = ?", user.id())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT history_id FROM workout_archive_ids WHERE user_id = ?", UUID.class, user.id()))
+            .containsExactlyInAnyOrderElementsOf(expired);
+        assertThat(archiveStore.readWorkouts(user.id())).hasSize(expired.size())
+            .anySatisfy(workout -> assertThat(workout.exercises()).containsEntry("Squat", 5));
+        assertThat(count("SELECT count(*) FROM sync_tombstones WHERE user_id = ?", user.id())).isZero();
+    }
+
+    @Test
+    void tombstonesMeasurementsOfDetachedMonth() throws Exception {
+        TestUser user = signUp();
+        List<UUID> expired = List.of(UUID.randomUUID(), UUID.randomUUID());
+        insertStat(user, expired.get(0), 90.0, LocalDateTime.of(2012, 6, 3, 7, 0));
+        insertStat(user, expired.get(1), 88.0, LocalDateTime.of(2012, 6, 20, 7, 0));
+        insertStat(user, UUID.randomUUID(), 80.0, LocalDateTime.now().minusDays(1));
+        createPartition("user_stats", LocalDate.of(2012, 6, 1));
+        statsInsightService.rebuild(user.id());
+        long versionBefore = version(user);
+
+        assertThat(job().detachExpired("user_stats", YearMonth.of(2012, 7))).isEqualTo(1);
+
+        assertThat(isAttached("user_stats_p201206")).isFalse();
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT entity_id FROM sync_tombstones WHERE entity_type = 'stats' AND user_id = ?", UUID.class, user.id()))
+            .containsExactlyInAnyOrderElementsOf(expired);
+        assertThat(version(user)).isEqualTo(versionBefore + expired.size());
+        assertThat(count("SELECT weight_samples FROM stats_insights WHERE user_id = ?", user.id())).isEqualTo(1);
+        // Released ids can be pushed again like any deleted measurement
+        insertStat(user, expired.get(0), 90.0, LocalDateTime.now().minusDays(2));
+    }
+
+    private PartitionMaintenanceJob job() {
+        return new PartitionMaintenanceJob(jdbcTemplate, transactionTemplate, archiveService, statsInsightService,
+            measurementCache, 3, 120);
+    }
+
+    private void createPartition(String table, LocalDate monthStart) {
+        jdbcTemplate.queryForObject("SELECT ensure_monthly_partition(?, ?)", Boolean.class, table, monthStart);
+    }
+
+    private boolean isAttached(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = to_regclass(?))", Boolean.class, partition));
+    }
+
+    private long version(TestUser user) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COALESCE((SELECT version FROM user_stats_versions WHERE user_id = ?), 0)", Long.class, user.id());
+    }
+
+    private void insertWorkout(TestUser user, UUID id, LocalDateTime date) {
+        jdbcTemplate.update("""
+            INSERT INTO workout_history (history_id, user_id, workout_date, completed_at, duration_minutes, calories_burned)
+            VALUES (?, ?, ?, ?, 30, 200)
+            """, id, user.id(), Timestamp.valueOf(date), Timestamp.valueOf(date));
+    }
+
+    private void insertStat(TestUser user, UUID id, double weight, LocalDateTime date) {
+        jdbcTemplate.update("INSERT INTO user_stats (stat_id, user_id, weight, measurement_date) VALUES (?, ?, ?, ?)",
+            id, user.id(), weight, Timestamp.valueOf(date));
+    }
+
+    private int count(String sql, UUID id) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+}
@@ -0,0 +1,40 @@
+package com.fitpro.jobs;
+
+import com.fitpro.stats.PopulationMetric;
+import com.fitpro.stats.PopulationSketches;
+import com.fitpro.stats.PopulationSnapshot;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PopulationSketchJobTest extends IntegrationTest {
+    @Test
+    void rangeSizeDoesNotChangeTheSnapshot() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            TestUser user = signUp();
+            mockMvc.perform(post("/api/stats")
+                    .header("Authorization", user.authorization())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("weight", 70.0 + i, "height", 175.0))))
+                .andExpect(status().isOk());
+        }
+
+        long single = bmiCount(1);
+        long large = bmiCount(5000);
+
+        assertThat(single).isGreaterThanOrEqualTo(3).isEqualTo(large);
+        assertThat(bmiCount(2)).isEqualTo(large);
+    }
+
+    private long bmiCount(int rangeSize) {
+        PopulationSketches sketches = new PopulationSketches();
+        new PopulationSketchJob(jdbcTemplate, sketches, 200, 4, rangeSize, 2).build();
+        return sketches.getSnapshot().table(PopulationSnapshot.ALL, PopulationMetric.BMI).count();
+    }
+}
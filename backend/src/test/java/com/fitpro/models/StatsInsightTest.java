@@ -0,0 +1,122 @@
+package com.fitpro.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StatsInsightTest {
+    private static final double TREND_DAYS = 28;
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 7, 0);
+
+    @Test
+    void matchesRecomputationFromHistory() {
+        Random random = new Random(3);
+        int fitted = 0;
+        for (int trial = 0; trial < 500; trial++) {
+            StatsInsight insight = new StatsInsight();
+            List<double[]> samples = new ArrayList<>();
+            LocalDateTime at = START;
+            double weight = 90;
+            int count = 1 + random.nextInt(400);
+            for (int i = 0; i < count; i++) {
+                // Some weigh-ins share a timestamp
+                at = at.plusMinutes(random.nextInt(5) == 0 ? 0 : random.nextInt(60 * 24 * 3));
+                weight += -0.05 + random.nextGaussian() * 0.3;
+                assertThat(insight.apply(at, weight, null, null, TREND_DAYS)).isTrue();
+                samples.add(new double[]{Duration.between(START, at).toMillis() / 86_400_000.0, weight});
+            }
+
+            double last = samples.get(count - 1)[0];
+            assertThat(insight.getShortEma()).isCloseTo(ema(samples, last, StatsInsight.SHORT_EMA_DAYS), within(1e-9));
+            assertThat(insight.getLongEma()).isCloseTo(ema(samples, last, StatsInsight.LONG_EMA_DAYS), within(1e-9));
+
+            if (insight.getTrendSlope() != null) {
+                fitted++;
+                double n = 0, t = 0, y = 0, tt = 0, ty = 0;
+                for (double[] sample : samples) {
+                    double decay = Math.exp(-(last - sample[0]) / TREND_DAYS);
+                    double x = sample[0] - last;
+                    n += decay;
+                    t += decay * x;
+                    y += decay * sample[1];
+                    tt += decay * x * x;
+                    ty += decay * x * sample[1];
+                }
+                double slope = (n * ty - t * y) / (n * tt - t * t);
+                assertThat(insight.getTrendSlope()).isCloseTo(slope, within(1e-9));
+                assertThat(insight.getTrendLevel()).isCloseTo((y - slope * t) / n, within(1e-9));
+            }
+            assertThat(insight.getWeightSamples()).isEqualTo(count);
+            assertThat(insight.getLastWeight()).isEqualTo(weight);
+        }
+        assertThat(fitted).isGreaterThan(400);
+    }
+
+    @Test
+    void recoversALinearTrend() {
+        StatsInsight insight = new StatsInsight();
+        for (int day = 0; day < 60; day++) {
+            insight.apply(START.plusDays(day), 90 - 0.1 * day, null, null, TREND_DAYS);
+        }
+
+        assertThat(insight.getTrendSlope()).isCloseTo(-0.1, within(1e-9));
+        assertThat(insight.getTrendLevel()).isCloseTo(84.1, within(1e-9));
+    }
+
+    @Test
+    void fitsNoTrendUntilWeighInsAreSpreadOut() {
+        StatsInsight insight = new StatsInsight();
+        insight.apply(START, 80.0, null, null, TREND_DAYS);
+        assertThat(insight.getTrendSlope()).isNull();
+        assertThat(insight.getTrendLevel()).isNull();
+
+        insight.apply(START.plusHours(2), 80.5, null, null, TREND_DAYS);
+        assertThat(insight.getTrendSlope()).isNull();
+
+        insight.apply(START.plusDays(4), 79.0, null, null, TREND_DAYS);
+        assertThat(insight.getTrendSlope()).isNotNull();
+    }
+
+    @Test
+    void rejectsOlderWeightsWithoutChangingState() {
+        StatsInsight insight = new StatsInsight();
+        insight.apply(START.plusDays(1), 80.0, 180.0, 20.0, TREND_DAYS);
+
+        assertThat(insight.apply(START, 85.0, 175.0, 25.0, TREND_DAYS)).isFalse();
+
+        assertThat(insight.getWeightSamples()).isEqualTo(1);
+        assertThat(insight.getShortEma()).isEqualTo(80.0);
+        assertThat(insight.getLastHeight()).isEqualTo(180.0);
+        assertThat(insight.getLastBodyFat()).isEqualTo(20.0);
+    }
+
+    @Test
+    void keepsNewestHeightAndBodyFatWithoutWeight() {
+        StatsInsight insight = new StatsInsight();
+        insight.apply(START.plusDays(2), null, 181.0, 19.0, TREND_DAYS);
+
+        assertThat(insight.apply(START.plusDays(1), null, 175.0, 25.0, TREND_DAYS)).isTrue();
+        assertThat(insight.getLastHeight()).isEqualTo(181.0);
+        assertThat(insight.getLastBodyFat()).isEqualTo(19.0);
+        assertThat(insight.getWeightSamples()).isZero();
+        assertThat(insight.getShortEma()).isNull();
+    }
+
+    private static double ema(List<double[]> samples, double last, double timeConstant) {
+        double numerator = 0;
+        double denominator = 0;
+        for (double[] sample : samples) {
+            double decay = Math.exp(-(last - sample[0]) / timeConstant);
+            numerator += decay * sample[1];
+            denominator += decay;
+        }
+        return numerator / denominator;
+    }
+}
@@ -0,0 +1,130 @@
+package com.fitpro.models.id;
+
+import com.fitpro.support.TestDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput and primary key size for random (v4) against time-ordered (v7) ids.
+ * Each iteration fills a fresh table shaped like workout_history with the given number of
+ * rows in 1000-row batches, and prints the size and leaf density of its primary key.
+ * The gap grows once the index no longer fits in shared_buffers, so runs that should
+ * show it need a few million rows.
+ *
+ * Run with mvn -Pbenchmarks test -Djmh.args="UuidInsertBenchmark -p rows=3000000"; set
+ * TEST_POSTGRES_URL where embedded PostgreSQL cannot start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class UuidInsertBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    private static final String TABLE = "uuid_insert_benchmark";
+
+    @Param({"v4", "v7"})
+    public String ids;
+
+    @Param("500000")
+    public int rows;
+
+    private final UUID[] users = new UUID[1000];
+    private Supplier<UUID> idSource;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        TestDatabase database = TestDatabase.get();
+        connection = DriverManager.getConnection(
+            database.getUrl() + (database.getUrl().contains("?") ? "&" : "?") + "reWriteBatchedInserts=true",
+            database.getUsername(), database.getPassword());
+        idSource = "v7".equals(ids) ? UuidV7::next : UUID::randomUUID;
+        for (int i = 0; i < users.length; i++) {
+            users[i] = UUID.randomUUID();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createTable() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (history_id uuid PRIMARY KEY, user_id uuid NOT NULL, "
+                + "completed_at timestamp, duration_minutes int, calories_burned int)");
+        }
+    }
+
+    @Benchmark
+    public void insert() throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setObject(1, idSource.get());
+                insert.setObject(2, users[i % users.length]);
+                insert.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                insert.setInt(4, 30);
+                insert.setInt(5, 200);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0 || i == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIndex() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet size = statement.executeQuery("SELECT pg_relation_size('" + TABLE + "_pkey')")) {
+            size.next();
+            System.out.printf("%n%s primary key: %d MB%s%n", ids, size.getLong(1) >> 20, leafDensity(statement));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+        connection.close();
+    }
+
+    // Needs the pgstattuple extension, which not every server has
+    private static String leafDensity(Statement statement) {
+        try {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pgstattuple");
+            try (ResultSet density = statement.executeQuery("SELECT avg_leaf_density FROM pgstatindex('" + TABLE + "_pkey')")) {
+                density.next();
+                return String.format(", leaf density %.1f%%", density.getDouble(1));
+            }
+        } catch (SQLException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.fitpro.models.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+    @Test
+    void setsVersionAndVariant() {
+        UUID id = UuidV7.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void embedsCurrentTimeInMilliseconds() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        long millis = id.getMostSignificantBits() >>> 16;
+        // The counter may borrow a millisecond ahead when it overflows
+        assertThat(millis).isBetween(before, after + 1);
+    }
+
+    @Test
+    void increasesStrictlyWithinProcess() {
+        UUID previous = UuidV7.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.next();
+            // Unsigned comparison of the high half is the ordering PostgreSQL uses for uuid
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()))
+                .isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<UUID>>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    List<UUID> ids = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(UuidV7.next());
+                    }
+                    return ids;
+                });
+            }
+            Set<UUID> all = new HashSet<>();
+            Set<Long> highHalves = new HashSet<>();
+            for (Future<List<UUID>> result : executor.invokeAll(tasks)) {
+                for (UUID id : result.get()) {
+                    all.add(id);
+                    highHalves.add(id.getMostSignificantBits());
+                }
+            }
+            assertThat(all).hasSize(threads * perThread);
+            // Timestamp and counter alone are unique, without relying on the random bits
+            assertThat(highHalves).hasSize(threads * perThread);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.fitpro.repositories;
+
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionedRowIdsTest extends IntegrationTest {
+
+    @Test
+    void rejectsWorkoutIdInAnotherPartition() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        insertWorkout(user, id, LocalDateTime.now().minusDays(1));
+
+        assertThatThrownBy(() -> insertWorkout(user, id, LocalDateTime.now().minusYears(1)))
+            .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(count("SELECT count(*) FROM workout_history WHERE history_id = ?", id)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsStatIdInAnotherPartition() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        insertStat(user, id, LocalDateTime.now().minusDays(1));
+
+        assertThatThrownBy(() -> insertStat(user, id, LocalDateTime.now().minusYears(1)))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void releasesIdWhenRowIsDeleted() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        insertWorkout(user, id, LocalDateTime.now().minusDays(1));
+        jdbcTemplate.update("DELETE FROM workout_history WHERE history_id = ?", id);
+
+        insertWorkout(user, id, LocalDateTime.now().minusYears(1));
+        assertThat(count("SELECT count(*) FROM workout_history WHERE history_id = ?", id)).isEqualTo(1);
+    }
+
+    @Test
+    void deletesExercisesWithTheirWorkout() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        insertWorkout(user, id, LocalDateTime.now().minusDays(1));
+        insertExercise(id, "Squat");
+        insertExercise(id, "Bench Press");
+
+        jdbcTemplate.update("DELETE FROM workout_history WHERE history_id = ?", id);
+
+        assertThat(count("SELECT count(*) FROM workout_history_exercises WHERE history_id = ?", id)).isZero();
+    }
+
+    @Test
+    void keepsExercisesAndIdWhenWorkoutMovesPartition() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        insertWorkout(user, id, LocalDateTime.now().minusDays(1));
+        insertExercise(id, "Squat");
+
+        jdbcTemplate.update("UPDATE workout_history SET completed_at = ? WHERE history_id = ?",
+            Timestamp.valueOf(LocalDateTime.now().minusYears(2)), id);
+
+        assertThat(count("SELECT count(*) FROM workout_history_exercises WHERE history_id = ?", id)).isEqualTo(1);
+        assertThatThrownBy(() -> insertWorkout(user, id, LocalDateTime.now().minusDays(3)))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void keepsExercisesWhenRowsMoveOutOfTheDefaultPartition() throws Exception {
+        TestUser user = signUp();
+        UUID id = UUID.randomUUID();
+        LocalDateTime date = LocalDateTime.of(2013, 5, 14, 8, 0);
+        insertWorkout(user, id, date);
+        insertExercise(id, "Deadlift");
+
+        jdbcTemplate.queryForObject("SELECT ensure_monthly_partition('workout_history', ?)", Boolean.class,
+            date.toLocalDate().withDayOfMonth(1));
+        try {
+            assertThat(count("SELECT count(*) FROM workout_history_p201305 WHERE history_id = ?", id)).isEqualTo(1);
+            assertThat(count("SELECT count(*) FROM workout_history_exercises WHERE history_id = ?", id)).isEqualTo(1);
+            assertThatThrownBy(() -> insertWorkout(user, id, LocalDateTime.now()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        } finally {
+            // Other tests expect every populated partition to have been analyzed
+            jdbcTemplate.execute("DROP TABLE workout_history_p201305");
+        }
+    }
+
+    private void insertWorkout(TestUser user, UUID id, LocalDateTime date) {
+        jdbcTemplate.update("""
+            INSERT INTO workout_history (history_id, user_id, workout_date, completed_at, duration_minutes, calories_burned)
+            VALUES (?, ?, ?, ?, 30, 200)
+            """, id, user.id(), Timestamp.valueOf(date), Timestamp.valueOf(date));
+    }
+
+    private void insertExercise(UUID historyId, String name) {
+        jdbcTemplate.update("INSERT INTO workout_history_exercises (history_id, exercise_name, sets_completed) VALUES (?, ?, 3)",
+            historyId, name);
+    }
+
+    private void insertStat(TestUser user, UUID id, LocalDateTime date) {
+        jdbcTemplate.update("INSERT INTO user_stats (stat_id, user_id, weight, measurement_date) VALUES (?, ?, 80, ?)",
+            id, user.id(), Timestamp.valueOf(date));
+    }
+
+    private int count(String sql, UUID id) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+}
@@ -0,0 +1,218 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.User;
+import com.fitpro.support.IntegrationTest;
+import com.fitpro.support.SqlStatementCounter;
+import com.fitpro.support.TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every per-user query of WorkoutHistoryRepository and UserStatsRepository must reach its
+ * rows through an index. Each test runs a repository method, takes the SQL Hibernate
+ * generated for it and checks the generic plan PostgreSQL would use for any parameter
+ * values: no sequential scan of a workout_history or user_stats partition holding rows.
+ * Monthly partitions created ahead of time are empty, and scanning those costs nothing.
+ * Table statistics come from a few hundred seeded users, so the planner prices the
+ * scans as it would in production rather than for near-empty tables.
+ */
+class RepositoryIndexUsageTest extends IntegrationTest {
+    private static final Pattern SEQ_SCAN = Pattern.compile(
+        "Seq Scan on (workout_history\\w*|user_stats\\w*)");
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final int USERS = 300;
+    private static final int ROWS_PER_USER = 40;
+    private static boolean seeded;
+
+    @Autowired
+    private WorkoutHistoryRepository workoutHistoryRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        if (!seeded) {
+            seed();
+            seeded = true;
+        }
+        user = userRepository.findByEmail("index-0@example.com").orElseThrow();
+    }
+
+    @Test
+    void workoutHistoryQueries() {
+        UUID id = UUID.randomUUID();
+        assertIndexed("findByUserOrderByWorkoutDateDesc", () -> workoutHistoryRepository.findByUserOrderByWorkoutDateDesc(user));
+        assertIndexed("findPageBefore", () -> workoutHistoryRepository.findPageBefore(user, NOW, id, Limit.of(51)));
+        assertIndexed("findByUserEmailOrderByWorkoutDateDesc",
+            () -> workoutHistoryRepository.findByUserEmailOrderByWorkoutDateDesc(user.getEmail()));
+        assertIndexed("findCompletedWorkoutsAfterDate",
+            () -> workoutHistoryRepository.findCompletedWorkoutsAfterDate(user, NOW.minusDays(7)));
+        assertIndexed("findActiveDays", () -> workoutHistoryRepository.findActiveDays(user.getId()));
+        assertIndexed("findExercisesByHistoryIds",
+            () -> workoutHistoryRepository.findExercisesByHistoryIds(List.of(id, UUID.randomUUID())));
+        assertIndexed("findRecentExerciseNames",
+            () -> workoutHistoryRepository.findRecentExerciseNames(user.getId(), NOW.minusDays(14)));
+        assertIndexed("findRecentMuscleGroups",
+            () -> workoutHistoryRepository.findRecentMuscleGroups(user.getId(), NOW.minusDays(14)));
+        assertIndexed("findRollupSources", () -> workoutHistoryRepository.findRollupSources(user.getId()));
+        assertIndexed("countCompletedWorkouts", () -> workoutHistoryRepository.countCompletedWorkouts(user));
+        assertIndexed("countByUserId", () -> workoutHistoryRepository.countByUserId(user.getId()));
+        assertIndexed("findSummary", () -> workoutHistoryRepository.findSummary(user.getId()));
+        assertIndexed("findChangedSince", () -> workoutHistoryRepository.findChangedSince(user.getId(), 0));
+        assertIndexed("findOlderThan",
+            () -> workoutHistoryRepository.findOlderThan(user.getId(), NOW.minusDays(30), Limit.of(500)));
+        assertIndexed("findByUserAndWorkoutDateBetweenOrderByWorkoutDateDesc",
+            () -> workoutHistoryRepository.findByUserAndWorkoutDateBetweenOrderByWorkoutDateDesc(user, NOW.minusDays(30), NOW));
+        assertIndexed("findFirstByUserOrderByWorkoutDateDesc",
+            () -> workoutHistoryRepository.findFirstByUserOrderByWorkoutDateDesc(user));
+        assertIndexed("existsByIdAndUserId", () -> workoutHistoryRepository.existsByIdAndUserId(id, user.getId()));
+    }
+
+    @Test
+    void workoutHistoryWrites() {
+        UUID id = UUID.randomUUID();
+        assertIndexed("updateOwned", () -> workoutHistoryRepository.updateOwned(id, user.getId(), NOW, 30, 200, "Legs"));
+        assertIndexed("deleteExercisesOwnedBy", () -> workoutHistoryRepository.deleteExercisesOwnedBy(id, user.getId()));
+        assertIndexed("deleteOwnedBy", () -> workoutHistoryRepository.deleteOwnedBy(id, user.getId()));
+        assertIndexed("deleteExercisesByHistoryIds", () -> workoutHistoryRepository.deleteExercisesByHistoryIds(List.of(id)));
+        assertIndexed("deleteArchived", () -> workoutHistoryRepository.deleteArchived(List.of(id), NOW.minusDays(30)));
+    }
+
+    @Test
+    void userStatsQueries() {
+        UUID id = UUID.randomUUID();
+        assertIndexed("findFirstByUserOrderByMeasurementDateDesc",
+            () -> userStatsRepository.findFirstByUserOrderByMeasurementDateDesc(user));
+        assertIndexed("findByUserOrderByMeasurementDateDesc", () -> userStatsRepository.findByUserOrderByMeasurementDateDesc(user));
+        assertIndexed("findPageBefore", () -> userStatsRepository.findPageBefore(user, NOW, id, Limit.of(51)));
+        assertIndexed("findByUserAndMeasurementDateBetweenOrderByMeasurementDateDesc",
+            () -> userStatsRepository.findByUserAndMeasurementDateBetweenOrderByMeasurementDateDesc(user, NOW.minusDays(30), NOW));
+        assertIndexed("findRangeViews", () -> userStatsRepository.findRangeViews(user, NOW.minusDays(30), NOW));
+        assertIndexed("findByUserAndMeasurementDate", () -> userStatsRepository.findByUserAndMeasurementDate(user, NOW));
+        assertIndexed("findUserWeightProgress", () -> userStatsRepository.findUserWeightProgress(user));
+        assertIndexed("findUserBodyFatProgress", () -> userStatsRepository.findUserBodyFatProgress(user));
+        assertIndexed("findWeightProgressPageBefore",
+            () -> userStatsRepository.findWeightProgressPageBefore(user, NOW, id, Limit.of(51)));
+        assertIndexed("findBodyFatProgressPageBefore",
+            () -> userStatsRepository.findBodyFatProgressPageBefore(user, NOW, id, Limit.of(51)));
+        assertIndexed("findNewest", () -> userStatsRepository.findNewest(user.getId(), Limit.of(1000)));
+        assertIndexed("streamHistory", () -> drain(userStatsRepository.streamHistory(user.getId())));
+        assertIndexed("countWeightSeries", () -> userStatsRepository.countWeightSeries(user.getId(), NOW.minusDays(30), NOW));
+        assertIndexed("streamWeightSeries",
+            () -> drain(userStatsRepository.streamWeightSeries(user.getId(), NOW.minusDays(30), NOW)));
+        assertIndexed("countBodyFatSeries", () -> userStatsRepository.countBodyFatSeries(user.getId(), NOW.minusDays(30), NOW));
+        assertIndexed("streamBodyFatSeries",
+            () -> drain(userStatsRepository.streamBodyFatSeries(user.getId(), NOW.minusDays(30), NOW)));
+        assertIndexed("findChangedSince", () -> userStatsRepository.findChangedSince(user.getId(), 0));
+        assertIndexed("existsByIdAndUserId", () -> userStatsRepository.existsByIdAndUserId(id, user.getId()));
+    }
+
+    @Test
+    void userStatsWrites() {
+        UUID id = UUID.randomUUID();
+        assertIndexed("updateOwned", () -> userStatsRepository.updateOwned(id, user.getId(), 80.0, 180.0, 20.0, NOW));
+        assertIndexed("deleteOwnedBy", () -> userStatsRepository.deleteOwnedBy(id, user.getId()));
+    }
+
+    /**
+     * Run a repository call in a transaction that is rolled back and check the plan of
+     * every statement it issued
+     */
+    private void assertIndexed(String name, Runnable call) {
+        SqlStatementCounter.reset();
+        transactionTemplate.executeWithoutResult(status -> {
+            call.run();
+            status.setRollbackOnly();
+        });
+        List<String> statements = SqlStatementCounter.statements();
+        assertThat(statements).as(name).isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            Matcher seqScan = SEQ_SCAN.matcher(plan);
+            while (seqScan.find()) {
+                assertThat(isEmpty(seqScan.group(1))).as("%s scans %s sequentially:%n%s%n%s", name, seqScan.group(1), sql, plan).isTrue();
+            }
+            assertThat(plan).as("%s uses no index:%n%s%n%s", name, sql, plan).contains("Index");
+        }
+    }
+
+    // Streams only issue their query once read
+    private static void drain(Stream<?> rows) {
+        try (rows) {
+            rows.forEach(row -> { });
+        }
+    }
+
+    private boolean isEmpty(String relation) {
+        Float rows = jdbcTemplate.queryForObject("SELECT reltuples FROM pg_class WHERE relname = ?", Float.class, relation);
+        return rows != null && rows <= 0;
+    }
+
+    // The plan PostgreSQL picks without knowing the parameter values
+    private String explain(String sql) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + ++index);
+        }
+        matcher.appendTail(numbered);
+        // Unbound $n placeholders only get through the simple query protocol
+        TestDatabase database = TestDatabase.get();
+        try (Connection connection = DriverManager.getConnection(
+                 database.getUrl() + (database.getUrl().contains("?") ? "&" : "?") + "preferQueryMode=simple",
+                 database.getUsername(), database.getPassword());
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + numbered)) {
+            StringBuilder plan = new StringBuilder();
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to explain " + sql, e);
+        }
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO users (email, username, password_hash) "
+            + "SELECT 'index-' || u || '@example.com', 'index-' || u, 'x' FROM generate_series(0, ? - 1) u", USERS);
+        jdbcTemplate.update("INSERT INTO workout_history (user_id, completed_at, duration_minutes, calories_burned, muscle_group) "
+            + "SELECT user_id, LOCALTIMESTAMP - d * interval '1 day', 45, 300, 'Chest' "
+            + "FROM users, generate_series(1, ?) d WHERE email LIKE 'index-%'", ROWS_PER_USER);
+        jdbcTemplate.update("INSERT INTO workout_history_exercises (history_id, exercise_name, sets_completed) "
+            + "SELECT h.history_id, e, 3 FROM workout_history h JOIN users u ON u.user_id = h.user_id, "
+            + "unnest(ARRAY['Bench Press', 'Push Up']) e WHERE u.email LIKE 'index-%'");
+        jdbcTemplate.update("INSERT INTO user_stats (user_id, weight, height, body_fat_percentage, measurement_date) "
+            + "SELECT user_id, 80, 180, CASE WHEN d % 2 = 0 THEN 20 END, LOCALTIMESTAMP - d * interval '1 day' "
+            + "FROM users, generate_series(1, ?) d WHERE email LIKE 'index-%'", ROWS_PER_USER);
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
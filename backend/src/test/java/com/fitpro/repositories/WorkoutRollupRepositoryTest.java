@@ -0,0 +1,54 @@
+package com.fitpro.repositories;
+
+import com.fitpro.services.WorkoutArchiveService;
+import com.fitpro.services.WorkoutRollupService;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkoutRollupRepositoryTest extends IntegrationTest {
+    @Autowired
+    private WorkoutRollupRepository workoutRollupRepository;
+
+    @Autowired
+    private WorkoutRollupService workoutRollupService;
+
+    @Autowired
+    private WorkoutArchiveService archiveService;
+
+    @Test
+    void findsUsersWithOnlyArchivedWorkouts() throws Exception {
+        TestUser user = signUp();
+        LocalDateTime start = LocalDateTime.now().minusYears(3);
+        for (int i = 0; i < 5; i++) {
+            insertWorkout(user, start.plusDays(i));
+        }
+        assertThat(archiveService.archiveUser(user.id(), LocalDateTime.now())).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM workout_history WHERE user_id = ?", Integer.class, user.id()))
+            .isZero();
+
+        assertThat(workoutRollupRepository.findUsersMissingRollups()).contains(user.id());
+
+        workoutRollupService.rebuild(user.id());
+        assertThat(workoutRollupRepository.findUsersMissingRollups()).doesNotContain(user.id());
+    }
+
+    @Test
+    void findsUsersWithHistoryOnce() throws Exception {
+        TestUser user = signUp();
+        insertWorkout(user, LocalDateTime.now().minusDays(2));
+        insertWorkout(user, LocalDateTime.now().minusDays(1));
+
+        assertThat(workoutRollupRepository.findUsersMissingRollups()).containsOnlyOnce(user.id());
+    }
+
+    private void insertWorkout(TestUser user, LocalDateTime date) {
+        jdbcTemplate.update("INSERT INTO workout_history (user_id, workout_date, completed_at, duration_minutes, calories_burned) " +
+            "VALUES (?, ?, ?, 30, 200)", user.id(), Timestamp.valueOf(date), Timestamp.valueOf(date));
+    }
+}
@@ -0,0 +1,121 @@
+package com.fitpro.repositories;
+
+import com.fitpro.models.WorkoutStreak;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WorkoutStreakRepositoryTest extends IntegrationTest {
+    @Autowired
+    private WorkoutStreakRepository workoutStreakRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void advancesOnConsecutiveDaysAndResetsAfterGap() throws Exception {
+        TestUser user = signUp();
+        LocalDate day = LocalDate.of(2024, 3, 1);
+
+        assertThat(record(user, day)).isEqualTo(1);
+        assertState(user, 1, 1, day, 1);
+
+        // A second workout the same day only counts towards the total
+        record(user, day);
+        assertState(user, 1, 1, day, 2);
+
+        record(user, day.plusDays(1));
+        record(user, day.plusDays(2));
+        assertState(user, 3, 3, day.plusDays(2), 4);
+
+        record(user, day.plusDays(5));
+        assertState(user, 1, 3, day.plusDays(5), 5);
+    }
+
+    @Test
+    void leavesStateAloneForEarlierDays() throws Exception {
+        TestUser user = signUp();
+        LocalDate day = LocalDate.of(2024, 3, 10);
+        record(user, day);
+        record(user, day.plusDays(1));
+
+        assertThat(record(user, day.minusDays(3))).isZero();
+        assertState(user, 2, 2, day.plusDays(1), 2);
+    }
+
+    @Test
+    void countsConcurrentFirstWorkoutsOnce() throws Exception {
+        TestUser user = signUp();
+        LocalDate day = LocalDate.of(2024, 4, 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> updates = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                updates.add(executor.submit(() -> record(user, day)));
+            }
+            for (Future<Integer> update : updates) {
+                assertThat(update.get(30, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertState(user, 1, 1, day, 8);
+    }
+
+    @Test
+    void backfilledWorkoutRebuildsTheStreak() throws Exception {
+        TestUser user = signUp();
+        LocalDate today = LocalDate.now();
+        for (LocalDate day : List.of(today.minusDays(3), today.minusDays(2), today)) {
+            saveWorkout(user, day);
+        }
+        assertState(user, 1, 2, today, 3);
+
+        // Fills the gap, which the upsert cannot do, so the state is rebuilt from history
+        saveWorkout(user, today.minusDays(1));
+        assertState(user, 4, 4, today, 4);
+        mockMvc.perform(get("/api/workouts/streak").header("Authorization", user.authorization()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.streak").value(4))
+            .andExpect(jsonPath("$.longestStreak").value(4));
+    }
+
+    private int record(TestUser user, LocalDate day) {
+        return transactionTemplate.execute(status -> workoutStreakRepository.recordActiveDay(user.id(), day));
+    }
+
+    private void saveWorkout(TestUser user, LocalDate day) throws Exception {
+        mockMvc.perform(post("/api/workouts")
+                .header("Authorization", user.authorization())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("workoutDate", day.atTime(7, 0).toString(),
+                    "durationMinutes", 30, "caloriesBurned", 200))))
+            .andExpect(status().isOk());
+    }
+
+    private void assertState(TestUser user, int current, int longest, LocalDate lastActiveDay, long total) {
+        WorkoutStreak streak = workoutStreakRepository.findById(user.id()).orElseThrow();
+        assertThat(streak.getCurrentStreak()).isEqualTo(current);
+        assertThat(streak.getLongestStreak()).isEqualTo(longest);
+        assertThat(streak.getLastActiveDay()).isEqualTo(lastActiveDay);
+        assertThat(streak.getTotalWorkouts()).isEqualTo(total);
+    }
+}
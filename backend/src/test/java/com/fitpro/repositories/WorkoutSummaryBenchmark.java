@@ -0,0 +1,108 @@
+package com.fitpro.repositories;
+
+import com.fitpro.support.TestDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the workout stats lookup for a user with many history rows: the three
+ * statements getWorkoutStats used to run (streak row, COUNT over history, newest entry)
+ * against the single findSummary query. Sample mode reports p50 and p99 per method.
+ *
+ * Run with mvn -Pbenchmarks test -Djmh.args=WorkoutSummaryBenchmark; set TEST_POSTGRES_URL
+ * where embedded PostgreSQL cannot start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class WorkoutSummaryBenchmark {
+    private static final String STREAK_SQL =
+        "SELECT current_streak, longest_streak, last_active_day FROM workout_streaks WHERE user_id = ?";
+    private static final String COUNT_SQL =
+        "SELECT count(history_id) FROM workout_history WHERE user_id = ?";
+    private static final String LATEST_SQL =
+        "SELECT history_id, calories_burned, duration_minutes, muscle_group, user_id, completed_at, workout_id " +
+        "FROM workout_history WHERE user_id = ? ORDER BY completed_at DESC FETCH FIRST 1 ROWS ONLY";
+
+    @Param("10000")
+    public int rows;
+
+    private final UUID userId = UUID.randomUUID();
+    private Connection connection;
+    private PreparedStatement streak;
+    private PreparedStatement count;
+    private PreparedStatement latest;
+    private PreparedStatement summary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = TestDatabase.get().migrate().connect();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (user_id, email, username, password_hash) VALUES ('"
+                + userId + "', 'bench@example.com', 'bench', 'x')");
+            statement.execute("INSERT INTO workout_history (user_id, completed_at, duration_minutes, calories_burned, muscle_group) "
+                + "SELECT '" + userId + "', LOCALTIMESTAMP - g * interval '5 hours', 45, 300, 'Chest' "
+                + "FROM generate_series(1, " + rows + ") g");
+            statement.execute("INSERT INTO workout_streaks (user_id, current_streak, longest_streak, last_active_day, total_workouts) "
+                + "VALUES ('" + userId + "', 1, 30, CURRENT_DATE, " + rows + ")");
+            statement.execute("ANALYZE");
+        }
+        streak = connection.prepareStatement(STREAK_SQL);
+        count = connection.prepareStatement(COUNT_SQL);
+        latest = connection.prepareStatement(LATEST_SQL);
+        // The repository's own SQL, so the benchmark follows changes to the query
+        String summarySql = WorkoutHistoryRepository.class.getMethod("findSummary", UUID.class)
+            .getAnnotation(Query.class).value().replace(":userId", "?");
+        summary = connection.prepareStatement(summarySql);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void threeQueries(Blackhole blackhole) throws SQLException {
+        drain(streak, blackhole);
+        drain(count, blackhole);
+        drain(latest, blackhole);
+    }
+
+    @Benchmark
+    public void summaryQuery(Blackhole blackhole) throws SQLException {
+        drain(summary, blackhole);
+    }
+
+    private void drain(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        statement.setObject(1, userId);
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(result.getObject(1));
+            }
+        }
+    }
+}
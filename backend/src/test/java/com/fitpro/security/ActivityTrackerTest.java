@@ -0,0 +1,142 @@
+package com.fitpro.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivityTrackerTest {
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private JdbcTemplate jdbcTemplate;
+    private ActivityTracker tracker;
+    // Every batch handed to the database, copied as it was sent
+    private List<List<Object[]>> batches;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        tracker = new ActivityTracker(jdbcTemplate, 2);
+        batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            batches.add(new ArrayList<>(rows));
+            return new int[rows.size()];
+        });
+    }
+
+    @Test
+    void coalescesRepeatedActivityIntoOneUpdatePerUser() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            tracker.record(alice);
+            Thread.sleep(1);
+        }
+        long lastSeen = System.currentTimeMillis();
+        tracker.record(bob);
+        tracker.record(null);
+
+        tracker.flush();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(row -> row[1]).containsExactlyInAnyOrder(alice, bob);
+        assertThat(seenAt(batches.get(0), alice)).isLessThanOrEqualTo(lastSeen).isGreaterThan(lastSeen - 1000);
+        assertThat(tracker.getRecorded()).isEqualTo(6);
+        assertThat(tracker.getFlushedUsers()).isEqualTo(2);
+        assertThat(tracker.getPending()).isZero();
+
+        tracker.flush();
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void splitsLargeFlushesIntoBatches() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record(UUID.randomUUID());
+        }
+
+        tracker.flush();
+
+        assertThat(batches).extracting(List::size).containsExactlyInAnyOrder(2, 2, 1);
+        assertThat(tracker.getFlushes()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsActivityRecordedWhileFlushing() {
+        tracker.record(alice);
+        doAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            batches.add(new ArrayList<>(rows));
+            recordLater(alice, seenAt(rows, alice));
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        tracker.flush();
+
+        // The drained entry was replaced by newer activity, which waits for the next flush
+        assertThat(tracker.getPending()).isEqualTo(1);
+        long first = seenAt(batches.get(0), alice);
+        tracker.flush();
+        assertThat(seenAt(batches.get(1), alice)).isGreaterThan(first);
+    }
+
+    @Test
+    void putsRowsBackAfterFailedFlush() {
+        tracker.record(alice);
+        tracker.record(bob);
+        List<Long> attempted = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            attempted.add(seenAt(rows, alice));
+            // Alice is seen again while the failing write is in flight
+            recordLater(alice, seenAt(rows, alice));
+            throw new DataAccessResourceFailureException("connection lost");
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        tracker.flush();
+
+        assertThat(tracker.getFailedFlushes()).isEqualTo(1);
+        assertThat(tracker.getFlushes()).isZero();
+        assertThat(tracker.getPending()).isEqualTo(2);
+
+        doAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            batches.add(new ArrayList<>(rows));
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        tracker.flush();
+
+        // Both users are retried, and the newer activity wins over the failed row
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(row -> row[1]).containsExactlyInAnyOrder(alice, bob);
+        assertThat(seenAt(batches.get(0), alice)).isGreaterThan(attempted.get(0));
+        assertThat(tracker.getPending()).isZero();
+    }
+
+    // Record activity strictly later than the given time
+    private void recordLater(UUID userId, long after) throws InterruptedException {
+        while (System.currentTimeMillis() <= after) {
+            Thread.sleep(1);
+        }
+        tracker.record(userId);
+    }
+
+    private static long seenAt(List<Object[]> rows, UUID userId) {
+        return rows.stream()
+            .filter(row -> row[1].equals(userId))
+            .map(row -> ((Timestamp) row[0]).getTime())
+            .findFirst()
+            .orElseThrow();
+    }
+}
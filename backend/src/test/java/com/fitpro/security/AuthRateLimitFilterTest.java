@@ -0,0 +1,91 @@
+package com.fitpro.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthRateLimitFilterTest {
+    private static final String BODY = "{\"email\":\"User@Example.com\",\"password\":\"secret\"}";
+
+    private final AuthRateLimitFilter filter = new AuthRateLimitFilter(true, 2, 0, 1, 0, 100, 8192);
+
+    @Test
+    void limitsPerAccountAndPassesBodyThrough() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(login("10.0.0.1", BODY), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+
+        // Same account from another address; emails are compared case-insensitively
+        response = new MockHttpServletResponse();
+        filter.doFilter(login("10.0.0.2", BODY.replace("User", "user")), response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(429);
+        // The bucket never refills, which must not overflow into a one-second retry
+        assertThat(response.getHeader("Retry-After")).isEqualTo("86400");
+    }
+
+    @Test
+    void limitsPerAddress() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(login("10.0.0.3", "{\"email\":\"a" + i + "@example.com\"}"), response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(login("10.0.0.3", "{\"email\":\"b@example.com\"}"), response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void cachedBodySupportsReadListeners() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(login("10.0.0.4", BODY), new MockHttpServletResponse(), chain);
+
+        ServletInputStream in = ((HttpServletRequest) chain.getRequest()).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] done = new boolean[1];
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[8];
+                int n;
+                while (in.isReady() && !in.isFinished() && (n = in.read(buffer)) > 0) {
+                    read.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertThat(done[0]).isTrue();
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(BODY);
+    }
+
+    private static MockHttpServletRequest login(String remoteAddr, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
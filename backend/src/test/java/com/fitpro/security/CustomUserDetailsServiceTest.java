@@ -0,0 +1,135 @@
+package com.fitpro.security;
+
+import com.fitpro.models.User;
+import com.fitpro.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomUserDetailsServiceTest {
+    private final UUID userId = UUID.randomUUID();
+    private UserRepository userRepository;
+    private PrincipalCache principalCache;
+    private CustomUserDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        principalCache = new PrincipalCache(100, 300);
+        service = new CustomUserDetailsService(userRepository, principalCache);
+    }
+
+    @Test
+    void buildsPrincipalFromCurrentClaims() {
+        when(userRepository.findProfileVersion(userId)).thenReturn(2L);
+
+        CustomUserDetails principal = service.loadUserFromClaims(claims(2));
+
+        assertThat(principal).isNotNull();
+        assertThat(principal.getUserId()).isEqualTo(userId);
+        assertThat(principal.getProfileVersion()).isEqualTo(2);
+        assertThat(principal.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void rejectsClaimsOlderThanTheProfile() {
+        when(userRepository.findProfileVersion(userId)).thenReturn(3L);
+
+        assertThat(service.loadUserFromClaims(claims(2))).isNull();
+    }
+
+    @Test
+    void rejectsClaimsOfDeletedUsers() {
+        when(userRepository.findProfileVersion(userId)).thenReturn(null);
+
+        assertThat(service.loadUserFromClaims(claims(0))).isNull();
+    }
+
+    @Test
+    void cachesVersionUntilInvalidated() {
+        when(userRepository.findProfileVersion(userId)).thenReturn(1L, 2L);
+
+        assertThat(service.loadUserFromClaims(claims(1))).isNotNull();
+        assertThat(service.loadUserFromClaims(claims(1))).isNotNull();
+        verify(userRepository, times(1)).findProfileVersion(userId);
+
+        principalCache.invalidate(userId);
+        assertThat(service.loadUserFromClaims(claims(1))).isNull();
+    }
+
+    @Test
+    void ignoresTokensWithoutUserId() {
+        TokenClaims claims = new TokenClaims("user@example.com", 0, Long.MAX_VALUE, Map.of());
+
+        assertThat(service.loadUserFromClaims(claims)).isNull();
+    }
+
+    @Test
+    void servesCachedPrincipalsWithoutSharingUserOrPasswordHash() {
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user(1)));
+        when(userRepository.findProfileVersion(userId)).thenReturn(1L);
+
+        CustomUserDetails first = service.loadCachedUser("user@example.com");
+        CustomUserDetails second = service.loadCachedUser("user@example.com");
+
+        verify(userRepository, times(1)).findByEmail("user@example.com");
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getUserId()).isEqualTo(userId);
+        assertThat(second.getProfileVersion()).isEqualTo(1);
+        assertThat(first.getPassword()).isNull();
+        assertThat(second.getPassword()).isNull();
+    }
+
+    @Test
+    void reloadsCachedPrincipalBehindTheProfileVersion() {
+        // The cached snapshot predates a profile change made through another instance
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user(1)), Optional.of(user(2)));
+        when(userRepository.findProfileVersion(userId)).thenReturn(2L);
+
+        CustomUserDetails principal = service.loadCachedUser("user@example.com");
+
+        assertThat(principal.getProfileVersion()).isEqualTo(2);
+        verify(userRepository, times(2)).findByEmail("user@example.com");
+        assertThat(service.loadCachedUser("user@example.com").getProfileVersion()).isEqualTo(2);
+        verify(userRepository, times(2)).findByEmail("user@example.com");
+    }
+
+    @Test
+    void resolvesUserPerPrincipal() {
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user(0)));
+        when(userRepository.findProfileVersion(userId)).thenReturn(0L);
+        when(userRepository.getReferenceById(userId)).thenAnswer(invocation -> user(0));
+
+        User first = service.loadCachedUser("user@example.com").getUser();
+        User second = service.loadCachedUser("user@example.com").getUser();
+
+        assertThat(second).isNotSameAs(first);
+        verify(userRepository, times(2)).getReferenceById(userId);
+    }
+
+    private User user(long profileVersion) {
+        User user = new User();
+        user.setId(userId);
+        user.setEmail("user@example.com");
+        user.setPasswordHash("$2a$10$hash");
+        user.setProfileVersion(profileVersion);
+        return user;
+    }
+
+    private TokenClaims claims(long profileVersion) {
+        return new TokenClaims("user@example.com", 0, Long.MAX_VALUE, Map.of(
+            JwtTokenProvider.CLAIM_USER_ID, userId.toString(),
+            JwtTokenProvider.CLAIM_PROFILE_VERSION, profileVersion,
+            JwtTokenProvider.CLAIM_AUTHORITIES, List.of("ROLE_USER")));
+    }
+}
@@ -0,0 +1,91 @@
+package com.fitpro.security;
+
+import com.fitpro.models.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verifications per second: the old path (key decoded and the token parsed twice with
+ * jjwt per request), single-parse verification with the cache disabled, and the cached path
+ * taken by repeat requests with the same token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = Base64.getEncoder()
+        .encodeToString("benchmark-secret-benchmark-secret-0123456789".getBytes(StandardCharsets.UTF_8));
+
+    private JwtTokenProvider uncached;
+    private JwtTokenProvider cached;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        uncached = provider(0);
+        cached = provider(10_000);
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("bench@example.com");
+        user.setProfileVersion(3L);
+        token = cached.generateToken(new CustomUserDetails(user));
+    }
+
+    @Benchmark
+    public String doubleParse() {
+        // What validateToken followed by getUsernameFromToken did before single-parse verification
+        Jwts.parserBuilder().setSigningKey(signingKey()).build().parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder().setSigningKey(signingKey()).build().parseClaimsJws(token).getBody();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public TokenClaims singleParse() {
+        return uncached.verifyToken(token);
+    }
+
+    @Benchmark
+    public TokenClaims cachedVerification() {
+        return cached.verifyToken(token);
+    }
+
+    private static Key signingKey() {
+        return new SecretKeySpec(Base64.getDecoder().decode(SECRET.getBytes()), SignatureAlgorithm.HS256.getJcaName());
+    }
+
+    private static JwtTokenProvider provider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "secretKey", SECRET);
+        ReflectionTestUtils.setField(provider, "validityInMilliseconds", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(provider, "selfContained", true);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+}
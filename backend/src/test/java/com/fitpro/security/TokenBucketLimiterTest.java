@@ -0,0 +1,105 @@
+package com.fitpro.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTest {
+    // Ahead of the epoch of every limiter built in a test, which clamps earlier times to it
+    private final long start = System.currentTimeMillis() + 60_000;
+
+    @Test
+    void allowsCapacityThenReportsRetryDelay() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 60, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("a", start)).isZero();
+        }
+        // One token per second at 60 per minute
+        assertThat(limiter.tryAcquire("a", start)).isEqualTo(1000);
+        assertThat(limiter.tryAcquire("b", start)).isZero();
+    }
+
+    @Test
+    void refillsOverTime() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 60, 100);
+        limiter.tryAcquire("a", start);
+        limiter.tryAcquire("a", start);
+
+        assertThat(limiter.tryAcquire("a", start + 400)).isEqualTo(600);
+        assertThat(limiter.tryAcquire("a", start + 1000)).isZero();
+        assertThat(limiter.tryAcquire("a", start + 1000)).isPositive();
+        // Never refills past capacity
+        assertThat(limiter.tryAcquire("a", start + 60_000)).isZero();
+        assertThat(limiter.tryAcquire("a", start + 60_000)).isZero();
+        assertThat(limiter.tryAcquire("a", start + 60_000)).isPositive();
+    }
+
+    @Test
+    void sweepsRefilledBucketsWhenFull() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 60, 2);
+        limiter.tryAcquire("a", start);
+        limiter.tryAcquire("b", start);
+
+        // Both buckets have refilled after a second, so they are swept to make room
+        assertThat(limiter.tryAcquire("c", start + 2000)).isZero();
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsFullestBucketWhenEveryBucketIsDraining() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 0, 2);
+        limiter.tryAcquire("a", start);
+        limiter.tryAcquire("a", start);
+        limiter.tryAcquire("b", start);
+
+        // Neither bucket refills, so "b", with a token left, makes room for the new key
+        assertThat(limiter.tryAcquire("c", start + 2000)).isZero();
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(limiter.tryAcquire("a", start + 2000)).isPositive();
+        assertThat(limiter.tryAcquire("b", start + 2000)).isZero();
+    }
+
+    @Test
+    void keepsAdmittingNewKeysWhenFull() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 0, 100);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(limiter.tryAcquire("key-" + i, start)).isZero();
+            assertThat(limiter.tryAcquire("key-" + i, start)).isPositive();
+        }
+        assertThat(limiter.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, 0, 10);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.tryAcquire("shared", start) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(allowed.get()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,125 @@
+package com.fitpro.services;
+
+import com.fitpro.exceptions.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blocking;
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void hashesAndMatchesOnThePool() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 2, 4, 5000, 2);
+
+        String hash = service.encode("password123");
+
+        assertThat(service.matches("password123", hash)).isTrue();
+        assertThat(service.matches("wrong", hash)).isFalse();
+        assertThat(service.matches(null, hash)).isFalse();
+        assertThat(service.getCompletedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void unknownAccountsStillPayForAHashButNeverMatch() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 1, 4, 5000, 2);
+        long completed = service.getCompletedCount();
+
+        // The dummy hash is of a known string, which must not unlock a missing account
+        assertThat(service.matches("fitpro-timing-equaliser", null)).isFalse();
+        assertThat(service.getCompletedCount()).isEqualTo(completed + 1);
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenTheQueueIsFull() throws Exception {
+        service = new PasswordHashingService(new BlockingEncoder(), 1, 1, 5000, 7);
+        blocking = true;
+
+        // One hash occupies the only thread and the other fills the queue
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> service.encode("a"));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> service.encode("b"));
+        waitUntil(() -> service.getQueueDepth() == 1);
+
+        assertThatThrownBy(() -> service.encode("c"))
+            .isInstanceOfSatisfying(ServiceBusyException.class, e -> {
+                assertThat(e.getCode()).isEqualTo("AUTH_BUSY");
+                assertThat(e.getRetryAfterSeconds()).isEqualTo(7);
+            });
+        assertThat(service.getRejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:a");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:b");
+    }
+
+    @Test
+    void givesUpOnHashesThatOutlastTheTimeout() {
+        service = new PasswordHashingService(new BlockingEncoder(), 1, 4, 50, 2);
+        blocking = true;
+
+        assertThatThrownBy(() -> service.matches("a", "hashed:a"))
+            .isInstanceOf(ServiceBusyException.class);
+        assertThat(service.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void flagsHashesWithALowerCost() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(5), 1, 4, 5000, 2);
+
+        assertThat(service.needsRehash(new BCryptPasswordEncoder(4).encode("password123"))).isTrue();
+        assertThat(service.needsRehash(service.encode("password123"))).isFalse();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("pool did not reach the expected state").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // Once blocking is set, holds every hash until the test releases it
+    private class BlockingEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+
+        private void await() {
+            if (!blocking) {
+                return;
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
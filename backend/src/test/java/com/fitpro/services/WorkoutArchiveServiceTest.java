@@ -0,0 +1,128 @@
+package com.fitpro.services;
+
+import com.fitpro.archive.WorkoutArchiveStore;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WorkoutArchiveServiceTest extends IntegrationTest {
+    private static final int OLD_WORKOUTS = 60;
+
+    @Autowired
+    private WorkoutArchiveService archiveService;
+
+    @Autowired
+    private WorkoutArchiveStore archiveStore;
+
+    @Value("${archive.directory}")
+    private Path archiveDirectory;
+
+    @Test
+    void writesSegmentFileAndRecordsIds() throws Exception {
+        TestUser user = signUp();
+        List<UUID> oldIds = insertOldWorkouts(user);
+        insertWorkout(user, UUID.randomUUID(), LocalDateTime.now().minusDays(1));
+
+        assertThat(archiveService.archiveUser(user.id(), cutoff())).isEqualTo(OLD_WORKOUTS);
+
+        assertThat(count("SELECT count(*) FROM workout_history WHERE user_id = ?", user.id())).isEqualTo(1);
+        String fileName = jdbcTemplate.queryForObject(
+            "SELECT file_name FROM workout_archive_segments WHERE user_id = ?", String.class, user.id());
+        assertThat(archiveDirectory.resolve(user.id().toString()).resolve(fileName)).isRegularFile();
+        assertThat(jdbcTemplate.queryForList("SELECT history_id FROM workout_archive_ids WHERE user_id = ?", UUID.class, user.id()))
+            .containsExactlyInAnyOrderElementsOf(oldIds);
+        assertThat(archiveStore.readWorkouts(user.id())).hasSize(OLD_WORKOUTS);
+        assertThat(archiveStore.findActiveDays(user.id())).hasSize(OLD_WORKOUTS);
+    }
+
+    @Test
+    void rejectsPushesForArchivedWorkouts() throws Exception {
+        TestUser user = signUp();
+        UUID archivedId = insertOldWorkouts(user).get(0);
+        archiveService.archiveUser(user.id(), cutoff());
+
+        Map<String, Object> workout = Map.of("id", archivedId, "workoutDate", "2020-01-01T10:00:00",
+            "durationMinutes", 30, "caloriesBurned", 200, "exercises", Map.of());
+        push(user, Map.of("workouts", List.of(workout)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results[0].status").value("REJECTED"));
+        push(user, Map.of("deleted", List.of(Map.of("type", "workout", "id", archivedId))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results[0].status").value("REJECTED"));
+
+        assertThat(count("SELECT count(*) FROM workout_history WHERE history_id = ?", archivedId)).isZero();
+        assertThat(archiveStore.readWorkouts(user.id())).hasSize(OLD_WORKOUTS);
+    }
+
+    @Test
+    void skipsSegmentsThatCannotBeRead() throws Exception {
+        TestUser user = signUp();
+        insertOldWorkouts(user);
+        archiveService.archiveUser(user.id(), cutoff());
+        // One segment whose file is gone and one whose file is damaged
+        registerSegment(user, "missing.seg", LocalDateTime.now().minusYears(6));
+        registerSegment(user, "damaged.seg", LocalDateTime.now().minusYears(7));
+        Files.write(archiveDirectory.resolve(user.id().toString()).resolve("damaged.seg"), new byte[64]);
+
+        assertThat(archiveStore.readWorkouts(user.id())).hasSize(OLD_WORKOUTS);
+        assertThat(archiveStore.findActiveDays(user.id())).hasSize(OLD_WORKOUTS);
+    }
+
+    private void registerSegment(TestUser user, String fileName, LocalDateTime date) {
+        jdbcTemplate.update("""
+            INSERT INTO workout_archive_segments (user_id, file_name, row_count, first_workout_at, last_workout_at, size_bytes)
+            VALUES (?, ?, 5, ?, ?, 100)
+            """, user.id(), fileName, Timestamp.valueOf(date), Timestamp.valueOf(date));
+    }
+
+    private List<UUID> insertOldWorkouts(TestUser user) {
+        LocalDateTime start = LocalDateTime.now().minusYears(3).truncatedTo(ChronoUnit.DAYS);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < OLD_WORKOUTS; i++) {
+            UUID id = UUID.randomUUID();
+            insertWorkout(user, id, start.plusDays(i).plusHours(7));
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private void insertWorkout(TestUser user, UUID id, LocalDateTime date) {
+        jdbcTemplate.update("""
+            INSERT INTO workout_history (history_id, user_id, workout_date, completed_at, duration_minutes, calories_burned)
+            VALUES (?, ?, ?, ?, 30, 200)
+            """, id, user.id(), Timestamp.valueOf(date), Timestamp.valueOf(date));
+    }
+
+    private static LocalDateTime cutoff() {
+        return LocalDateTime.now().minusDays(730);
+    }
+
+    private ResultActions push(TestUser user, Map<String, Object> body) throws Exception {
+        return mockMvc.perform(post("/api/sync")
+            .header("Authorization", user.authorization())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(body)));
+    }
+
+    private int count(String sql, UUID id) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+}
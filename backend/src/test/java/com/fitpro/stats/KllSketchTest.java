@@ -0,0 +1,131 @@
+package com.fitpro.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class KllSketchTest {
+    private static final int K = 200;
+    // Rank error is around 1.7 / k, so 0.85 percentile points at k = 200; allow for the random compactions
+    private static final double MAX_ERROR_POINTS = 2.0;
+
+    @Test
+    void mergedSketchesTrackExactPercentiles() {
+        Random random = new Random(5);
+        assertAccurate(() -> random.nextDouble() * 100);
+        assertAccurate(() -> Math.exp(random.nextGaussian() + 4));
+        // Many ties at zero, then whole minutes
+        assertAccurate(() -> random.nextInt(3) == 0 ? 0 : Math.round(-Math.log(random.nextDouble()) * 120));
+    }
+
+    @Test
+    void isExactWhileNothingIsCompacted() {
+        KllSketch sketch = new KllSketch(K, new SplittableRandom(1));
+        for (double value : new double[]{5, 1, 3, 3, 9}) {
+            sketch.update(value);
+        }
+
+        KllSketch.QuantileTable table = sketch.toTable();
+
+        assertThat(table.values()).containsExactly(1, 3, 3, 5, 9);
+        assertThat(table.count()).isEqualTo(5);
+        assertThat(table.percentile(3)).isCloseTo(40.0, within(1e-9));
+        assertThat(table.percentile(0)).isZero();
+        assertThat(table.percentile(10)).isEqualTo(100.0);
+    }
+
+    @Test
+    void keepsTotalWeightAndBoundedSize() {
+        KllSketch sketch = new KllSketch(K, new SplittableRandom(2));
+        for (int i = 0; i < 1_000_000; i++) {
+            sketch.update(i);
+        }
+
+        KllSketch.QuantileTable table = sketch.toTable();
+
+        assertThat(sketch.getCount()).isEqualTo(1_000_000);
+        assertThat(table.count()).isEqualTo(1_000_000);
+        assertThat(table.values().length).isLessThan(4 * K);
+    }
+
+    @Test
+    void ignoresNaNAndHandlesEmptySketches() {
+        KllSketch sketch = new KllSketch(K);
+        sketch.update(Double.NaN);
+
+        assertThat(sketch.getCount()).isZero();
+        assertThat(sketch.toTable().percentile(1)).isNull();
+
+        sketch.merge(new KllSketch(K));
+        assertThat(sketch.getCount()).isZero();
+    }
+
+    @Test
+    void rejectsTinyK() {
+        assertThatThrownBy(() -> new KllSketch(4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertAccurate(DoubleSupplier distribution) {
+        int count = 1_000_000;
+        int parts = 16;
+        double[] all = new double[count];
+        KllSketch[] sketches = new KllSketch[parts];
+        for (int p = 0; p < parts; p++) {
+            sketches[p] = new KllSketch(K, new SplittableRandom(p));
+        }
+        for (int i = 0; i < count; i++) {
+            all[i] = distribution.getAsDouble();
+            sketches[i % parts].update(all[i]);
+        }
+        KllSketch merged = new KllSketch(K, new SplittableRandom(parts));
+        for (KllSketch sketch : sketches) {
+            merged.merge(sketch);
+        }
+        KllSketch.QuantileTable table = merged.toTable();
+        Arrays.sort(all);
+
+        assertThat(merged.getCount()).isEqualTo(count);
+        for (int q = 1; q < 100; q++) {
+            double value = all[(int) ((long) q * count / 100)];
+            int below = lowerBound(all, value);
+            int atOrBelow = upperBound(all, value);
+            double exact = 100.0 * (below + (atOrBelow - below) / 2.0) / count;
+            assertThat(table.percentile(value)).as("percentile of %s", value).isCloseTo(exact, within(MAX_ERROR_POINTS));
+        }
+    }
+
+    private static int lowerBound(double[] values, double value) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int upperBound(double[] values, double value) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fitpro.stats;
+
+import com.fitpro.dto.UserStatsDTO;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Without the listener every read revalidates, so writes made behind the cache's back must show up immediately
+@TestPropertySource(properties = {"stats.cache.recheck-ms=0", "stats.cache.listen.enabled=false"})
+class MeasurementCacheTest extends IntegrationTest {
+    @Autowired
+    private MeasurementCache measurementCache;
+
+    @Test
+    void seesRowsWrittenOutsideThisInstance() throws Exception {
+        TestUser user = signUp();
+        recordWeight(user, 80.0);
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::weight).contains(80.0);
+
+        // Another instance or a sync push writes the row; this instance is never told
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO user_stats (stat_id, user_id, weight, measurement_date) VALUES (?, ?, 79.5, ?)",
+            id, user.id(), Timestamp.valueOf(LocalDateTime.now().plusMinutes(1)));
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::id).contains(id);
+
+        jdbcTemplate.update("UPDATE user_stats SET weight = 79.0 WHERE stat_id = ?", id);
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::weight).contains(79.0);
+
+        jdbcTemplate.update("DELETE FROM user_stats WHERE stat_id = ?", id);
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::weight).contains(80.0);
+    }
+
+    @Test
+    void keepsWindowAcrossOwnWrites() throws Exception {
+        TestUser user = signUp();
+        recordWeight(user, 80.0);
+        measurementCache.latest(user.id());
+        long reloads = measurementCache.getReloads();
+
+        recordWeight(user, 81.0);
+        recordWeight(user, 82.0);
+
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::weight).contains(82.0);
+        assertThat(measurementCache.range(user.id(), LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)))
+            .extracting(UserStatsDTO::weight).containsExactly(82.0, 81.0, 80.0);
+        assertThat(measurementCache.getReloads()).isEqualTo(reloads);
+    }
+
+    @Test
+    void countsEveryRowChange() throws Exception {
+        TestUser user = signUp();
+        recordWeight(user, 80.0);
+        recordWeight(user, 81.0);
+        jdbcTemplate.update("UPDATE user_stats SET height = 180 WHERE user_id = ?", user.id());
+        jdbcTemplate.update("DELETE FROM user_stats WHERE user_id = ?", user.id());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM user_stats_versions WHERE user_id = ?", Long.class, user.id()))
+            .isEqualTo(6);
+    }
+
+    private void recordWeight(TestUser user, double weight) throws Exception {
+        // Distinct timestamps keep the newest-first order unambiguous
+        Thread.sleep(2);
+        mockMvc.perform(post("/api/stats")
+                .header("Authorization", user.authorization())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("weight", weight))))
+            .andExpect(status().isOk());
+    }
+}
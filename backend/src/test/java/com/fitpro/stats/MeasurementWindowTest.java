@@ -0,0 +1,101 @@
+package com.fitpro.stats;
+
+import com.fitpro.dto.UserStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeasurementWindowTest {
+    // Postgres orders uuids by their bytes, which is unsigned order of the two halves
+    private static final Comparator<UserStatsDTO> KEY = Comparator.comparing(UserStatsDTO::measurementDate)
+        .thenComparing(UserStatsDTO::id, Comparator
+            .comparing((UUID id) -> id.getMostSignificantBits(), Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned));
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void answersLikeAFullScan() {
+        Random random = new Random(1);
+        int covered = 0;
+        for (int trial = 0; trial < 1_000; trial++) {
+            int maxRows = 1 + random.nextInt(40);
+            List<UserStatsDTO> all = new ArrayList<>();
+            int initial = random.nextInt(60);
+            for (int i = 0; i < initial; i++) {
+                all.add(row(random));
+            }
+            all.sort(KEY.reversed());
+            boolean complete = all.size() <= maxRows;
+            MeasurementWindow window = new MeasurementWindow(new ArrayList<>(complete ? all : all.subList(0, maxRows)), complete);
+
+            for (int step = 0; step < 50; step++) {
+                if (random.nextInt(3) == 0) {
+                    UserStatsDTO added = row(random);
+                    all.add(added);
+                    all.sort(KEY.reversed());
+                    window.insert(added, maxRows);
+                }
+
+                assertThat(window.latest()).isEqualTo(all.isEmpty() ? null : all.get(0));
+
+                LocalDateTime start = BASE.plusMinutes(random.nextInt(500));
+                LocalDateTime end = start.plusMinutes(random.nextInt(300));
+                List<UserStatsDTO> range = window.range(start, end);
+                if (range != null) {
+                    covered++;
+                    assertThat(range).isEqualTo(all.stream()
+                        .filter(row -> !row.measurementDate().isBefore(start) && !row.measurementDate().isAfter(end))
+                        .toList());
+                }
+
+                MeasurementFilter filter = MeasurementFilter.values()[random.nextInt(MeasurementFilter.values().length)];
+                UserStatsDTO cursor = all.isEmpty() || random.nextBoolean()
+                    ? new UserStatsDTO(new UUID(-1, -1), null, null, null, LocalDateTime.of(9999, 12, 31, 23, 59, 59))
+                    : all.get(random.nextInt(all.size()));
+                int limit = 1 + random.nextInt(10);
+                List<UserStatsDTO> page = window.pageBefore(filter, cursor.measurementDate(), cursor.id(), limit);
+                if (page != null) {
+                    covered++;
+                    assertThat(page).isEqualTo(all.stream()
+                        .filter(row -> KEY.compare(row, cursor) < 0)
+                        .filter(row -> filter == MeasurementFilter.ALL
+                            || (filter == MeasurementFilter.WEIGHT ? row.weight() != null : row.bodyFatPercentage() != null))
+                        .limit(limit)
+                        .toList());
+                }
+            }
+        }
+        // Most reads must be answered from the window, or the comparison proves little
+        assertThat(covered).isGreaterThan(50_000);
+    }
+
+    @Test
+    void dropsOldestRowOnceFull() {
+        MeasurementWindow window = new MeasurementWindow(List.of(), true);
+        for (int i = 0; i < 5; i++) {
+            window.insert(new UserStatsDTO(UUID.randomUUID(), 70.0 + i, null, null, BASE.plusDays(i)), 3);
+        }
+
+        assertThat(window.size()).isEqualTo(3);
+        assertThat(window.latest().weight()).isEqualTo(74.0);
+        // The two oldest rows are gone, so the window can no longer answer for their days
+        assertThat(window.range(BASE, BASE.plusDays(10))).isNull();
+        assertThat(window.range(BASE.plusDays(3), BASE.plusDays(10))).extracting(UserStatsDTO::weight)
+            .containsExactly(74.0, 73.0);
+    }
+
+    private static UserStatsDTO row(Random random) {
+        return new UserStatsDTO(new UUID(random.nextLong(), random.nextInt(4)),
+            random.nextBoolean() ? null : 60 + random.nextDouble(),
+            random.nextBoolean() ? null : 180.0,
+            random.nextBoolean() ? null : random.nextDouble() * 30,
+            BASE.plusMinutes(random.nextInt(600)).plusNanos(random.nextInt(1_000_000) * 1000L));
+    }
+}
@@ -0,0 +1,126 @@
+package com.fitpro.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SeriesDownsamplerTest {
+    @Test
+    void matchesReferenceImplementation() {
+        Random random = new Random(7);
+        for (int k = 0; k < 5_000; k++) {
+            int total = random.nextInt(400);
+            int maxPoints = SeriesDownsampler.MIN_POINTS + random.nextInt(60);
+            long[] times = new long[total];
+            double[] values = new double[total];
+            long time = 1_600_000_000_000L;
+            for (int i = 0; i < total; i++) {
+                time += 1 + random.nextInt(86_400_000);
+                times[i] = time;
+                values[i] = 70 + random.nextGaussian() * 3;
+            }
+
+            SeriesDownsampler.Series series = downsample(times, values, maxPoints);
+
+            String description = "total=" + total + " maxPoints=" + maxPoints;
+            assertThat(series.times()).as(description).containsExactly(referenceTimes(times, values, maxPoints));
+            assertThat(series.values()).as(description).hasSize(Math.min(total, maxPoints));
+        }
+    }
+
+    @Test
+    void keepsShortSeriesUnchanged() {
+        long[] times = {1, 2, 3};
+        double[] values = {5, 6, 7};
+
+        SeriesDownsampler.Series series = downsample(times, values, 10);
+
+        assertThat(series.times()).containsExactly(times);
+        assertThat(series.values()).containsExactly(values);
+    }
+
+    @Test
+    void keepsEndpointsAndPeaks() {
+        int total = 10_000;
+        long[] times = new long[total];
+        double[] values = new double[total];
+        for (int i = 0; i < total; i++) {
+            times[i] = i * 60_000L;
+            values[i] = i == 5_000 ? 200 : 70;
+        }
+
+        SeriesDownsampler.Series series = downsample(times, values, 50);
+
+        assertThat(series.times()).hasSize(50);
+        assertThat(series.times()[0]).isEqualTo(times[0]);
+        assertThat(series.times()[49]).isEqualTo(times[total - 1]);
+        assertThat(series.values()).contains(200.0);
+    }
+
+    @Test
+    void rejectsMorePointsThanAnnounced() {
+        SeriesDownsampler downsampler = new SeriesDownsampler(1, 10);
+        downsampler.add(1, 1);
+
+        assertThatThrownBy(() -> downsampler.add(2, 2)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsTooFewPoints() {
+        assertThatThrownBy(() -> new SeriesDownsampler(10, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SeriesDownsampler.Series downsample(long[] times, double[] values, int maxPoints) {
+        SeriesDownsampler downsampler = new SeriesDownsampler(times.length, maxPoints);
+        for (int i = 0; i < times.length; i++) {
+            downsampler.add(times[i], values[i]);
+        }
+        return downsampler.finish();
+    }
+
+    // Textbook LTTB over the whole series in memory
+    private static long[] referenceTimes(long[] times, double[] values, int maxPoints) {
+        int total = times.length;
+        if (total <= maxPoints) {
+            return times.clone();
+        }
+        long[] kept = new long[maxPoints];
+        int count = 0;
+        kept[count++] = times[0];
+        int anchor = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int nextStart = bucketStart(bucket + 1, total, maxPoints);
+            int nextEnd = Math.min(bucketStart(bucket + 2, total, maxPoints), total);
+            double averageTime = 0;
+            double averageValue = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                averageTime += times[j];
+                averageValue += values[j];
+            }
+            averageTime /= nextEnd - nextStart;
+            averageValue /= nextEnd - nextStart;
+
+            int best = -1;
+            double bestArea = -1;
+            for (int j = bucketStart(bucket, total, maxPoints); j < nextStart; j++) {
+                double area = Math.abs((times[anchor] - averageTime) * (values[j] - values[anchor])
+                    - (times[anchor] - times[j]) * (averageValue - values[anchor]));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = j;
+                }
+            }
+            kept[count++] = times[best];
+            anchor = best;
+        }
+        kept[count] = times[total - 1];
+        return kept;
+    }
+
+    private static int bucketStart(int bucket, int total, int maxPoints) {
+        return (int) ((long) bucket * (total - 2) / (maxPoints - 2)) + 1;
+    }
+}
@@ -0,0 +1,84 @@
+package com.fitpro.stats;
+
+import com.fitpro.dto.UserStatsDTO;
+import com.fitpro.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StatsVersionListenerTest extends IntegrationTest {
+    @Autowired
+    private MeasurementCache measurementCache;
+
+    @BeforeEach
+    void awaitListener() throws InterruptedException {
+        await(measurementCache::isListening);
+    }
+
+    @Test
+    void dropsWindowWhenAnotherWriterCommits() throws Exception {
+        TestUser user = signUp();
+        recordWeight(user, 80.0);
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::weight).contains(80.0);
+        long revalidations = measurementCache.getRevalidations();
+        long invalidations = measurementCache.getNotifiedInvalidations();
+
+        // Another instance or a sync push writes the row; only the notification reaches this instance
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO user_stats (stat_id, user_id, weight, measurement_date) VALUES (?, ?, 79.5, ?)",
+            id, user.id(), Timestamp.valueOf(LocalDateTime.now().plusMinutes(1)));
+        await(() -> measurementCache.getNotifiedInvalidations() > invalidations);
+
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::id).contains(id);
+        assertThat(measurementCache.getRevalidations()).isEqualTo(revalidations);
+    }
+
+    @Test
+    void servesWindowWithoutQueryAfterOwnWrites() throws Exception {
+        TestUser user = signUp();
+        recordWeight(user, 80.0);
+        measurementCache.latest(user.id());
+        long hits = measurementCache.getHits();
+        long revalidations = measurementCache.getRevalidations();
+        long misses = measurementCache.getMisses();
+
+        recordWeight(user, 81.0);
+        // The announcement of our own write must not drop the window it was already applied to
+        long version = jdbcTemplate.queryForObject("SELECT version FROM user_stats_versions WHERE user_id = ?", Long.class, user.id());
+        measurementCache.versionChanged(user.id(), version);
+
+        assertThat(measurementCache.latest(user.id())).map(UserStatsDTO::weight).contains(81.0);
+        assertThat(measurementCache.getHits()).isEqualTo(hits + 1);
+        assertThat(measurementCache.getRevalidations()).isEqualTo(revalidations);
+        assertThat(measurementCache.getMisses()).isEqualTo(misses);
+    }
+
+    private void recordWeight(TestUser user, double weight) throws Exception {
+        // Distinct timestamps keep the newest-first order unambiguous
+        Thread.sleep(2);
+        mockMvc.perform(post("/api/stats")
+                .header("Authorization", user.authorization())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("weight", weight))))
+            .andExpect(status().isOk());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
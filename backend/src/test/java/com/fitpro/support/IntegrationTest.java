@@ -0,0 +1,71 @@
+package com.fitpro.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base for tests against the full application on a migrated test database, with the
+ * production configuration. Subclasses that share this configuration share one context.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+public abstract class IntegrationTest {
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase database = TestDatabase.get();
+        registry.add("spring.datasource.url", database::getUrl);
+        registry.add("spring.datasource.username", database::getUsername);
+        registry.add("spring.datasource.password", database::getPassword);
+        registry.add("jwt.secret", () -> Base64.getEncoder().encodeToString("integration-test-secret-0123456789abcdef".getBytes()));
+        registry.add("jwt.expiration", () -> "3600000");
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlStatementCounter.class::getName);
+        // Every test signs up its own users from the same address
+        registry.add("security.rate-limit.enabled", () -> "false");
+        // Stands in for the shared volume production archives to
+        registry.add("archive.directory", () -> Paths.get("target", "test-archive").toAbsolutePath().toString());
+    }
+
+    /**
+     * Sign up a new user with a unique email and return a bearer token for them
+     */
+    protected TestUser signUp() throws Exception {
+        String username = "user-" + UUID.randomUUID();
+        String email = username + "@example.com";
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "username", username, "password", "password123"));
+        String response = mockMvc.perform(post("/auth/signup").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(response).get("token").asText();
+        UUID id = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", UUID.class, email);
+        return new TestUser(id, email, "Bearer " + token);
+    }
+
+    protected record TestUser(UUID id, String email, String authorization) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.fitpro.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL statements Hibernate prepares on the current thread. MockMvc serves a
+ * request on the calling thread, so a test sees exactly the statements of its own request
+ * and none from scheduled jobs running alongside.
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        statements.get().add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        statements.get().clear();
+    }
+
+    public static int get() {
+        return statements.get().size();
+    }
+
+    /** Statements recorded since the last reset, in order */
+    public static List<String> statements() {
+        return List.copyOf(statements.get());
+    }
+}
@@ -0,0 +1,136 @@
+package com.fitpro.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PostgreSQL for integration tests, started once per JVM. Tests run against an embedded
+ * server unless TEST_POSTGRES_URL points at an existing one (initdb refuses to run as root,
+ * for example); a fresh database is then created on that server for the run.
+ */
+public final class TestDatabase {
+    private static TestDatabase instance;
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private TestDatabase(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static synchronized TestDatabase get() {
+        if (instance == null) {
+            String serverUrl = setting("test.postgres.url", "TEST_POSTGRES_URL");
+            instance = serverUrl != null
+                ? createOn(serverUrl, setting("test.postgres.username", "TEST_POSTGRES_USERNAME", "postgres"),
+                    setting("test.postgres.password", "TEST_POSTGRES_PASSWORD", ""))
+                : startEmbedded();
+        }
+        return instance;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+
+    /**
+     * Apply the application's migrations, for benchmarks and tests that use the database
+     * without starting the application
+     */
+    public TestDatabase migrate() {
+        Flyway.configure().dataSource(url, username, password).locations("classpath:db/migration").load().migrate();
+        return this;
+    }
+
+    private static TestDatabase startEmbedded() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    // The JVM is exiting anyway
+                }
+            }));
+            return new TestDatabase(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start embedded PostgreSQL; set TEST_POSTGRES_URL to use a running server", e);
+        }
+    }
+
+    private static TestDatabase createOn(String serverUrl, String username, String password) {
+        String name = "fitpro_test_" + ProcessHandle.current().pid() + "_" + System.currentTimeMillis();
+        try (Connection connection = DriverManager.getConnection(serverUrl, username, password);
+             Statement statement = connection.createStatement()) {
+            dropLeftovers(statement);
+            statement.execute("CREATE DATABASE " + name);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create test database on " + serverUrl, e);
+        }
+        return new TestDatabase(withDatabase(serverUrl, name), username, password);
+    }
+
+    /**
+     * Drop databases of earlier runs. Dropping at exit would race the application context
+     * closing its pool, so each run cleans up after the previous ones instead; a database
+     * still in use by a concurrent run refuses the drop and is left alone.
+     */
+    private static void dropLeftovers(Statement statement) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery("SELECT datname FROM pg_database WHERE datname LIKE 'fitpro\\_test\\_%'")) {
+            while (rows.next()) {
+                names.add(rows.getString(1));
+            }
+        }
+        for (String leftover : names) {
+            try {
+                statement.execute("DROP DATABASE IF EXISTS " + leftover);
+            } catch (SQLException e) {
+                // In use by another run
+            }
+        }
+    }
+
+    // jdbc:postgresql://host:port/db?params with the database swapped out
+    private static String withDatabase(String serverUrl, String name) {
+        int slash = serverUrl.indexOf('/', "jdbc:postgresql://".length());
+        int query = serverUrl.indexOf('?');
+        String base = slash < 0 ? (query < 0 ? serverUrl : serverUrl.substring(0, query)) : serverUrl.substring(0, slash);
+        return base + "/" + name + (query < 0 ? "" : serverUrl.substring(query));
+    }
+
+    private static String setting(String property, String variable) {
+        String value = System.getProperty(property);
+        return value != null && !value.isEmpty() ? value : System.getenv(variable);
+    }
+
+    private static String setting(String property, String variable, String defaultValue) {
+        String value = setting(property, variable);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -42,7 +42,14 @@ api.interceptors.request.use(async (config) => {
 
 // Add response interceptor for handling unauthorized responses
 api.interceptors.response.use(
-  (response) => {
+  async (response) => {
+    // The server re-issues tokens that predate the user's last profile change
+    const refreshed = response.headers['authorization'];
+    if (typeof refreshed === 'string' && refreshed.startsWith('Bearer ')) {
+      const token = refreshed.substring(7);
+      await AsyncStorage.setItem('token', token);
+      api.defaults.headers.common['Authorization'] = `Bearer ${token}`;
+    }
     console.log('Response:', {
       status: response.status,
       data: response.data,
@@ -136,6 +143,28 @@ export const updateProfile = async (profileData: any) => {
   }
 };
 
+// Listing endpoints return { items, nextCursor }; nextCursor is null on the last page
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor: string | null;
+}
+
+// Follow nextCursor until the last page and return every item in server order
+export const getAllPages = async <T>(url: string, pageSize = 200): Promise<T[]> => {
+  const items: T[] = [];
+  let cursor: string | null = null;
+  do {
+    const params: Record<string, string | number> = { limit: pageSize };
+    if (cursor) {
+      params.cursor = cursor;
+    }
+    const response: { data: CursorPage<T> } = await api.get(url, { params });
+    items.push(...response.data.items);
+    cursor = response.data.nextCursor;
+  } while (cursor);
+  return items;
+};
+
 export const setAuthToken = (token: string) => {
   if (token) {
     api.defaults.headers.common['Authorization'] = `Bearer ${token}`;
@@ -19,6 +19,7 @@ interface UserProfile {
 
 interface ProfileResponse {
   profile: UserProfile;
+  token?: string;
 }
 
 const AUTH_TOKEN_KEY = '@auth_token';
@@ -108,6 +109,12 @@ export const authService = {
       // Use the correct endpoint
       const response = await api.post('/api/users/profile', profileData);
       
+      if (response.data?.token) {
+        // Tokens issued before the update carry the old profile version
+        await AsyncStorage.setItem('token', response.data.token);
+        api.defaults.headers.common['Authorization'] = `Bearer ${response.data.token}`;
+      }
+
       if (response.data) {
         // Update the stored user data with the new profile
         const storedUser = await AsyncStorage.getItem('user');
@@ -1,5 +1,5 @@
 import { getAuthToken } from './auth';
-import api from './api';
+import api, { getAllPages } from './api';
 import { AxiosError } from 'axios';
 
 export interface UserStats {
@@ -51,8 +51,7 @@ class StatsService {
 
   async getWeightProgress(): Promise<UserStats[]> {
     try {
-      const response = await api.get('/api/stats/progress/weight');
-      return response.data;
+      return await getAllPages<UserStats>('/api/stats/progress/weight');
     } catch (error) {
       throw new Error('Failed to fetch weight progress');
     }
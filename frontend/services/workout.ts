@@ -1,4 +1,4 @@
-import api from './api';
+import api, { getAllPages } from './api';
 
 export interface WorkoutStats {
   streak: number;
@@ -29,8 +29,7 @@ class WorkoutService {
 
   async getWorkoutHistory(): Promise<WorkoutHistory[]> {
     try {
-      const response = await api.get('/api/workouts');
-      return response.data;
+      return await getAllPages<WorkoutHistory>('/api/workouts');
     } catch (error) {
       console.error('Error fetching workout history:', error);
       return [];